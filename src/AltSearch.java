@@ -0,0 +1,638 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Bidirectional A* shortest-path search on a {@link WeightedGraph}, guided by landmarks (ALT).
+ * <p>
+ * Construction freezes the graph into weighted forward and reverse CSR arrays and picks a few landmarks by
+ * farthest-point selection: each new landmark is the node farthest from all landmarks chosen so far. For every
+ * landmark {@code L} it stores the distances {@code d(L, v)} and {@code d(v, L)} of every node {@code v} in flat
+ * {@code double} arrays. By the triangle inequality, {@code d(L, t) - d(L, v)} and {@code d(v, L) - d(t, L)} are
+ * lower bounds on {@code d(v, t)}, and the largest of them over all landmarks is the A* heuristic.
+ * <p>
+ * Queries run a bidirectional Dijkstra search in which both sides use the average of the forward and the reverse
+ * heuristic as their potential, so they agree on every reduced edge cost and may stop as soon as the two smallest
+ * heap keys add up to the best path found. With good landmarks this settles a small fraction of the nodes a plain
+ * bidirectional Dijkstra search settles; {@link AltSearch#dijkstraDistance(String, String)} runs that search for
+ * comparison.
+ * <p>
+ * The search works on a snapshot: later changes to the graph are not seen. Like {@link SearchKernel}, an
+ * instance reuses its query state and is not thread-safe.
+ */
+
+public class AltSearch {
+
+    /**
+     * The number of landmarks picked when none is specified.
+     */
+    public static final int DEFAULT_LANDMARKS = 8;
+
+    /**
+     * The graph the snapshot was taken from, used to translate between values and ids.
+     */
+    private final WeightedGraph graph;
+
+    private final int nodes;
+
+    /**
+     * The weighted forward and reverse CSR of the graph, laid out like those of {@link CsrGraph}.
+     */
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] reverseOffsets;
+    private final int[] reverseTargets;
+    private final double[] reverseWeights;
+
+    /**
+     * The ids of the landmarks.
+     */
+    private final int[] landmarks;
+
+    /**
+     * The distance from every landmark to every node, at {@code node * landmarks.length + landmark},
+     * so the distances of one node to all landmarks share a cache line. Unreachable nodes are infinite.
+     */
+    private final double[] fromLandmarks;
+
+    /**
+     * The distance from every node to every landmark, laid out like {@link AltSearch#fromLandmarks}.
+     */
+    private final double[] toLandmarks;
+
+    /**
+     * The query state of the forward and the reverse side: tentative distances, parents and heaps.
+     */
+    private final double[] forwardDistance;
+    private final double[] reverseDistance;
+    private final int[] forwardParent;
+    private final int[] reverseParent;
+    private final Heap forwardHeap;
+    private final Heap reverseHeap;
+
+    /**
+     * The epoch in which each node was last reached by each side, as in {@link SearchKernel}.
+     */
+    private final int[] forwardMark;
+    private final int[] reverseMark;
+
+    /**
+     * The potential of every node in the current query, valid while its mark equals the current epoch.
+     */
+    private final double[] potential;
+    private final int[] potentialMark;
+
+    private int epoch;
+    private int source;
+    private int target;
+    private boolean useLandmarks;
+    private int meetingNode;
+
+    /**
+     * The number of nodes settled by the last query.
+     */
+    private long settledNodes;
+
+    /**
+     * Constructs a search with {@link AltSearch#DEFAULT_LANDMARKS} landmarks.
+     *
+     * @param graph The graph to search.
+     */
+    public AltSearch(WeightedGraph graph) {
+        this(graph, DEFAULT_LANDMARKS);
+    }
+
+    /**
+     * Constructs a search, taking a snapshot of the graph and computing the landmark distance tables.
+     * <p>
+     * Each landmark depends on the forward distances of the ones before it, so those are computed one after
+     * the other during selection; the reverse distances of all landmarks are then computed in parallel on the
+     * common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @param graph     The graph to search.
+     * @param landmarks The number of landmarks; fewer are used if the graph has fewer nodes.
+     * @throws IllegalArgumentException If the number of landmarks is negative.
+     */
+    public AltSearch(WeightedGraph graph, int landmarks) {
+        if (landmarks < 0) {
+            throw new IllegalArgumentException("Number of landmarks must not be negative: " + landmarks);
+        }
+        this.graph = graph;
+        this.nodes = graph.nodeCount();
+
+        this.offsets = new int[nodes + 1];
+        IntGraph.NeighborCursor cursor = graph.forwardCursor();
+        for (int id = 0; id < nodes; id++) {
+            offsets[id + 1] = offsets[id] + graph.outDegree(id);
+        }
+        this.targets = new int[offsets[nodes]];
+        this.weights = new double[offsets[nodes]];
+        for (int id = 0; id < nodes; id++) {
+            cursor.reset(id);
+            int i = offsets[id];
+            for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+                targets[i] = neighbor;
+                weights[i++] = graph.weightOf(id, neighbor);
+            }
+        }
+
+        this.reverseOffsets = new int[nodes + 1];
+        this.reverseTargets = new int[targets.length];
+        this.reverseWeights = new double[targets.length];
+        CsrGraph.transpose(offsets, targets, reverseOffsets, reverseTargets);
+        int[] next = Arrays.copyOf(reverseOffsets, nodes);
+        for (int src = 0; src < nodes; src++) {
+            for (int i = offsets[src]; i < offsets[src + 1]; i++) {
+                reverseWeights[next[targets[i]]++] = weights[i];
+            }
+        }
+
+        List<double[]> from = new ArrayList<>();
+        this.landmarks = selectLandmarks(Math.min(landmarks, nodes), from);
+        int count = this.landmarks.length;
+        this.fromLandmarks = new double[nodes * count];
+        this.toLandmarks = new double[nodes * count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            double[] to = dijkstra(this.landmarks[i], reverseOffsets, reverseTargets, reverseWeights);
+            for (int v = 0; v < nodes; v++) {
+                fromLandmarks[v * count + i] = from.get(i)[v];
+                toLandmarks[v * count + i] = to[v];
+            }
+        });
+
+        this.forwardDistance = new double[nodes];
+        this.reverseDistance = new double[nodes];
+        this.forwardParent = new int[nodes];
+        this.reverseParent = new int[nodes];
+        this.forwardHeap = new Heap(nodes);
+        this.reverseHeap = new Heap(nodes);
+        this.forwardMark = new int[nodes];
+        this.reverseMark = new int[nodes];
+        this.potential = new double[nodes];
+        this.potentialMark = new int[nodes];
+    }
+
+    /**
+     * Picks landmarks by farthest-point selection.
+     * <p>
+     * The first landmark is the node farthest from node {@code 0}; every further landmark is the node whose
+     * distance from the nearest landmark chosen so far is largest. Nodes no landmark reaches count as farthest,
+     * so landmarks spread into every part of a graph that is not strongly connected. Nodes without edges,
+     * including removed ones, are never picked.
+     *
+     * @param count The number of landmarks to pick.
+     * @param from  Receives the distances from every picked landmark to every node, in selection order.
+     * @return The ids of the landmarks; fewer than count if every node is already a landmark.
+     */
+    private int[] selectLandmarks(int count, List<double[]> from) {
+        int[] selected = new int[count];
+        if (count == 0) {
+            return selected;
+        }
+
+        double[] nearest = dijkstra(0, offsets, targets, weights);
+        int size = 0;
+        while (size < count) {
+            int farthest = IntGraph.NO_NODE;
+            for (int v = 0; v < nodes; v++) {
+                boolean hasEdges = offsets[v] < offsets[v + 1] || reverseOffsets[v] < reverseOffsets[v + 1];
+                if (hasEdges && (farthest == IntGraph.NO_NODE || nearest[v] > nearest[farthest])) {
+                    farthest = v;
+                }
+            }
+            if (farthest == IntGraph.NO_NODE || (size > 0 && nearest[farthest] == 0)) {
+                break;  // Every node with edges is a landmark or at distance zero from one
+            }
+
+            selected[size++] = farthest;
+            double[] distances = dijkstra(farthest, offsets, targets, weights);
+            from.add(distances);
+            if (size == 1) {
+                nearest = distances.clone();
+            } else {
+                for (int v = 0; v < nodes; v++) {
+                    nearest[v] = Math.min(nearest[v], distances[v]);
+                }
+            }
+        }
+        return Arrays.copyOf(selected, size);
+    }
+
+    /**
+     * Computes the distances from one node to all nodes with Dijkstra's algorithm.
+     * Allocates its own state, so several of these may run at once.
+     *
+     * @param start   The id of the start node.
+     * @param offsets The offsets of the CSR to follow.
+     * @param targets The neighbor ids of the CSR to follow.
+     * @param weights The weight of every edge of the CSR to follow.
+     * @return The distance of every node from start, infinite for unreachable nodes.
+     */
+    private double[] dijkstra(int start, int[] offsets, int[] targets, double[] weights) {
+        double[] distance = new double[nodes];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Heap heap = new Heap(nodes);
+        distance[start] = 0;
+        heap.insert(start, 0);
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int neighbor = targets[i];
+                double candidate = distance[node] + weights[i];
+                if (candidate < distance[neighbor]) {
+                    if (distance[neighbor] == Double.POSITIVE_INFINITY) {
+                        heap.insert(neighbor, candidate);
+                    } else {
+                        heap.decrease(neighbor, candidate);
+                    }
+                    distance[neighbor] = candidate;
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the length of a shortest path between two nodes, searching with bidirectional ALT.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return The sum of the edge weights on a shortest path, or {@link Double#POSITIVE_INFINITY} if there is no path.
+     */
+    public double distance(String src, String dest) {
+        return search(graph.idOf(src), graph.idOf(dest), true);
+    }
+
+    /**
+     * Returns the length of a shortest path between two nodes, searching with plain bidirectional Dijkstra.
+     * This ignores the landmarks and serves as the baseline for {@link AltSearch#distance(String, String)}.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return The sum of the edge weights on a shortest path, or {@link Double#POSITIVE_INFINITY} if there is no path.
+     */
+    public double dijkstraDistance(String src, String dest) {
+        return search(graph.idOf(src), graph.idOf(dest), false);
+    }
+
+    /**
+     * Finds a shortest path between two nodes with bidirectional ALT.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return The nodes on a shortest path from src to dest, both included, or an empty list if there is no path.
+     */
+    public List<Node> findPath(String src, String dest) {
+        if (search(graph.idOf(src), graph.idOf(dest), true) == Double.POSITIVE_INFINITY) {
+            return Collections.emptyList();
+        }
+
+        LinkedList<Node> path = new LinkedList<>();
+        for (int node = meetingNode; node != IntGraph.NO_NODE; node = forwardParent[node]) {
+            path.addFirst(graph.nodeOf(node));
+        }
+        for (int node = reverseParent[meetingNode]; node != IntGraph.NO_NODE; node = reverseParent[node]) {
+            path.addLast(graph.nodeOf(node));
+        }
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * Returns the number of nodes settled by the last query, over both sides.
+     *
+     * @return The number of settled nodes.
+     */
+    public long getSettledNodes() {
+        return settledNodes;
+    }
+
+    /**
+     * Returns the landmarks in the order they were selected.
+     *
+     * @return The values of the landmarks.
+     */
+    public List<String> getLandmarks() {
+        List<String> values = new ArrayList<>(landmarks.length);
+        for (int landmark : landmarks) {
+            values.add(graph.valueOf(landmark));
+        }
+        return values;
+    }
+
+    /**
+     * Runs a bidirectional Dijkstra search on edge costs reduced by the landmark potential.
+     * <p>
+     * A node's key on the forward side is its distance from src plus its potential, and on the reverse side its
+     * distance to dest minus its potential. Reduced costs are non-negative, so a settled node is final, and the
+     * search stops once the smallest keys of both heaps add up to at least the best path found.
+     *
+     * @param src          The id of the starting node.
+     * @param dest         The id of the target node.
+     * @param useLandmarks {@code true} to use the landmark potential, {@code false} for a zero potential.
+     * @return The length of a shortest path, or {@link Double#POSITIVE_INFINITY} if there is none.
+     */
+    private double search(int src, int dest, boolean useLandmarks) {
+        settledNodes = 0;
+        meetingNode = IntGraph.NO_NODE;
+        if (src == IntGraph.NO_NODE || dest == IntGraph.NO_NODE) {
+            return Double.POSITIVE_INFINITY;
+        }
+        nextEpoch();
+        this.source = src;
+        this.target = dest;
+        this.useLandmarks = useLandmarks;
+        forwardHeap.clear();
+        reverseHeap.clear();
+
+        forwardMark[src] = epoch;
+        forwardDistance[src] = 0;
+        forwardParent[src] = IntGraph.NO_NODE;
+        forwardHeap.insert(src, potentialOf(src));
+        reverseMark[dest] = epoch;
+        reverseDistance[dest] = 0;
+        reverseParent[dest] = IntGraph.NO_NODE;
+        reverseHeap.insert(dest, -potentialOf(dest));
+
+        double best = Double.POSITIVE_INFINITY;
+        if (src == dest) {
+            meetingNode = src;
+            best = 0;
+        }
+
+        while (!forwardHeap.isEmpty() && !reverseHeap.isEmpty()
+                && forwardHeap.minKey() + reverseHeap.minKey() < best) {
+            boolean forward = forwardHeap.size() <= reverseHeap.size();
+            int node = forward ? forwardHeap.poll() : reverseHeap.poll();
+            settledNodes++;
+            best = forward ? relax(node, best, offsets, targets, weights, forwardDistance, forwardParent, forwardMark,
+                            forwardHeap, reverseDistance, reverseMark, 1)
+                    : relax(node, best, reverseOffsets, reverseTargets, reverseWeights, reverseDistance, reverseParent,
+                            reverseMark, reverseHeap, forwardDistance, forwardMark, -1);
+        }
+        return best;
+    }
+
+    /**
+     * Relaxes the edges of a settled node on one side and updates the best path through a node both sides reached.
+     *
+     * @param node          The settled node.
+     * @param best          The length of the best path found so far.
+     * @param offsets       The offsets of the CSR this side follows.
+     * @param targets       The neighbor ids of the CSR this side follows.
+     * @param weights       The edge weights of the CSR this side follows.
+     * @param distance      The tentative distances of this side.
+     * @param parent        The parents of this side.
+     * @param mark          The reached marks of this side.
+     * @param heap          The heap of this side.
+     * @param otherDistance The tentative distances of the other side.
+     * @param otherMark     The reached marks of the other side.
+     * @param sign          {@code 1} for the forward side, {@code -1} for the reverse side, which negates the potential.
+     * @return The length of the best path found so far, including this node's edges.
+     */
+    private double relax(int node, double best, int[] offsets, int[] targets, double[] weights, double[] distance,
+                         int[] parent, int[] mark, Heap heap, double[] otherDistance, int[] otherMark, int sign) {
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+            int neighbor = targets[i];
+            double candidate = distance[node] + weights[i];
+            if (mark[neighbor] != epoch) {
+                mark[neighbor] = epoch;
+                distance[neighbor] = candidate;
+                parent[neighbor] = node;
+                heap.insert(neighbor, candidate + sign * potentialOf(neighbor));
+            } else if (candidate < distance[neighbor] && heap.contains(neighbor)) {
+                distance[neighbor] = candidate;
+                parent[neighbor] = node;
+                heap.decrease(neighbor, candidate + sign * potentialOf(neighbor));
+            } else {
+                continue;
+            }
+            if (otherMark[neighbor] == epoch && candidate + otherDistance[neighbor] < best) {
+                best = candidate + otherDistance[neighbor];
+                meetingNode = neighbor;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the forward potential of a node: half the difference between the landmark lower bound on its
+     * distance to the target and the landmark lower bound on its distance from the source. The reverse side
+     * uses its negation, so both sides see the same reduced edge costs.
+     *
+     * @param node The id of the node.
+     * @return The potential, or {@code 0} when landmarks are not used.
+     */
+    private double potentialOf(int node) {
+        if (!useLandmarks) {
+            return 0;
+        }
+        if (potentialMark[node] == epoch) {
+            return potential[node];
+        }
+        double value = (lowerBound(node, target) - lowerBound(source, node)) / 2;
+        potentialMark[node] = epoch;
+        potential[node] = value;
+        return value;
+    }
+
+    /**
+     * Returns the best landmark lower bound on the distance between two nodes. Terms involving an unreachable
+     * landmark distance are skipped, so the bound is always finite.
+     *
+     * @param from The id of the first node.
+     * @param to   The id of the second node.
+     * @return A lower bound on the length of a shortest path from from to to, at least {@code 0}.
+     */
+    private double lowerBound(int from, int to) {
+        int count = landmarks.length;
+        int fromBase = from * count;
+        int toBase = to * count;
+        double bound = 0;
+        for (int i = 0; i < count; i++) {
+            // d(L, to) - d(L, from) <= d(from, to)
+            double ahead = fromLandmarks[toBase + i] - fromLandmarks[fromBase + i];
+            // d(from, L) - d(to, L) <= d(from, to)
+            double behind = toLandmarks[fromBase + i] - toLandmarks[toBase + i];
+            if (ahead > bound && ahead != Double.POSITIVE_INFINITY) {
+                bound = ahead;
+            }
+            if (behind > bound && behind != Double.POSITIVE_INFINITY) {
+                bound = behind;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Advances the epoch of the query marks, clearing them once when it wraps around.
+     */
+    private void nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(forwardMark, 0);
+            Arrays.fill(reverseMark, 0);
+            Arrays.fill(potentialMark, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * A binary min-heap of node ids keyed by {@code double} priorities, supporting decrease-key through
+     * an index of every node's position.
+     */
+    private static final class Heap {
+
+        private final int[] heap;
+        private final double[] keys;
+
+        /**
+         * The position of every node in {@link Heap#heap}, valid only while the node is in the heap.
+         */
+        private final int[] position;
+        private int size;
+
+        /**
+         * Constructs an empty heap for node ids below a bound.
+         *
+         * @param nodes The number of node ids.
+         */
+        Heap(int nodes) {
+            this.heap = new int[nodes];
+            this.keys = new double[nodes];
+            this.position = new int[nodes];
+        }
+
+        /**
+         * Checks whether the heap is empty.
+         *
+         * @return {@code true} if no node is in the heap.
+         */
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Returns the number of nodes in the heap.
+         *
+         * @return The size of the heap.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Removes every node from the heap.
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Returns the smallest key in the heap, which must not be empty.
+         *
+         * @return The smallest key.
+         */
+        double minKey() {
+            return keys[heap[0]];
+        }
+
+        /**
+         * Checks whether a node is in the heap. Only valid for nodes inserted since the last {@link Heap#clear()}.
+         *
+         * @param node The id of the node.
+         * @return {@code true} if the node has been inserted and not yet polled.
+         */
+        boolean contains(int node) {
+            int i = position[node];
+            return i < size && heap[i] == node;
+        }
+
+        /**
+         * Inserts a node that is not in the heap.
+         *
+         * @param node The id of the node.
+         * @param key  The priority of the node.
+         */
+        void insert(int node, double key) {
+            keys[node] = key;
+            heap[size] = node;
+            position[node] = size;
+            siftUp(size++);
+        }
+
+        /**
+         * Lowers the key of a node in the heap.
+         *
+         * @param node The id of the node.
+         * @param key  The new priority, at most the current one.
+         */
+        void decrease(int node, double key) {
+            keys[node] = key;
+            siftUp(position[node]);
+        }
+
+        /**
+         * Removes the node with the smallest key, which must exist.
+         *
+         * @return The id of the removed node.
+         */
+        int poll() {
+            int min = heap[0];
+            int last = heap[--size];
+            if (size > 0) {
+                heap[0] = last;
+                position[last] = 0;
+                siftDown(0);
+            }
+            position[min] = size;
+            return min;
+        }
+
+        /**
+         * Moves the node at a position up until its parent's key is not larger.
+         *
+         * @param i The position of the node.
+         */
+        private void siftUp(int i) {
+            int node = heap[i];
+            double key = keys[node];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[heap[parent]] <= key) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                position[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+
+        /**
+         * Moves the node at a position down until no child's key is smaller.
+         *
+         * @param i The position of the node.
+         */
+        private void siftDown(int i) {
+            int node = heap[i];
+            double key = keys[node];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[heap[child]] >= key) {
+                    break;
+                }
+                heap[i] = heap[child];
+                position[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A regression benchmark suite for the core graph operations, with machine-readable output.
+ * <p>
+ * Every benchmark runs on four graphs generated by the builders of {@link GraphBenchmark}, all seeded with
+ * {@link GraphBenchmark#SEED} so every run measures the same graphs: the random graphs of
+ * {@link DirectedGraph#generateRandomAdjacencyList(int, int, Random)} and
+ * {@link BiDiGraph#generateRandomAdjacencyList(int, int, Random)}, a power-law graph grown by preferential attachment
+ * and a directed grid. It measures
+ * {@link DirectedGraph#getNode(String)}, {@link DirectedGraph#addEdge(String, String)},
+ * {@link BiDiGraph#reverse(Map)}, {@link BidirectionalSearch#search(String, String, BidirectionalSearch.Strategy)}
+ * for pairs at a fixed hit distance and for unreachable pairs, and the heap used per edge.
+ * <p>
+ * Like a JMH run, each measurement is repeated for {@link BenchmarkSuite#WARMUP_ITERATIONS} discarded and
+ * {@link BenchmarkSuite#MEASURED_ITERATIONS} measured iterations, and reports the mean and the standard deviation
+ * of the measured ones. Results are printed as CSV with the columns
+ * {@code benchmark,graph,param,nodes,edges,score,stddev,unit}, and also written to a file when one is given,
+ * so that runs of two releases can be diffed.
+ */
+
+public class BenchmarkSuite {
+
+    /**
+     * The number of iterations run before measuring, to let the JIT compile the measured code.
+     */
+    static final int WARMUP_ITERATIONS = 3;
+
+    /**
+     * The number of measured iterations of every benchmark.
+     */
+    static final int MEASURED_ITERATIONS = 5;
+
+    /**
+     * The number of operations in one iteration of the per-operation benchmarks.
+     */
+    static final int OPERATIONS = 20_000;
+
+    /**
+     * The number of query pairs in one iteration of the search benchmarks.
+     */
+    static final int SEARCH_PAIRS = 200;
+
+    /**
+     * The hit distances measured by the search benchmark; distances a graph does not have are skipped.
+     */
+    static final int[] HIT_DISTANCES = {1, 2, 4, 8};
+
+    /**
+     * The CSV header of the results.
+     */
+    static final String HEADER = "benchmark,graph,param,nodes,edges,score,stddev,unit";
+
+    /**
+     * One measured result.
+     *
+     * @param benchmark The name of the benchmark.
+     * @param graph     The name of the generated graph.
+     * @param param     The benchmark parameter, or an empty string.
+     * @param nodes     The number of nodes of the graph.
+     * @param edges     The number of edges of the graph.
+     * @param score     The mean of the measured iterations.
+     * @param stddev    The standard deviation of the measured iterations.
+     * @param unit      The unit of the score.
+     */
+    record Result(String benchmark, String graph, String param, int nodes, long edges, double score, double stddev,
+                  String unit) {
+
+        /**
+         * Formats the result as one CSV line matching {@link BenchmarkSuite#HEADER}.
+         *
+         * @return The CSV line.
+         */
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%.3f,%.3f,%s",
+                    benchmark, graph, param, nodes, edges, score, stddev, unit);
+        }
+    }
+
+    /**
+     * One iteration of a benchmark.
+     */
+    @FunctionalInterface
+    private interface Iteration {
+
+        /**
+         * Runs the iteration.
+         *
+         * @return A value derived from the work done, consumed so the JIT cannot drop the work.
+         */
+        long run();
+    }
+
+    /**
+     * Consumes the values returned by every iteration.
+     */
+    static volatile long sink;
+
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * Runs every benchmark on one generated graph.
+     *
+     * @param name          The name of the graph in the results.
+     * @param adjacencyList The adjacency list of the graph.
+     */
+    void run(String name, Map<String, List<String>> adjacencyList) {
+        long before = GraphBenchmark.usedHeap();
+        BiDiGraph graph = new BiDiGraph(adjacencyList);
+        long graphBytes = GraphBenchmark.usedHeap() - before;
+
+        int nodes = graph.nodeCount();
+        long edges = graph.edgeCount();
+        String[] values = new String[nodes];
+        for (int id = 0; id < nodes; id++) {
+            values[id] = graph.valueOf(id);
+        }
+        List<String[]> edgeList = new ArrayList<>();
+        adjacencyList.forEach((src, neighbors) -> neighbors.forEach(dest -> edgeList.add(new String[]{src, dest})));
+
+        add(name, "memory", "bidi", nodes, edges, graphBytes / (double) edges, 0, "bytes/edge");
+        CsrGraph csrGraph = CsrGraph.freeze(graph);
+        add(name, "memory", "csr", nodes, edges, csrGraph.adjacencyBytes() / (double) edges, 0, "bytes/edge");
+
+        Random random = new Random(GraphBenchmark.SEED);
+        String[] lookups = new String[OPERATIONS];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = values[random.nextInt(nodes)];
+        }
+        measure(name, "getNode", "", nodes, edges, OPERATIONS, "ns/op", () -> {
+            long hash = 0;
+            for (String value : lookups) {
+                hash += graph.getNode(value).hashCode();
+            }
+            return hash;
+        });
+
+        measure(name, "addEdge", "", nodes, edges, edgeList.size(), "ns/op", () -> {
+            DirectedGraph built = new DirectedGraph();
+            for (String[] edge : edgeList) {
+                built.addEdge(edge[0], edge[1]);
+            }
+            return built.getVersion();
+        });
+
+        measure(name, "reverse", "", nodes, edges, 1, "ms/op", () -> {
+            graph.reverse(graph.adjList);
+            return graph.getVersion();
+        });
+
+        BidirectionalSearch mapSearch = new BidirectionalSearch(graph);
+        BidirectionalSearch csrSearch = new BidirectionalSearch(csrGraph);
+        Map<String, String[]> pairs = searchPairs(graph, values);
+        pairs.forEach((param, queries) -> {
+            for (BidirectionalSearch search : List.of(mapSearch, csrSearch)) {
+                String backend = search == mapSearch ? "search-map" : "search-csr";
+                measure(name, backend, param, nodes, edges, queries.length / 2, "us/op", () -> {
+                    long found = 0;
+                    for (int i = 0; i < queries.length; i += 2) {
+                        if (search.search(queries[i], queries[i + 1], BidirectionalSearch.Strategy.SMALLER_FRONTIER)) {
+                            found++;
+                        }
+                    }
+                    return found;
+                });
+            }
+        });
+    }
+
+    /**
+     * Picks query pairs at each of the {@link BenchmarkSuite#HIT_DISTANCES} and pairs with no path.
+     *
+     * @param graph  The graph to pick the pairs in.
+     * @param values The value of every node, indexed by id.
+     * @return The pairs keyed by the benchmark parameter, {@code hit-<distance>} or {@code miss}, each with the
+     *         sources and destinations interleaved. Distances that do not occur in the graph are absent.
+     */
+    private static Map<String, String[]> searchPairs(BiDiGraph graph, String[] values) {
+        Random random = new Random(GraphBenchmark.SEED);
+        Map<Integer, List<String>> byDistance = new TreeMap<>();
+        int nodes = values.length;
+        for (int attempt = 0; attempt < 4 * SEARCH_PAIRS; attempt++) {
+            int src = random.nextInt(nodes);
+            int[] distances = graph.distancesFrom(values[src]);
+            for (int distance : HIT_DISTANCES) {
+                addPair(byDistance, distance, values[src], distances, values, random);
+            }
+            addPair(byDistance, -1, values[src], distances, values, random);
+        }
+
+        Map<String, String[]> pairs = new LinkedHashMap<>();
+        byDistance.forEach((distance, list) -> {
+            if (!list.isEmpty()) {
+                pairs.put(distance < 0 ? "miss" : "hit-" + distance, list.toArray(new String[0]));
+            }
+        });
+        return pairs;
+    }
+
+    /**
+     * Adds one pair at a given distance from a source, if one is found by sampling and fewer than
+     * {@link BenchmarkSuite#SEARCH_PAIRS} pairs are already known at that distance.
+     *
+     * @param byDistance The pairs found so far, keyed by distance, with {@code -1} for no path.
+     * @param distance   The wanted distance.
+     * @param src        The value of the source.
+     * @param distances  The distance of every node from the source, {@code -1} if unreachable.
+     * @param values     The value of every node, indexed by id.
+     * @param random     The source of randomness.
+     */
+    private static void addPair(Map<Integer, List<String>> byDistance, int distance, String src, int[] distances,
+                                String[] values, Random random) {
+        List<String> list = byDistance.computeIfAbsent(distance, k -> new ArrayList<>());
+        if (list.size() >= 2 * SEARCH_PAIRS) {
+            return;
+        }
+        // Scan from a random start so destinations are spread over the graph
+        int start = random.nextInt(distances.length);
+        for (int i = 0; i < distances.length; i++) {
+            int id = (start + i) % distances.length;
+            if (distances[id] == distance) {
+                list.add(src);
+                list.add(values[id]);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Measures a benchmark and records its result.
+     *
+     * @param graph      The name of the graph.
+     * @param benchmark  The name of the benchmark.
+     * @param param      The benchmark parameter, or an empty string.
+     * @param nodes      The number of nodes of the graph.
+     * @param edges      The number of edges of the graph.
+     * @param operations The number of operations in one iteration.
+     * @param unit       The unit of the score: {@code ns/op}, {@code us/op} or {@code ms/op}.
+     * @param iteration  The iteration to run.
+     */
+    private void measure(String graph, String benchmark, String param, int nodes, long edges, int operations,
+                         String unit, Iteration iteration) {
+        double scale = switch (unit) {
+            case "ns/op" -> 1;
+            case "us/op" -> 1_000;
+            default -> 1_000_000;
+        };
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += iteration.run();
+        }
+        double[] scores = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink += iteration.run();
+            scores[i] = (System.nanoTime() - start) / scale / operations;
+        }
+
+        double mean = Arrays.stream(scores).average().orElse(0);
+        double variance = Arrays.stream(scores).map(score -> (score - mean) * (score - mean)).sum()
+                / Math.max(1, scores.length - 1);
+        add(graph, benchmark, param, nodes, edges, mean, Math.sqrt(variance), unit);
+    }
+
+    /**
+     * Records a result and prints it.
+     *
+     * @param graph     The name of the graph.
+     * @param benchmark The name of the benchmark.
+     * @param param     The benchmark parameter, or an empty string.
+     * @param nodes     The number of nodes of the graph.
+     * @param edges     The number of edges of the graph.
+     * @param score     The measured score.
+     * @param stddev    The standard deviation of the score.
+     * @param unit      The unit of the score.
+     */
+    private void add(String graph, String benchmark, String param, int nodes, long edges, double score, double stddev,
+                     String unit) {
+        Result result = new Result(benchmark, graph, param, nodes, edges, score, stddev, unit);
+        results.add(result);
+        System.out.println(result.toCsv());
+    }
+
+    /**
+     * Writes the results recorded so far as CSV.
+     *
+     * @param out The stream to write to.
+     */
+    void writeCsv(PrintStream out) {
+        out.println(HEADER);
+        for (Result result : results) {
+            out.println(result.toCsv());
+        }
+    }
+
+    /**
+     * Runs the suite on every generated graph.
+     *
+     * @param args An optional output file for the CSV results, and an optional node count (default 100000).
+     * @throws IOException If the output file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int side = (int) Math.sqrt(nodes);
+
+        BenchmarkSuite suite = new BenchmarkSuite();
+        System.out.println(HEADER);
+        suite.run("random", GraphBenchmark.randomAdjacencyList(nodes, 10));
+        suite.run("random-bidi", GraphBenchmark.randomBidiAdjacencyList(nodes, 5));
+        suite.run("power-law", GraphBenchmark.powerLawAdjacencyList(nodes, 5));
+        suite.run("grid", GraphBenchmark.gridAdjacencyList(side, side));
+
+        if (args.length > 0) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(args[0])), false, StandardCharsets.UTF_8)) {
+                suite.writeCsv(out);
+            }
+        }
+    }
+}
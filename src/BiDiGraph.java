@@ -1,14 +1,18 @@
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A bidirectional graph representation.
  * <p>
  * This class models a bidirectional graph where each node can have edges
  * to other nodes in both forward and reverse directions.
+ * It is also an {@link IntGraph}, using the ids of {@link DirectedGraph#nodeIds},
+ * so id-based algorithms such as {@link SearchKernel} can run on it directly.
  */
 
-public class BiDiGraph extends DirectedGraph{
+public class BiDiGraph extends DirectedGraph implements IntGraph {
 
     /**
      * The reversed adjacency list representation of the bidirectional graph,
@@ -16,13 +20,24 @@ public class BiDiGraph extends DirectedGraph{
      */
     Map<Node, List<Node>> reverseAdjList;
 
+    /**
+     * The number of forward edges, kept up to date by every mutation and recounted by
+     * {@link BiDiGraph#reverse(Map)}, so {@link BiDiGraph#edgeCount()} does not sum every neighbor list.
+     */
+    protected long edgeCount;
+
+    /**
+     * The search behind {@link BiDiGraph#distancesFrom(String)} and {@link BiDiGraph#isReachable(String, String)},
+     * created on first use and reused by every later call.
+     */
+    private DirectionOptimizingBfs bfs;
+
     /**
      * Constructs a bidirectional graph, updating {@link BiDiGraph#adjList} and  {@link BiDiGraph#reverseAdjList}.
      * This function is the default constructor so it sets an empty adjList.
      */
     public BiDiGraph() {
-        super();
-        new BiDiGraph(new HashMap<Node, List<Node>>());
+        this(new HashMap<Node, List<Node>>());
     }
 
     /**
@@ -44,40 +59,211 @@ public class BiDiGraph extends DirectedGraph{
      * <p>
      * This method inverts the direction of edges in the current graph to create a reverse graph,
      * which allows for bidirectional search.
+     * {@link BiDiGraph#addEdge(String, String)}, {@link BiDiGraph#removeEdge(String, String)} and
+     * {@link BiDiGraph#removeNode(String)} keep the reverse graph up to date, so a full rebuild is only
+     * needed after the forward lists were modified directly.
+     * Nodes are resolved through {@link DirectedGraph#nodeIds}, so both maps share the same node instances.
      *
      * @param adjList The adjacency list to reverse.
      */
     public void reverse(Map<Node, List<Node>> adjList){
-        // Create a new adjacency list to store the reversed edges
-        Map<Node, List<Node>> reversedAdjList = new HashMap<>();
+        // Register every node first, so ids stay fixed while the reversed lists are counted and filled
+        for (Map.Entry<Node, List<Node>> entry : adjList.entrySet()) {
+            internId(entry.getKey().value());
+            if (!isOwnNeighborSet(entry.getValue())) {
+                for (Node neighbor : entry.getValue()) {
+                    internId(neighbor.value());
+                }
+            }
+        }
+        List<List<Node>> bySource = new ArrayList<>(Collections.nCopies(nodes.size(), null));
+        for (Map.Entry<Node, List<Node>> entry : adjList.entrySet()) {
+            bySource.set(nodeIds.get(entry.getKey().value()), entry.getValue());
+        }
 
-        // Iterate through the existing adjacency list
-        for (Node srcNode : adjList.keySet()) {
-            List<Node> neighbors = adjList.get(srcNode);
+        // Count the incoming edges of every node, then fill them in ascending source order, so every reversed
+        // list comes out sorted
+        int count = nodes.size();
+        int[] offsets = new int[count + 1];
+        for (int srcId = 0; srcId < count; srcId++) {
+            List<Node> neighbors = bySource.get(srcId);
+            for (int i = 0; neighbors != null && i < neighbors.size(); i++) {
+                offsets[neighborId(neighbors, i) + 1]++;
+            }
+        }
+        for (int id = 0; id < count; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        int[] sources = new int[offsets[count]];
+        int[] next = Arrays.copyOf(offsets, count);
+        for (int srcId = 0; srcId < count; srcId++) {
+            List<Node> neighbors = bySource.get(srcId);
+            for (int i = 0; neighbors != null && i < neighbors.size(); i++) {
+                sources[next[neighborId(neighbors, i)]++] = srcId;
+            }
+        }
 
-            // Iterate through the neighbors of the source node
-            for (Node destNode : neighbors) {
-                // Add the reverse edge to the reversed adjacency list
-                reversedAdjList.computeIfAbsent(destNode, k -> new ArrayList<>()).add(srcNode);
+        Map<Node, List<Node>> reversedAdjList = new HashMap<>();
+        for (int id = 0; id < count; id++) {
+            if (offsets[id + 1] > offsets[id]) {
+                reversedAdjList.put(nodes.get(id), NeighborSet.sorted(this, sources, offsets[id], offsets[id + 1]));
             }
         }
 
         // Replace the current adjacency list with the reversed one
         this.reverseAdjList = reversedAdjList;
+        this.edgeCount = offsets[count];
+        version++;
+    }
+
+    /**
+     * Checks whether a neighbor list is a {@link NeighborSet} of this graph, whose ids can be read directly.
+     *
+     * @param neighbors The neighbor list.
+     * @return {@code true} if it holds ids of this graph, {@code false} otherwise.
+     */
+    private boolean isOwnNeighborSet(List<Node> neighbors) {
+        return neighbors instanceof NeighborSet set && set.belongsTo(this);
+    }
+
+    /**
+     * Returns the id of a neighbor in a list whose nodes are all registered.
+     *
+     * @param neighbors The neighbor list.
+     * @param index     The position of the neighbor.
+     * @return The id of the neighbor.
+     */
+    private int neighborId(List<Node> neighbors, int index) {
+        return isOwnNeighborSet(neighbors) ? ((NeighborSet) neighbors).idAt(index)
+                : nodeIds.get(neighbors.get(index).value());
+    }
+
+    /**
+     * Adds a directed edge and its reversed counterpart in {@link BiDiGraph#reverseAdjList},
+     * unless the edge is already present.
+     *
+     * @param srcNode  The canonical source node.
+     * @param destNode The canonical destination node.
+     * @return {@code true} if the edge was added, {@code false} if it was already present.
+     */
+    @Override
+    protected boolean connect(Node srcNode, Node destNode) {
+        if (!super.connect(srcNode, destNode)) {
+            return false;
+        }
+        reverseAdjList.computeIfAbsent(destNode, k -> newNeighborList()).add(srcNode);
+        edgeCount++;
+        return true;
+    }
+
+    /**
+     * Removes a directed edge and its reversed counterpart in {@link BiDiGraph#reverseAdjList}.
+     *
+     * @param srcNode  The canonical source node.
+     * @param destNode The canonical destination node.
+     * @return {@code true} if the edge was present, {@code false} otherwise.
+     */
+    @Override
+    protected boolean disconnect(Node srcNode, Node destNode) {
+        if (!super.disconnect(srcNode, destNode)) {
+            return false;
+        }
+        List<Node> sources = reverseAdjList.get(destNode);
+        if (sources != null && sources.remove(srcNode) && sources.isEmpty()) {
+            reverseAdjList.remove(destNode);
+        }
+        edgeCount--;
+        return true;
+    }
+
+    /**
+     * Removes a node and all of its incoming and outgoing edges from both adjacency lists.
+     * <p>
+     * The incoming edges are found through {@link BiDiGraph#reverseAdjList}, so only the neighbor lists of the
+     * node's neighbors are touched instead of every list in the graph.
+     * The node stops being found by value; its id is left isolated, and is taken back if the value is added again.
+     *
+     * @param value The value of the node to remove.
+     * @return {@code true} if the node was present, {@code false} otherwise.
+     */
+    @Override
+    public boolean removeNode(String value) {
+        Node node = getNode(value);
+        if (node == null) {
+            return false;
+        }
+        version++;
+
+        List<Node> targets = adjList.remove(node);
+        if (targets != null) {
+            edgeCount -= targets.size();
+            for (Node target : new ArrayList<>(targets)) {
+                List<Node> sources = reverseAdjList.get(target);
+                if (sources != null && sources.remove(node) && sources.isEmpty()) {
+                    reverseAdjList.remove(target);
+                }
+            }
+        }
+
+        List<Node> sources = reverseAdjList.remove(node);
+        if (sources != null) {
+            for (Node source : sources) {
+                List<Node> neighbors = adjList.get(source);
+                if (neighbors != null && neighbors.remove(node)) {
+                    edgeCount--;
+                }
+            }
+        }
+
+        unregister(value);
+        return true;
+    }
+
+    /**
+     * Checks that {@link BiDiGraph#reverseAdjList} holds exactly the reversed edges of {@link BiDiGraph#adjList}.
+     * <p>
+     * Every edge is counted once per direction, so duplicate edges must appear equally often in both maps.
+     * This runs in time and memory linear in the number of edges and is meant for tests and debugging.
+     *
+     * @return {@code true} if both adjacency lists describe the same edges, {@code false} otherwise.
+     */
+    public boolean isConsistent() {
+        Map<Node, Map<Node, Integer>> balance = new HashMap<>();
+        for (Map.Entry<Node, List<Node>> entry : adjList.entrySet()) {
+            for (Node neighbor : entry.getValue()) {
+                balance.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).merge(neighbor, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<Node, List<Node>> entry : reverseAdjList.entrySet()) {
+            for (Node source : entry.getValue()) {
+                Map<Node, Integer> targets = balance.get(source);
+                if (targets == null || targets.merge(entry.getKey(), -1, Integer::sum) < 0) {
+                    return false;
+                }
+            }
+        }
+        for (Map<Node, Integer> targets : balance.values()) {
+            for (int count : targets.values()) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     /**
      * Retrieves a reversed node corresponding to a given node.
+     * <p>
+     * The lookup goes through the shared {@link DirectedGraph#nodeIds} and runs in constant time.
      *
      * @param value The value of the node to find the reversed counterpart for.
      * @return The reversed node, or {@code null} if not found.
      */
     public Node getReverseNode(String value) {
-        for (Node node : reverseAdjList.keySet()) {
-
-            if (Objects.equals(node.value(), value)) {
-                return node;
-            }
+        Node node = getNode(value);
+        if (node != null && reverseAdjList.containsKey(node)) {
+            return node;
         }
         return null;
     }
@@ -95,11 +281,265 @@ public class BiDiGraph extends DirectedGraph{
         return null;
     }
 
+    /**
+     * Computes the BFS distance of every node from a source node.
+     * <p>
+     * The search switches to bottom-up steps over {@link BiDiGraph#reverseAdjList} once the frontier covers a
+     * large share of the graph, which examines far fewer edges on low-diameter graphs.
+     * The graph keeps one search and reuses its arrays, so concurrent calls run one at a time.
+     *
+     * @param src The value of the source node.
+     * @return The distance of every node from src, indexed by {@link BiDiGraph#idOf(String)},
+     *         with {@code -1} for nodes that are not reachable.
+     * @see DirectionOptimizingBfs
+     */
+    public synchronized int[] distancesFrom(String src) {
+        return bfs().distances(idOf(src));
+    }
+
+    /**
+     * Checks whether a node is reachable from another one with a single-source BFS, which stops as soon as it
+     * reaches the target. Like {@link BiDiGraph#distancesFrom(String)}, it reuses the graph's search.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the target node.
+     * @return {@code true} if dest is reachable from src, {@code false} otherwise.
+     */
+    public synchronized boolean isReachable(String src, String dest) {
+        return bfs().reaches(idOf(src), idOf(dest));
+    }
+
+    /**
+     * Returns the search reused by {@link BiDiGraph#distancesFrom(String)} and
+     * {@link BiDiGraph#isReachable(String, String)}, creating it on first use.
+     *
+     * @return The search.
+     */
+    private DirectionOptimizingBfs bfs() {
+        if (bfs == null) {
+            bfs = new DirectionOptimizingBfs(this);
+        }
+        return bfs;
+    }
+
+    /**
+     * Streams the nodes within a number of hops of a node, nearest first.
+     * <p>
+     * The breadth-first search behind the stream is lazy: it expands one node only when the stream needs another
+     * result, and never goes deeper than maxHops. Limiting the stream, for example with {@link Stream#limit(long)}
+     * or a short-circuiting {@link Stream#anyMatch}, therefore stops the search as soon as enough results were
+     * taken. The start node itself is not part of the stream.
+     * <p>
+     * The graph must not be modified while the stream is consumed.
+     *
+     * @param value   The value of the start node.
+     * @param maxHops The largest number of edges between the start node and a result.
+     * @param forward {@code true} to follow out-edges, {@code false} to follow in-edges.
+     * @return The nodes within maxHops edges, each once, in order of their distance; empty if the node is not in
+     *         the graph.
+     * @throws IllegalArgumentException If maxHops is negative.
+     */
+    public Stream<Node> neighborhood(String value, int maxHops, boolean forward) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("Hop budget must not be negative: " + maxHops);
+        }
+        int start = idOf(value);
+        if (start == NO_NODE) {
+            return Stream.empty();
+        }
+        Iterator<Node> iterator = new Neighborhood(start, maxHops, forward);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of edges, kept as a running count instead of being summed over the neighbor lists.
+     * After the forward lists were modified directly, it is only accurate again once {@link BiDiGraph#reverse(Map)}
+     * has been called, like {@link BiDiGraph#reverseAdjList}.
+     *
+     * @return The number of edges.
+     */
+    @Override
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the version of the graph, the same as {@link DirectedGraph#getVersion()}.
+     *
+     * @return The number of mutations applied to the graph so far.
+     */
+    @Override
+    public long version() {
+        return getVersion();
+    }
+
+    @Override
+    public int idOf(String value) {
+        Integer id = nodeIds.get(value);
+        return id == null ? NO_NODE : id;
+    }
+
+    @Override
+    public String valueOf(int id) {
+        return nodes.get(id).value();
+    }
+
+    @Override
+    public Node nodeOf(int id) {
+        return nodes.get(id);
+    }
+
+    @Override
+    public int outDegree(int id) {
+        List<Node> neighbors = adjList.get(nodes.get(id));
+        return neighbors == null ? 0 : neighbors.size();
+    }
+
+    @Override
+    public int inDegree(int id) {
+        List<Node> neighbors = reverseAdjList.get(nodes.get(id));
+        return neighbors == null ? 0 : neighbors.size();
+    }
+
+    @Override
+    public NeighborCursor forwardCursor() {
+        return new Cursor(false);
+    }
+
+    @Override
+    public NeighborCursor reverseCursor() {
+        return new Cursor(true);
+    }
+
+    /**
+     * A cursor over one neighbor list of {@link BiDiGraph#adjList} or {@link BiDiGraph#reverseAdjList},
+     * translating neighbors to ids. The map is read on every reset, so the cursor stays valid after {@link BiDiGraph#reverse(Map)}.
+     * A {@link NeighborSet} hands out its ids directly; any other list is translated through {@link DirectedGraph#nodeIds}.
+     */
+    private final class Cursor implements NeighborCursor {
+
+        private final boolean reversed;
+        private List<Node> neighbors = List.of();
+        private NeighborSet set;
+        private int position;
+
+        /**
+         * Constructs a cursor over the forward or the reversed adjacency list.
+         *
+         * @param reversed {@code true} to read {@link BiDiGraph#reverseAdjList}, {@code false} to read {@link BiDiGraph#adjList}.
+         */
+        Cursor(boolean reversed) {
+            this.reversed = reversed;
+        }
+
+        @Override
+        public void reset(int id) {
+            List<Node> list = (reversed ? reverseAdjList : adjList).get(nodes.get(id));
+            neighbors = list == null ? List.of() : list;
+            set = isOwnNeighborSet(list) ? (NeighborSet) list : null;
+            position = 0;
+        }
+
+        @Override
+        public int next() {
+            if (position == neighbors.size()) {
+                return NO_NODE;
+            }
+            return set != null ? set.idAt(position++) : nodeIds.get(neighbors.get(position++).value());
+        }
+    }
+
+    /**
+     * A lazy breadth-first search that hands out the nodes it discovers in discovery order.
+     * <p>
+     * The queue doubles as the output: the nodes after the start node are returned in queue order, and the node at
+     * the head of the queue is only expanded once every discovered node has been returned.
+     */
+    private final class Neighborhood implements Iterator<Node> {
+
+        private final int maxHops;
+        private final NeighborCursor cursor;
+        private final BitSet visited = new BitSet();
+        private final long expectedVersion = version;
+        private int[] queue = new int[16];
+        private int head;
+        private int tail;
+
+        /**
+         * The queue index just past the current level, and the depth of the nodes at the head of the queue.
+         */
+        private int levelEnd;
+        private int depth;
+
+        /**
+         * The queue index of the next node to return.
+         */
+        private int returned = 1;
+
+        /**
+         * Constructs a search from a node.
+         *
+         * @param start   The id of the start node.
+         * @param maxHops The largest depth to return.
+         * @param forward {@code true} to follow out-edges, {@code false} to follow in-edges.
+         */
+        Neighborhood(int start, int maxHops, boolean forward) {
+            this.maxHops = maxHops;
+            this.cursor = forward ? forwardCursor() : reverseCursor();
+            visited.set(start);
+            queue[tail++] = start;
+            levelEnd = tail;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (version != expectedVersion) {
+                throw new ConcurrentModificationException();
+            }
+            while (returned == tail && head < tail) {
+                if (head == levelEnd) {
+                    depth++;
+                    levelEnd = tail;
+                }
+                if (depth >= maxHops) {
+                    head = tail;  // The next level would be too deep
+                    break;
+                }
+                cursor.reset(queue[head++]);
+                for (int neighbor = cursor.next(); neighbor != NO_NODE; neighbor = cursor.next()) {
+                    if (!visited.get(neighbor)) {
+                        visited.set(neighbor);
+                        if (tail == queue.length) {
+                            queue = Arrays.copyOf(queue, tail * 2);
+                        }
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            return returned < tail;
+        }
+
+        @Override
+        public Node next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return nodes.get(queue[returned++]);
+        }
+    }
+
     /**
      * Generates a random adjacency list for testing purposes.
      * <p>
      * This method creates a random bidirectional graph with the specified number of nodes
-     * and maximum edges per node for testing and experimentation.
+     * and maximum edges per node for testing and experimentation. Repeated draws of the same neighbor, and
+     * backward edges a list already holds, are dropped.
      *
      * @param nodes          The number of nodes in the graph.
      * @param maxEdgesPerNode The maximum number of edges each node can have.
@@ -107,20 +547,40 @@ public class BiDiGraph extends DirectedGraph{
      */
     @Override
     public Map<String, List<String>> generateRandomAdjacencyList(int nodes, int maxEdgesPerNode) {
+        return generateRandomAdjacencyList(nodes, maxEdgesPerNode, new Random());
+    }
+
+    /**
+     * Generates a random adjacency list like {@link BiDiGraph#generateRandomAdjacencyList(int, int)}, drawing from
+     * a given source of randomness, so that a seeded source generates the same graph on every run.
+     *
+     * @param nodes           The number of nodes in the graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param random          The source of randomness.
+     * @return A randomly generated adjacency list.
+     */
+    @Override
+    public Map<String, List<String>> generateRandomAdjacencyList(int nodes, int maxEdgesPerNode, Random random) {
         Map<String, List<String>> adjacencyList = new HashMap<>();
 
         for (int i = 0; i < nodes; i++) {
             String node = "Node" + i;
-            int edges = (int) (Math.random() * maxEdgesPerNode) + 1;
+            int edges = (int) (random.nextDouble() * maxEdgesPerNode) + 1;
 
             List<String> neighbors = new ArrayList<>();
             for (int j = 0; j < edges; j++) {
-                int neighborIndex = (int) (Math.random() * nodes);
+                int neighborIndex = (int) (random.nextDouble() * nodes);
                 String neighbor = "Node" + neighborIndex;
+                if (neighbors.contains(neighbor)) {
+                    continue;
+                }
                 neighbors.add(neighbor);
 
                 // Add a backward edge from the neighbor to the current node
-                adjacencyList.computeIfAbsent(neighbor, k -> new ArrayList<>()).add(node);
+                List<String> backward = adjacencyList.computeIfAbsent(neighbor, k -> new ArrayList<>());
+                if (!backward.contains(node)) {
+                    backward.add(node);
+                }
             }
 
             adjacencyList.put(node, neighbors);
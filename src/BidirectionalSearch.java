@@ -2,16 +2,131 @@ import java.util.*;
 
 /**
  * The BidirectionalSearch class provides functionality to perform bidirectional search
- * on a bidirectional graph represented by a {@link BiDiGraph} object.
+ * on a bidirectional graph represented by a {@link BiDiGraph} object, or on any
+ * {@link IntGraph} such as a frozen {@link CsrGraph}.
  */
 
 public class BidirectionalSearch extends BiDiGraph {
 
+    /**
+     * The order in which the forward and reverse sides of a search are expanded.
+     */
+    public enum Strategy {
+
+        /**
+         * Alternates one node forward, then one node backward.
+         */
+        ALTERNATING,
+
+        /**
+         * Expands a whole BFS level at a time, always on the side with the smaller frontier.
+         */
+        SMALLER_FRONTIER,
+
+        /**
+         * Expands a whole BFS level at a time, always on the side whose frontier has the smaller
+         * sum of degrees in its search direction.
+         */
+        SMALLER_DEGREE_SUM,
+
+        /**
+         * Expands a whole BFS level at a time on the side with the smaller frontier, switching each level
+         * between top-down and bottom-up steps as {@link DirectionOptimizingBfs} does. Bottom-up steps on the
+         * forward side scan the reversed edges, so this always runs on the integer-id view of the graph.
+         */
+        DIRECTION_OPTIMIZING
+    }
+
+    /**
+     * A reachability query from a source node to a destination node.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     */
+    public record Pair(String src, String dest) {
+    }
+
+    /**
+     * The number of queries sharing a source or a destination from which {@link BidirectionalSearch#searchAll(Collection)}
+     * may answer them with one shared traversal instead of one bidirectional search each.
+     */
+    static final int SHARED_TRAVERSAL_THRESHOLD = 32;
+
+    /**
+     * The number of ungrouped queries that one task of {@link BidirectionalSearch#searchAll(Collection)} answers.
+     */
+    static final int BATCH_CHUNK_SIZE = 256;
+
     /**
      * The bidirectional graph on which the search will be performed.
      */
     BiDiGraph biDiGraph;
 
+    /**
+     * The integer-id graph on which the search will be performed, or {@code null} when searching {@link BidirectionalSearch#biDiGraph}.
+     */
+    IntGraph intGraph;
+
+    /**
+     * The reusable search state over the searched graph, {@link BidirectionalSearch#intGraph} or
+     * {@link BidirectionalSearch#biDiGraph}, which answers every search, path and distance query alike.
+     * Because it is shared by every query, an instance must not be used from several threads at once.
+     */
+    SearchKernel kernel;
+
+    /**
+     * The number of edges examined by the last search.
+     */
+    long edgesVisited;
+
+    /**
+     * The multi-core search state, created on the first parallel search.
+     */
+    ParallelSearchKernel parallelKernel;
+
+    /**
+     * The search state of every thread that runs batched queries, created on the first batch.
+     */
+    ThreadLocal<SearchKernel> batchKernels;
+
+    /**
+     * The cache in front of {@link BidirectionalSearch#search(String, String, Strategy)} and
+     * {@link BidirectionalSearch#findPath(String, String)}, or {@code null} if results are not cached.
+     */
+    SearchCache cache;
+
+    /**
+     * The reachability index that answers {@link BidirectionalSearch#search(String, String, Strategy)} while it is
+     * current, or {@code null} if searches always traverse the graph.
+     */
+    ReachabilityIndex index;
+
+    /**
+     * The strongly connected components that answer same-component queries of
+     * {@link BidirectionalSearch#search(String, String, Strategy)} while they are current, or {@code null}.
+     */
+    StronglyConnectedComponents components;
+
+    /**
+     * Whether {@link BidirectionalSearch#search(String, String, Strategy)} records {@link SearchStats}.
+     */
+    boolean statsEnabled;
+
+    /**
+     * The listener that receives the statistics of every search, or {@code null} if there is none.
+     */
+    SearchListener listener;
+
+    /**
+     * The statistics of the search in progress, or {@code null} when they are not recorded.
+     */
+    SearchStats stats;
+
+    /**
+     * The statistics of the last recorded search.
+     */
+    SearchStats lastStats;
+
     /**
      * Constructs a BidirectionalSearch instance with the specified bidirectional graph.
      *
@@ -20,6 +135,19 @@ public class BidirectionalSearch extends BiDiGraph {
     public BidirectionalSearch(BiDiGraph biDiGraph) {
         super();
         this.biDiGraph = biDiGraph;
+        this.kernel = new SearchKernel(biDiGraph);
+    }
+
+    /**
+     * Constructs a BidirectionalSearch instance that runs directly on an integer-id graph,
+     * such as a {@link CsrGraph}.
+     *
+     * @param intGraph The graph on which the search will be performed.
+     */
+    public BidirectionalSearch(IntGraph intGraph) {
+        super();
+        this.intGraph = intGraph;
+        this.kernel = new SearchKernel(intGraph);
     }
 
     /**
@@ -30,51 +158,445 @@ public class BidirectionalSearch extends BiDiGraph {
      * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
      */
     public boolean search(String src, String dest) {
-        HashSet<Node> forwardVisited = new HashSet<>();
-        HashSet<Node> reversedVisited = new HashSet<>();
-
-        LinkedList<Node> forwardQueue = new LinkedList<>();
-        LinkedList<Node> reversedQueue = new LinkedList<>();
+        return search(src, dest, Strategy.ALTERNATING);
+    }
 
-        Node srcNode = biDiGraph.getNode(src);
-        Node destNode = biDiGraph.getReverseNode(dest);
+    /**
+     * Performs bidirectional search between two specified nodes with the given expansion strategy.
+     * <p>
+     * The number of edges examined is available from {@link BidirectionalSearch#getEdgesVisited()} afterwards.
+     *
+     * @param src      The starting node of the search.
+     * @param dest     The target node to reach.
+     * @param strategy The order in which the two sides are expanded.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    public boolean search(String src, String dest, Strategy strategy) {
+        if (listener == null && !statsEnabled) {
+            return searchCached(src, dest, strategy);
+        }
 
-        forwardQueue.add(srcNode);
-        reversedQueue.add(destNode);
+        SearchStats stats = new SearchStats(src, dest, strategy);
+        this.stats = stats;
+        kernel.stats = stats;
+        long allocatedBefore = SearchStats.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        boolean found;
+        try {
+            found = searchCached(src, dest, strategy);
+        } finally {
+            this.stats = null;
+            kernel.stats = null;
+        }
+        stats.measured(System.nanoTime() - start, SearchStats.currentThreadAllocatedBytes() - allocatedBefore);
 
-        while (!forwardQueue.isEmpty() && !reversedQueue.isEmpty()) {
-            System.out.println("while ran!");
+        lastStats = stats;
+        if (listener != null) {
+            listener.onSearch(stats);
+        }
+        return found;
+    }
 
-            // Forward search
-            Node currentForward = forwardQueue.poll();
-            forwardVisited.add(currentForward);
+    /**
+     * Performs bidirectional search between two specified nodes with the given expansion strategy,
+     * answering from {@link BidirectionalSearch#cache} when it holds the result.
+     *
+     * @param src      The starting node of the search.
+     * @param dest     The target node to reach.
+     * @param strategy The order in which the two sides are expanded.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    private boolean searchCached(String src, String dest, Strategy strategy) {
+        if (cache == null) {
+            return searchUncached(src, dest, strategy);
+        }
 
-            if (reversedVisited.contains(currentForward)) {
-                return true;  // Intersection found
+        long version = kernel.graph.version();
+        Object cached = cache.get(kernel.graph, src, dest, SearchCache.Kind.SEARCH, version);
+        if (cached != null) {
+            edgesVisited = 0;
+            if (stats != null) {
+                stats.finishCached((Boolean) cached);
             }
+            return (Boolean) cached;
+        }
+        boolean found = searchUncached(src, dest, strategy);
+        cache.put(kernel.graph, src, dest, SearchCache.Kind.SEARCH, version, found);
+        return found;
+    }
 
-            for (Node neighbor : biDiGraph.getNeighbors(currentForward)) {
-                if (!forwardVisited.contains(neighbor)) {
-                    forwardQueue.add(neighbor);
-                }
+    /**
+     * Performs bidirectional search between two specified nodes with the given expansion strategy,
+     * bypassing {@link BidirectionalSearch#cache}.
+     *
+     * @param src      The starting node of the search.
+     * @param dest     The target node to reach.
+     * @param strategy The order in which the two sides are expanded.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    private boolean searchUncached(String src, String dest, Strategy strategy) {
+        if (components != null && components.isCurrent(kernel.graph)) {
+            IntGraph graph = kernel.graph;
+            if (components.sameComponent(graph.idOf(src), graph.idOf(dest))) {
+                edgesVisited = 0;
+                return record(true);
             }
+        }
+
+        if (index != null && index.isCurrent(kernel.graph)) {
+            IntGraph graph = kernel.graph;
+            boolean found = index.isReachable(graph.idOf(src), graph.idOf(dest));
+            edgesVisited = index.getEdgesVisited();
+            return record(found);
+        }
+
+        IntGraph graph = kernel.graph;
+        boolean found = kernel.search(graph.idOf(src), graph.idOf(dest), strategy);
+        edgesVisited = kernel.getEdgesVisited();
+        return found;
+    }
+
+    /**
+     * Records the outcome of a query answered without a search, by the components or the index, into
+     * {@link BidirectionalSearch#stats}, if statistics are being recorded. Searches record their own outcome
+     * through {@link SearchKernel#stats}.
+     *
+     * @param found Whether a path was found.
+     * @return found, so the caller can return it directly.
+     */
+    private boolean record(boolean found) {
+        if (stats != null) {
+            stats.finish(found, 0, 0, edgesVisited);
+        }
+        return found;
+    }
 
-            // Reversed search
-            Node currentReversed = reversedQueue.poll();
-            reversedVisited.add(currentReversed);
+    /**
+     * Performs a multi-core bidirectional search between two specified nodes.
+     * <p>
+     * Each BFS level is split across the common {@link java.util.concurrent.ForkJoinPool}, and the forward
+     * and reverse sides expand at the same time. This pays off for large single queries; the graph must
+     * not be modified while the search runs.
+     *
+     * @param src  The starting node of the search.
+     * @param dest The target node to reach.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     * @see ParallelSearchKernel
+     */
+    public boolean searchParallel(String src, String dest) {
+        if (parallelKernel == null) {
+            parallelKernel = new ParallelSearchKernel(kernel.graph, java.util.concurrent.ForkJoinPool.commonPool());
+        }
+        return parallelKernel.search(kernel.graph.idOf(src), kernel.graph.idOf(dest));
+    }
 
-            if (forwardVisited.contains(currentReversed)) {
-                return true;  // Intersection found
+    /**
+     * Checks many source and destination pairs for reachability at once.
+     * <p>
+     * Queries are grouped by source, or by destination when that group is larger. A group of at least
+     * {@link BidirectionalSearch#SHARED_TRAVERSAL_THRESHOLD} queries runs bidirectional searches until they have
+     * examined as many edges as the graph holds, and then answers the rest with one traversal from the shared
+     * node, forward from a source or backward from a destination, which stops once every target is reached.
+     * The remaining queries run as bidirectional searches in chunks. Groups and chunks run in parallel on the
+     * common {@link java.util.concurrent.ForkJoinPool}, each thread with its own reusable {@link SearchKernel}.
+     * The graph must not be modified while the batch runs.
+     *
+     * @param pairs The queries to answer.
+     * @return For every query, in input order, {@code true} if dest is reachable from src, {@code false} otherwise.
+     */
+    public List<Boolean> searchAll(Collection<Pair> pairs) {
+        IntGraph graph = kernel.graph;
+        int count = pairs.size();
+        int[] srcIds = new int[count];
+        int[] destIds = new int[count];
+        Map<Integer, Integer> sourceCounts = new HashMap<>();
+        Map<Integer, Integer> destCounts = new HashMap<>();
+        int i = 0;
+        for (Pair pair : pairs) {
+            srcIds[i] = graph.idOf(pair.src());
+            destIds[i] = graph.idOf(pair.dest());
+            sourceCounts.merge(srcIds[i], 1, Integer::sum);
+            destCounts.merge(destIds[i], 1, Integer::sum);
+            i++;
+        }
+
+        // Assign every query to the larger of its two groups, or leave it for a single search
+        Map<Integer, List<Integer>> bySource = new HashMap<>();
+        Map<Integer, List<Integer>> byDest = new HashMap<>();
+        List<Integer> singles = new ArrayList<>();
+        for (i = 0; i < count; i++) {
+            if (srcIds[i] == IntGraph.NO_NODE || destIds[i] == IntGraph.NO_NODE) {
+                continue;
+            }
+            int sourceCount = sourceCounts.get(srcIds[i]);
+            int destCount = destCounts.get(destIds[i]);
+            if (Math.max(sourceCount, destCount) < SHARED_TRAVERSAL_THRESHOLD) {
+                singles.add(i);
+            } else if (sourceCount >= destCount) {
+                bySource.computeIfAbsent(srcIds[i], k -> new ArrayList<>()).add(i);
+            } else {
+                byDest.computeIfAbsent(destIds[i], k -> new ArrayList<>()).add(i);
             }
+        }
+
+        List<Batch> batches = new ArrayList<>();
+        bySource.forEach((src, queries) -> batches.add(new Batch(src, true, toArray(queries))));
+        byDest.forEach((dest, queries) -> batches.add(new Batch(dest, false, toArray(queries))));
+        for (int from = 0; from < singles.size(); from += BATCH_CHUNK_SIZE) {
+            List<Integer> chunk = singles.subList(from, Math.min(singles.size(), from + BATCH_CHUNK_SIZE));
+            batches.add(new Batch(IntGraph.NO_NODE, true, toArray(chunk)));
+        }
+
+        if (batchKernels == null) {
+            batchKernels = ThreadLocal.withInitial(() -> new SearchKernel(graph));
+        }
+        boolean[] results = new boolean[count];
+        java.util.concurrent.ForkJoinPool.commonPool().submit(() -> batches.parallelStream()
+                .forEach(batch -> batch.run(batchKernels.get(), srcIds, destIds, results))).join();
+
+        List<Boolean> found = new ArrayList<>(count);
+        for (boolean result : results) {
+            found.add(result);
+        }
+        return found;
+    }
+
+    /**
+     * A group of queries answered by one task of {@link BidirectionalSearch#searchAll(Collection)}.
+     *
+     * @param start   The node shared by the queries, or {@link IntGraph#NO_NODE} to run a bidirectional search per query.
+     * @param forward {@code true} if start is the source of every query, {@code false} if it is the destination.
+     * @param queries The input indices of the queries.
+     */
+    private record Batch(int start, boolean forward, int[] queries) {
 
-            for (Node neighbor : biDiGraph.getReversedNeighbors(currentReversed)) {
-                if (!reversedVisited.contains(neighbor)) {
-                    reversedQueue.add(neighbor);
+        /**
+         * Answers every query of the group.
+         *
+         * @param kernel  The search state of the current thread.
+         * @param srcIds  The source id of every query.
+         * @param destIds The destination id of every query.
+         * @param results Receives the answer of every query, by input index.
+         */
+        void run(SearchKernel kernel, int[] srcIds, int[] destIds, boolean[] results) {
+            if (start == IntGraph.NO_NODE) {
+                for (int query : queries) {
+                    results[query] = kernel.search(srcIds[query], destIds[query]);
                 }
+                return;
+            }
+
+            // Search the queries one by one until they have cost as much as one traversal of the graph,
+            // then answer the rest with a single traversal, so a group never costs more than twice the cheaper option
+            long budget = kernel.graph.edgeCount();
+            int next = 0;
+            for (long spent = 0; next < queries.length && spent < budget; next++) {
+                results[queries[next]] = kernel.search(srcIds[queries[next]], destIds[queries[next]]);
+                spent += kernel.getEdgesVisited();
+            }
+            if (next == queries.length) {
+                return;
+            }
+
+            int[] targets = new int[queries.length - next];
+            for (int i = 0; i < targets.length; i++) {
+                int query = queries[next + i];
+                targets[i] = forward ? destIds[query] : srcIds[query];
+            }
+            boolean[] reached = new boolean[targets.length];
+            kernel.reachAll(start, targets, forward, reached);
+            for (int i = 0; i < targets.length; i++) {
+                results[queries[next + i]] = reached[i];
             }
         }
+    }
+
+    /**
+     * Copies a list of query indices into an array.
+     *
+     * @param queries The query indices.
+     * @return The query indices as an array.
+     */
+    private static int[] toArray(List<Integer> queries) {
+        return queries.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Finds a shortest path between two specified nodes.
+     * <p>
+     * Both sides keep compact parent pointers, and the two halves are stitched together at the node where they meet.
+     *
+     * @param src  The starting node of the search.
+     * @param dest The target node to reach.
+     * @return The nodes on a shortest path from src to dest, both included, or an empty list if there is no path.
+     */
+    public List<Node> findPath(String src, String dest) {
+        if (cache == null) {
+            return findPathUncached(src, dest);
+        }
+
+        long version = kernel.graph.version();
+        Object cached = cache.get(kernel.graph, src, dest, SearchCache.Kind.PATH, version);
+        if (cached != null) {
+            edgesVisited = 0;
+            @SuppressWarnings("unchecked")
+            List<Node> path = (List<Node>) cached;
+            return path;
+        }
+        List<Node> path = Collections.unmodifiableList(findPathUncached(src, dest));
+        cache.put(kernel.graph, src, dest, SearchCache.Kind.PATH, version, path);
+        return path;
+    }
+
+    /**
+     * Finds a shortest path between two specified nodes, bypassing {@link BidirectionalSearch#cache}.
+     *
+     * @param src  The starting node of the search.
+     * @param dest The target node to reach.
+     * @return The nodes on a shortest path from src to dest, both included, or an empty list if there is no path.
+     */
+    private List<Node> findPathUncached(String src, String dest) {
+        IntGraph graph = kernel.graph;
+        int[] path = kernel.findPath(graph.idOf(src), graph.idOf(dest));
+        edgesVisited = kernel.getEdgesVisited();
+        if (path == null) {
+            return Collections.emptyList();
+        }
 
-        return false;  // No intersection found
+        List<Node> nodes = new ArrayList<>(path.length);
+        for (int id : path) {
+            nodes.add(graph.nodeOf(id));
+        }
+        return nodes;
+    }
+
+    /**
+     * Puts a result cache in front of {@link BidirectionalSearch#search(String, String, Strategy)} and
+     * {@link BidirectionalSearch#findPath(String, String)}.
+     * <p>
+     * Cached results are tagged with {@link IntGraph#version()}, so they are dropped as soon as the
+     * searched graph is modified through its mutation methods. A {@link CsrGraph} never changes.
+     * With a cache, {@link BidirectionalSearch#findPath(String, String)} returns unmodifiable lists. A cache only
+     * serves one graph, so searches may share it only if they search the same graph.
+     *
+     * @param cache The cache to use, or {@code null} to stop caching.
+     * @throws IllegalArgumentException If the cache already serves another graph.
+     */
+    public void setCache(SearchCache cache) {
+        if (cache != null) {
+            cache.bind(kernel.graph);
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the result cache in use.
+     *
+     * @return The cache, or {@code null} if results are not cached.
+     */
+    public SearchCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Puts a reachability index in front of {@link BidirectionalSearch#search(String, String, Strategy)}.
+     * <p>
+     * The index must have been built from the searched graph: the {@link BiDiGraph} or {@link IntGraph} this search
+     * was constructed with. It is only used while the graph's {@link IntGraph#version()} is the one it was
+     * built at; after the graph is modified, searches traverse the graph again until a new index is set.
+     *
+     * @param index The index to use, or {@code null} to always traverse the graph.
+     */
+    public void setIndex(ReachabilityIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Puts strongly connected components in front of {@link BidirectionalSearch#search(String, String, Strategy)},
+     * so that a query between two nodes of the same component is answered without a search.
+     * <p>
+     * Like an index, the components must have been computed for the searched graph and are only used until it is
+     * modified. Queries between different components still run the index or a search.
+     *
+     * @param components The components to use, or {@code null} to search every query.
+     * @see BidirectionalSearch#setIndex(ReachabilityIndex)
+     */
+    public void setComponents(StronglyConnectedComponents components) {
+        this.components = components;
+    }
+
+    /**
+     * Turns recording of {@link SearchStats} for every {@link BidirectionalSearch#search(String, String, Strategy)}
+     * on or off. Recording is off by default, and while it is off and no listener is set, searches do no extra work.
+     *
+     * @param statsEnabled {@code true} to record statistics, {@code false} to stop.
+     * @see BidirectionalSearch#getLastStats()
+     */
+    public void setStatsEnabled(boolean statsEnabled) {
+        this.statsEnabled = statsEnabled;
+    }
+
+    /**
+     * Returns the statistics of the last search run while recording was on or a listener was set.
+     *
+     * @return The statistics, or {@code null} if no search has been recorded.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    /**
+     * Sets a listener that receives the {@link SearchStats} of every {@link BidirectionalSearch#search(String, String, Strategy)}.
+     * Statistics are recorded while a listener is set, whether or not {@link BidirectionalSearch#setStatsEnabled(boolean)} is on.
+     *
+     * @param listener The listener, or {@code null} to remove it.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the length of a shortest path between two specified nodes.
+     *
+     * @param src  The starting node of the search.
+     * @param dest The target node to reach.
+     * @return The number of edges on a shortest path from src to dest, or {@code -1} if there is no path.
+     */
+    public int distance(String src, String dest) {
+        IntGraph graph = kernel.graph;
+        int distance = kernel.distance(graph.idOf(src), graph.idOf(dest));
+        edgesVisited = kernel.getEdgesVisited();
+        return distance;
+    }
+
+    /**
+     * Checks whether there is a path of at most a given number of edges between two specified nodes.
+     * <p>
+     * The hop budget is split between the two sides of a level-synchronous search, so a miss stops after
+     * exploring the few levels around src and dest instead of everything src reaches. The result depends on the
+     * budget, so it bypasses the {@link SearchCache}, the {@link ReachabilityIndex} and the component shortcut.
+     *
+     * @param src     The starting node of the search.
+     * @param dest    The target node to reach.
+     * @param maxHops The largest number of edges the path may have.
+     * @return {@code true} if dest is within maxHops edges of src, {@code false} otherwise.
+     * @throws IllegalArgumentException If maxHops is negative.
+     * @see SearchKernel#searchWithin(int, int, int)
+     */
+    public boolean searchWithin(String src, String dest, int maxHops) {
+        IntGraph graph = kernel.graph;
+        boolean found = kernel.searchWithin(graph.idOf(src), graph.idOf(dest), maxHops);
+        edgesVisited = kernel.getEdgesVisited();
+        return found;
+    }
+
+    /**
+     * Returns the number of edges examined by the last search.
+     *
+     * @return The number of edges examined.
+     */
+    public long getEdgesVisited() {
+        return edgesVisited;
     }
 
     /**
@@ -84,7 +606,7 @@ public class BidirectionalSearch extends BiDiGraph {
      */
     @Override
     public String toString() {
-        return biDiGraph.toString(); // Assuming you want to print the forward graph
+        return kernel.graph.toString();
     }
 
     /**
@@ -107,5 +629,48 @@ public class BidirectionalSearch extends BiDiGraph {
         boolean canSearchAE = smallGraphSearch.search("A", "E");
         System.out.println(smallGraphSearch);
         System.out.println(canSearchAE);
+
+        System.out.println(smallGraphSearch.findPath("A", "E"));
+
+        BidirectionalSearch csrGraphSearch = new BidirectionalSearch(CsrGraph.freeze(smallGraph));
+        System.out.println(csrGraphSearch.search("A", "E"));
+        System.out.println(csrGraphSearch.distance("A", "E"));
+
+        // Misses, empty searches and removed nodes must answer false instead of failing
+        BiDiGraph chain = new BiDiGraph();
+        chain.addEdge("A", "B");
+        chain.addEdge("B", "C");
+        chain.addNode("F");
+        BidirectionalSearch chainSearch = new BidirectionalSearch(chain);
+        for (Strategy strategy : Strategy.values()) {
+            for (String src : List.of("A", "B", "C", "F", "Z")) {
+                for (String dest : List.of("A", "B", "C", "F", "Z")) {
+                    expect(chainSearch.search(src, dest, strategy), !chainSearch.findPath(src, dest).isEmpty(),
+                            src + " -> " + dest + " against findPath, " + strategy);
+                }
+            }
+            expect(chainSearch.search("A", "C", strategy), true, "A -> C, " + strategy);
+            expect(chainSearch.search("C", "A", strategy), false, "C -> A, " + strategy);
+            expect(chainSearch.search("A", "A", strategy), true, "A -> A, " + strategy);
+            expect(chainSearch.search("F", "A", strategy), false, "F -> A, " + strategy);
+            expect(chainSearch.search("A", "Z", strategy), false, "A -> Z, " + strategy);
+        }
+        chain.removeNode("B");
+        expect(chainSearch.search("A", "C"), false, "A -> C after removing B");
+        System.out.println("Regression queries passed");
+    }
+
+    /**
+     * Checks the answer of a demonstration query.
+     *
+     * @param actual   The answer of the search.
+     * @param expected The correct answer.
+     * @param query    A description of the query.
+     * @throws IllegalStateException If the answer is wrong.
+     */
+    private static void expect(boolean actual, boolean expected, String query) {
+        if (actual != expected) {
+            throw new IllegalStateException("Wrong answer for " + query + ": " + actual);
+        }
     }
 }
@@ -0,0 +1,320 @@
+import java.util.*;
+
+/**
+ * An immutable graph whose neighbor lists are sorted, gap-encoded and packed as variable-length integers, in the
+ * style of WebGraph.
+ * <p>
+ * Every list, forward and reverse, is stored in a byte array starting at its node's byte offset: first the degree,
+ * then the first neighbor as a zigzag-encoded difference from the node's own id, then the gap from each neighbor
+ * to the next. Every number is a varint of seven bits per byte, with the high bit marking that another byte
+ * follows, so the gaps between nearby ids take one byte each. Neighbors are decoded on the fly by a reusable
+ * {@link NeighborCursor} without allocating, so a {@link SearchKernel} or {@link BidirectionalSearch} runs on a
+ * compressed graph unchanged.
+ * <p>
+ * How small the lists get depends on the ids: compressing with a {@link NodeOrdering} first gives neighbors
+ * nearby ids, and the graph keeps the reordered ids.
+ */
+
+public class CompressedGraph implements IntGraph {
+
+    /**
+     * The encoded forward and reverse lists.
+     */
+    final byte[] forward;
+    final byte[] reverse;
+
+    /**
+     * The byte offset of every node's forward and reverse list, with one extra trailing entry.
+     */
+    final int[] forwardOffsets;
+    final int[] reverseOffsets;
+
+    private final long edges;
+
+    /**
+     * The value of every node, indexed by id.
+     */
+    private final String[] values;
+
+    /**
+     * The id of every node, keyed by value.
+     */
+    private final Map<String, Integer> ids;
+
+    /**
+     * Constructs a compressed graph from its encoded lists.
+     *
+     * @param forward        The encoded forward lists.
+     * @param forwardOffsets The byte offset of every forward list.
+     * @param reverse        The encoded reverse lists.
+     * @param reverseOffsets The byte offset of every reverse list.
+     * @param edges          The number of edges.
+     * @param values         The value of every node, indexed by id.
+     * @param ids            The id of every node, keyed by value.
+     */
+    private CompressedGraph(byte[] forward, int[] forwardOffsets, byte[] reverse, int[] reverseOffsets, long edges,
+                            String[] values, Map<String, Integer> ids) {
+        this.forward = forward;
+        this.forwardOffsets = forwardOffsets;
+        this.reverse = reverse;
+        this.reverseOffsets = reverseOffsets;
+        this.edges = edges;
+        this.values = values;
+        this.ids = ids;
+    }
+
+    /**
+     * Compresses a graph, keeping its ids.
+     *
+     * @param graph The graph to compress; use {@link CsrGraph#freeze(DirectedGraph)} for a plain
+     *              {@link DirectedGraph}.
+     * @return The compressed copy.
+     */
+    public static CompressedGraph compress(IntGraph graph) {
+        int[] rank = new int[graph.nodeCount()];
+        for (int id = 0; id < rank.length; id++) {
+            rank[id] = id;
+        }
+        return compress(graph, rank);
+    }
+
+    /**
+     * Compresses a graph under new ids.
+     *
+     * @param graph The graph to compress; use {@link CsrGraph#freeze(DirectedGraph)} for a plain
+     *              {@link DirectedGraph}.
+     * @param rank  The new id of every node, a permutation such as one returned by {@link NodeOrdering}.
+     * @return The compressed copy, whose node with id {@code rank[id]} is the graph's node with id {@code id}.
+     * @throws IllegalArgumentException If rank is not a permutation of the graph's ids.
+     */
+    public static CompressedGraph compress(IntGraph graph, int[] rank) {
+        int nodes = graph.nodeCount();
+        int[] old = NodeOrdering.inverse(rank, nodes);
+
+        String[] values = new String[nodes];
+        Map<String, Integer> ids = new HashMap<>(nodes * 2);
+        for (int id = 0; id < nodes; id++) {
+            values[id] = graph.valueOf(old[id]);
+            ids.put(values[id], id);
+        }
+
+        int[] forwardOffsets = new int[nodes + 1];
+        int[] reverseOffsets = new int[nodes + 1];
+        byte[] forward = encode(graph.forwardCursor(), old, rank, forwardOffsets);
+        byte[] reverse = encode(graph.reverseCursor(), old, rank, reverseOffsets);
+        return new CompressedGraph(forward, forwardOffsets, reverse, reverseOffsets, graph.edgeCount(), values, ids);
+    }
+
+    /**
+     * Encodes the lists of one direction under new ids.
+     *
+     * @param cursor  A cursor over the lists of that direction, in old ids.
+     * @param old     The old id of every new id.
+     * @param rank    The new id of every old id.
+     * @param offsets Receives the byte offset of every new id's list.
+     * @return The encoded lists.
+     */
+    private static byte[] encode(IntGraph.NeighborCursor cursor, int[] old, int[] rank, int[] offsets) {
+        byte[] bytes = new byte[Math.max(16, old.length * 2)];
+        int size = 0;
+        int[] list = new int[16];
+        for (int id = 0; id < old.length; id++) {
+            int degree = 0;
+            cursor.reset(old[id]);
+            for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+                if (degree == list.length) {
+                    list = Arrays.copyOf(list, degree * 2);
+                }
+                list[degree++] = rank[neighbor];
+            }
+            Arrays.sort(list, 0, degree);
+
+            // A varint takes at most five bytes
+            if (bytes.length - size < 5L * (degree + 1)) {
+                long needed = Math.max(bytes.length * 2L, size + 5L * (degree + 1));
+                if (needed > Integer.MAX_VALUE - 8) {
+                    throw new IllegalArgumentException("Graph too large to compress into one array");
+                }
+                bytes = Arrays.copyOf(bytes, (int) needed);
+            }
+            offsets[id] = size;
+            size = writeVarint(bytes, size, degree);
+            int previous = id;
+            for (int i = 0; i < degree; i++) {
+                int value = i == 0 ? zigzag(list[i] - previous) : list[i] - previous;
+                size = writeVarint(bytes, size, value);
+                previous = list[i];
+            }
+        }
+        offsets[old.length] = size;
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Writes a non-negative number as a varint.
+     *
+     * @param bytes    The buffer.
+     * @param position The position to write at.
+     * @param value    The number, read as unsigned.
+     * @return The position just past the varint.
+     */
+    private static int writeVarint(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Maps a signed difference to a non-negative number with a small value for a small magnitude.
+     *
+     * @param value The difference.
+     * @return {@code 2 * value} for non-negative values, {@code -2 * value - 1} for negative ones.
+     */
+    private static int zigzag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    /**
+     * Reads the varint at a position.
+     *
+     * @param bytes    The encoded lists.
+     * @param position The position of the varint.
+     * @return The number.
+     */
+    private static int readVarint(byte[] bytes, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public int nodeCount() {
+        return values.length;
+    }
+
+    @Override
+    public long edgeCount() {
+        return edges;
+    }
+
+    @Override
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        return id == null ? NO_NODE : id;
+    }
+
+    @Override
+    public String valueOf(int id) {
+        return values[id];
+    }
+
+    @Override
+    public int outDegree(int id) {
+        return readVarint(forward, forwardOffsets[id]);
+    }
+
+    @Override
+    public int inDegree(int id) {
+        return readVarint(reverse, reverseOffsets[id]);
+    }
+
+    @Override
+    public NeighborCursor forwardCursor() {
+        return new Cursor(forward, forwardOffsets);
+    }
+
+    @Override
+    public NeighborCursor reverseCursor() {
+        return new Cursor(reverse, reverseOffsets);
+    }
+
+    /**
+     * Returns the number of bytes held by the encoded lists and their offsets, in both directions.
+     *
+     * @return The size of the adjacency in bytes.
+     */
+    public long adjacencyBytes() {
+        return forward.length + reverse.length + 4L * (forwardOffsets.length + reverseOffsets.length);
+    }
+
+    /**
+     * Returns the average size of an encoded forward list entry, degrees included, offsets excluded.
+     *
+     * @return The number of bits per edge of the forward lists.
+     */
+    public double bitsPerEdge() {
+        return edges == 0 ? 0 : 8.0 * forward.length / edges;
+    }
+
+    /**
+     * A cursor that decodes one list as it goes.
+     */
+    private static final class Cursor implements NeighborCursor {
+
+        private final byte[] bytes;
+        private final int[] offsets;
+        private int position;
+        private int remaining;
+        private int previous;
+        private boolean first;
+
+        /**
+         * Constructs a cursor over the lists of one direction.
+         *
+         * @param bytes   The encoded lists.
+         * @param offsets The byte offset of every list.
+         */
+        Cursor(byte[] bytes, int[] offsets) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public void reset(int id) {
+            position = offsets[id];
+            remaining = read();
+            previous = id;
+            first = true;
+        }
+
+        @Override
+        public int next() {
+            if (remaining == 0) {
+                return NO_NODE;
+            }
+            remaining--;
+            int value = read();
+            if (first) {
+                first = false;
+                previous += value >>> 1 ^ -(value & 1);
+            } else {
+                previous += value;
+            }
+            return previous;
+        }
+
+        /**
+         * Reads the varint at the cursor's position and moves past it.
+         *
+         * @return The number.
+         */
+        private int read() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
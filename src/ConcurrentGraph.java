@@ -0,0 +1,562 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bidirectional graph that can be searched while edges are being added, without blocking readers.
+ * <p>
+ * Every update builds a new immutable {@link Snapshot} and publishes it through a volatile field. Neighbor
+ * rows are immutable {@code int[]} arrays grouped into chunks of {@link ConcurrentGraph#CHUNK_SIZE} nodes; an
+ * update copies only the rows it changes, the chunks holding them and the chunk directory, and shares
+ * everything else with the previous snapshot. Writers take a lock; readers only read the current snapshot,
+ * so they never block, and a search that runs on one snapshot sees a consistent graph however many updates
+ * are published meanwhile.
+ */
+
+public class ConcurrentGraph {
+
+    /**
+     * The number of neighbor rows per chunk, as a power of two.
+     */
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int[] NO_NEIGHBORS = new int[0];
+
+    /**
+     * The id of every node, keyed by value. An id only belongs to a snapshot if it is below its node count.
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * The value of every node, in chunks indexed by id. Slots are only written before the snapshot that
+     * first contains them is published, so a reader never sees a slot change.
+     */
+    private String[][] values = new String[0][];
+
+    /**
+     * The latest published snapshot.
+     */
+    private volatile Snapshot snapshot = new Snapshot(0, 0, new int[0][][], new int[0][][], values);
+
+    /**
+     * The search state of every thread that searches this graph.
+     */
+    private final ThreadLocal<Reader> readers = ThreadLocal.withInitial(Reader::new);
+
+    /**
+     * Returns the latest published snapshot. It never changes, so it can be searched with
+     * {@link SearchKernel} or {@link BidirectionalSearch} while updates continue.
+     *
+     * @return The current snapshot.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Adds a node to the graph.
+     *
+     * @param value The value of the node to add.
+     */
+    public synchronized void addNode(String value) {
+        Draft draft = new Draft(snapshot);
+        draft.intern(value);
+        snapshot = draft.publish();
+    }
+
+    /**
+     * Adds a directed edge between two nodes, adding the nodes if they are not present yet.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the destination node.
+     */
+    public synchronized void addEdge(String src, String dest) {
+        Draft draft = new Draft(snapshot);
+        draft.addEdge(draft.intern(src), draft.intern(dest));
+        snapshot = draft.publish();
+    }
+
+    /**
+     * Adds every edge of an adjacency list and publishes them together as one snapshot, which is much cheaper
+     * than adding them one by one.
+     *
+     * @param stringAdjList The edges to add, keyed by source value.
+     */
+    public synchronized void addEdges(Map<String, List<String>> stringAdjList) {
+        Draft draft = new Draft(snapshot);
+        for (Map.Entry<String, List<String>> entry : stringAdjList.entrySet()) {
+            int src = draft.intern(entry.getKey());
+            for (String dest : entry.getValue()) {
+                draft.addEdge(src, draft.intern(dest));
+            }
+        }
+        snapshot = draft.publish();
+    }
+
+    /**
+     * Removes a directed edge between two nodes.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the destination node.
+     * @return {@code true} if the edge was present, {@code false} otherwise.
+     */
+    public synchronized boolean removeEdge(String src, String dest) {
+        Integer srcId = ids.get(src);
+        Integer destId = ids.get(dest);
+        if (srcId == null || destId == null) {
+            return false;
+        }
+        Draft draft = new Draft(snapshot);
+        if (!draft.removeEdge(srcId, destId)) {
+            return false;
+        }
+        snapshot = draft.publish();
+        return true;
+    }
+
+    /**
+     * Performs a bidirectional search on the current snapshot, with reusable per-thread search state.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return {@code true} if the snapshot has a path from src to dest, {@code false} otherwise.
+     */
+    public boolean search(String src, String dest) {
+        Reader reader = readers.get();
+        Snapshot pinned = reader.view.pin(snapshot);
+        return reader.kernel.search(pinned.idOf(src), pinned.idOf(dest));
+    }
+
+    /**
+     * Finds a shortest path on the current snapshot, with reusable per-thread search state.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return The nodes on a shortest path from src to dest, both included, or an empty list if there is no path.
+     */
+    public List<Node> findPath(String src, String dest) {
+        Reader reader = readers.get();
+        Snapshot pinned = reader.view.pin(snapshot);
+        int[] path = reader.kernel.findPath(pinned.idOf(src), pinned.idOf(dest));
+        if (path == null) {
+            return Collections.emptyList();
+        }
+
+        List<Node> nodes = new ArrayList<>(path.length);
+        for (int id : path) {
+            nodes.add(pinned.nodeOf(id));
+        }
+        return nodes;
+    }
+
+    /**
+     * An immutable version of the graph.
+     */
+    public final class Snapshot implements IntGraph {
+
+        private final int nodeCount;
+        private final long edgeCount;
+        private final int[][][] forward;
+        private final int[][][] reverse;
+        private final String[][] values;
+
+        /**
+         * Constructs a snapshot over the given chunks, which must not be modified afterwards.
+         *
+         * @param nodeCount The number of nodes.
+         * @param edgeCount The number of edges.
+         * @param forward   The outgoing neighbor rows, in chunks.
+         * @param reverse   The incoming neighbor rows, in chunks.
+         * @param values    The node values, in chunks.
+         */
+        Snapshot(int nodeCount, long edgeCount, int[][][] forward, int[][][] reverse, String[][] values) {
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            this.forward = forward;
+            this.reverse = reverse;
+            this.values = values;
+        }
+
+        @Override
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        @Override
+        public long edgeCount() {
+            return edgeCount;
+        }
+
+        @Override
+        public int idOf(String value) {
+            Integer id = ids.get(value);
+            return id == null || id >= nodeCount ? NO_NODE : id;
+        }
+
+        @Override
+        public String valueOf(int id) {
+            return values[id >>> CHUNK_SHIFT][id & CHUNK_MASK];
+        }
+
+        @Override
+        public int outDegree(int id) {
+            return row(forward, id).length;
+        }
+
+        @Override
+        public int inDegree(int id) {
+            return row(reverse, id).length;
+        }
+
+        @Override
+        public NeighborCursor forwardCursor() {
+            return new Cursor(forward);
+        }
+
+        @Override
+        public NeighborCursor reverseCursor() {
+            return new Cursor(reverse);
+        }
+
+        /**
+         * Checks that the reverse rows hold exactly the reversed edges of the forward rows.
+         *
+         * @return {@code true} if both directions describe the same edges, {@code false} otherwise.
+         */
+        public boolean isConsistent() {
+            long forwardEdges = 0;
+            long reverseEdges = 0;
+            for (int id = 0; id < nodeCount; id++) {
+                forwardEdges += row(forward, id).length;
+                reverseEdges += row(reverse, id).length;
+                for (int neighbor : row(forward, id)) {
+                    if (!contains(row(reverse, neighbor), id)) {
+                        return false;
+                    }
+                }
+            }
+            return forwardEdges == edgeCount && reverseEdges == edgeCount;
+        }
+    }
+
+    /**
+     * Returns the neighbor row of a node.
+     *
+     * @param chunks The rows of one direction, in chunks.
+     * @param id     The id of the node.
+     * @return The neighbor ids of the node.
+     */
+    private static int[] row(int[][][] chunks, int id) {
+        return chunks[id >>> CHUNK_SHIFT][id & CHUNK_MASK];
+    }
+
+    /**
+     * Checks whether a neighbor row contains a node.
+     *
+     * @param row The neighbor ids.
+     * @param id  The id of the node.
+     * @return {@code true} if the row contains the node, {@code false} otherwise.
+     */
+    private static boolean contains(int[] row, int id) {
+        for (int neighbor : row) {
+            if (neighbor == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A cursor over one neighbor row of a snapshot.
+     */
+    private static final class Cursor implements IntGraph.NeighborCursor {
+
+        private final int[][][] chunks;
+        private int[] row = NO_NEIGHBORS;
+        private int position;
+
+        /**
+         * Constructs a cursor over the rows of one direction.
+         *
+         * @param chunks The rows, in chunks.
+         */
+        Cursor(int[][][] chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void reset(int id) {
+            row = row(chunks, id);
+            position = 0;
+        }
+
+        @Override
+        public int next() {
+            return position < row.length ? row[position++] : IntGraph.NO_NODE;
+        }
+    }
+
+    /**
+     * The next snapshot under construction by a writer.
+     * <p>
+     * The chunk directories are copied once, and a chunk is copied the first time one of its rows changes.
+     * Rows are never modified in place, since older snapshots may share them.
+     */
+    private final class Draft {
+
+        private int nodeCount;
+        private long edgeCount;
+        private int[][][] forward;
+        private int[][][] reverse;
+        private final BitSet forwardCopied = new BitSet();
+        private final BitSet reverseCopied = new BitSet();
+
+        /**
+         * Starts a draft from a published snapshot.
+         *
+         * @param base The snapshot to start from.
+         */
+        Draft(Snapshot base) {
+            this.nodeCount = base.nodeCount;
+            this.edgeCount = base.edgeCount;
+            this.forward = base.forward.clone();
+            this.reverse = base.reverse.clone();
+        }
+
+        /**
+         * Returns the id of a value, assigning the next free id if it has none yet.
+         *
+         * @param value The value of the node.
+         * @return The id of the node.
+         */
+        int intern(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+
+            int newId = nodeCount++;
+            int chunk = newId >>> CHUNK_SHIFT;
+            if (chunk == forward.length) {
+                forward = Arrays.copyOf(forward, chunk + 1);
+                reverse = Arrays.copyOf(reverse, chunk + 1);
+                forward[chunk] = newChunk();
+                reverse[chunk] = newChunk();
+                forwardCopied.set(chunk);
+                reverseCopied.set(chunk);
+            }
+            if (chunk == values.length) {
+                values = Arrays.copyOf(values, chunk + 1);
+                values[chunk] = new String[CHUNK_SIZE];
+            }
+            values[chunk][newId & CHUNK_MASK] = value;
+            ids.put(value, newId);
+            return newId;
+        }
+
+        /**
+         * Adds an edge unless it is already present.
+         *
+         * @param src  The id of the source node.
+         * @param dest The id of the destination node.
+         */
+        void addEdge(int src, int dest) {
+            int[] targets = row(forward, src);
+            if (contains(targets, dest)) {
+                return;
+            }
+            setRow(true, src, append(targets, dest));
+            setRow(false, dest, append(row(reverse, dest), src));
+            edgeCount++;
+        }
+
+        /**
+         * Removes an edge.
+         *
+         * @param src  The id of the source node.
+         * @param dest The id of the destination node.
+         * @return {@code true} if the edge was present, {@code false} otherwise.
+         */
+        boolean removeEdge(int src, int dest) {
+            int[] targets = row(forward, src);
+            if (!contains(targets, dest)) {
+                return false;
+            }
+            setRow(true, src, without(targets, dest));
+            setRow(false, dest, without(row(reverse, dest), src));
+            edgeCount--;
+            return true;
+        }
+
+        /**
+         * Replaces the neighbor row of a node, copying its chunk first if this draft still shares it.
+         *
+         * @param isForward {@code true} for the outgoing row, {@code false} for the incoming row.
+         * @param id        The id of the node.
+         * @param row       The new neighbor ids.
+         */
+        private void setRow(boolean isForward, int id, int[] row) {
+            int[][][] chunks = isForward ? forward : reverse;
+            BitSet copied = isForward ? forwardCopied : reverseCopied;
+            int chunk = id >>> CHUNK_SHIFT;
+            if (!copied.get(chunk)) {
+                chunks[chunk] = chunks[chunk].clone();
+                copied.set(chunk);
+            }
+            chunks[chunk][id & CHUNK_MASK] = row;
+        }
+
+        /**
+         * Publishes the draft as a new snapshot. The draft must not be used afterwards.
+         *
+         * @return The new snapshot.
+         */
+        Snapshot publish() {
+            return new Snapshot(nodeCount, edgeCount, forward, reverse, values);
+        }
+    }
+
+    /**
+     * Creates a chunk whose rows are all empty.
+     *
+     * @return The new chunk.
+     */
+    private static int[][] newChunk() {
+        int[][] chunk = new int[CHUNK_SIZE][];
+        Arrays.fill(chunk, NO_NEIGHBORS);
+        return chunk;
+    }
+
+    /**
+     * Copies a neighbor row with one more neighbor at the end.
+     *
+     * @param row The neighbor ids.
+     * @param id  The neighbor to append.
+     * @return The new row.
+     */
+    private static int[] append(int[] row, int id) {
+        int[] copy = Arrays.copyOf(row, row.length + 1);
+        copy[row.length] = id;
+        return copy;
+    }
+
+    /**
+     * Copies a neighbor row without the first occurrence of a neighbor, which must be present.
+     *
+     * @param row The neighbor ids.
+     * @param id  The neighbor to remove.
+     * @return The new row.
+     */
+    private static int[] without(int[] row, int id) {
+        int[] copy = new int[row.length - 1];
+        int position = 0;
+        boolean removed = false;
+        for (int neighbor : row) {
+            if (neighbor == id && !removed) {
+                removed = true;
+            } else {
+                copy[position++] = neighbor;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * The per-thread search state: a kernel bound to a view that is pinned to one snapshot per query.
+     */
+    private static final class Reader {
+        final SnapshotView view = new SnapshotView();
+        final SearchKernel kernel = new SearchKernel(view);
+    }
+
+    /**
+     * An {@link IntGraph} that forwards to whichever snapshot is pinned, so one {@link SearchKernel}
+     * can be reused across snapshots.
+     */
+    private static final class SnapshotView implements IntGraph {
+
+        private Snapshot pinned;
+
+        /**
+         * Pins a snapshot for the next query.
+         *
+         * @param snapshot The snapshot to search.
+         * @return The pinned snapshot.
+         */
+        Snapshot pin(Snapshot snapshot) {
+            pinned = snapshot;
+            return snapshot;
+        }
+
+        @Override
+        public int nodeCount() {
+            return pinned == null ? 0 : pinned.nodeCount();
+        }
+
+        @Override
+        public long edgeCount() {
+            return pinned == null ? 0 : pinned.edgeCount();
+        }
+
+        @Override
+        public int idOf(String value) {
+            return pinned == null ? NO_NODE : pinned.idOf(value);
+        }
+
+        @Override
+        public String valueOf(int id) {
+            return pinned.valueOf(id);
+        }
+
+        @Override
+        public int outDegree(int id) {
+            return pinned.outDegree(id);
+        }
+
+        @Override
+        public int inDegree(int id) {
+            return pinned.inDegree(id);
+        }
+
+        @Override
+        public NeighborCursor forwardCursor() {
+            return new ViewCursor(true);
+        }
+
+        @Override
+        public NeighborCursor reverseCursor() {
+            return new ViewCursor(false);
+        }
+
+        /**
+         * A cursor that reads the rows of the snapshot pinned when it is reset.
+         */
+        private final class ViewCursor implements NeighborCursor {
+
+            private final boolean isForward;
+            private int[] row = NO_NEIGHBORS;
+            private int position;
+
+            /**
+             * Constructs a cursor over one direction of the pinned snapshot.
+             *
+             * @param isForward {@code true} for outgoing neighbors, {@code false} for incoming ones.
+             */
+            ViewCursor(boolean isForward) {
+                this.isForward = isForward;
+            }
+
+            @Override
+            public void reset(int id) {
+                row = row(isForward ? pinned.forward : pinned.reverse, id);
+                position = 0;
+            }
+
+            @Override
+            public int next() {
+                return position < row.length ? row[position++] : NO_NODE;
+            }
+        }
+    }
+}
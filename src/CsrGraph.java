@@ -0,0 +1,300 @@
+import java.util.*;
+
+/**
+ * An immutable graph stored in compressed sparse row (CSR) form.
+ * <p>
+ * The outgoing neighbors of node {@code u} are {@code targets[offsets[u]]} up to
+ * {@code targets[offsets[u + 1] - 1]}, so every edge costs one {@code int} instead of a
+ * {@link Node} reference inside an {@link ArrayList} inside a {@link HashMap} entry.
+ * The reverse graph is stored the same way as a second CSR, the transpose of the first one.
+ * Node values are kept in a string-to-id dictionary.
+ */
+
+public class CsrGraph implements IntGraph {
+
+    /**
+     * Start of each node's outgoing neighbors in {@link CsrGraph#targets}, with one extra trailing entry.
+     */
+    final int[] offsets;
+
+    /**
+     * The outgoing neighbor ids of all nodes, grouped by source node.
+     */
+    final int[] targets;
+
+    /**
+     * Start of each node's incoming neighbors in {@link CsrGraph#reverseTargets}, with one extra trailing entry.
+     */
+    final int[] reverseOffsets;
+
+    /**
+     * The incoming neighbor ids of all nodes, grouped by destination node.
+     */
+    final int[] reverseTargets;
+
+    /**
+     * The value of every node, indexed by id.
+     */
+    final String[] values;
+
+    /**
+     * The id of every node, keyed by value.
+     */
+    final Map<String, Integer> ids;
+
+    /**
+     * Constructs a CSR graph from its forward arrays, computing the reverse CSR as their transpose.
+     *
+     * @param offsets The forward offsets, of length {@code values.length + 1}.
+     * @param targets The forward neighbor ids.
+     * @param values  The value of every node, indexed by id.
+     * @param ids     The id of every node, keyed by value.
+     */
+    CsrGraph(int[] offsets, int[] targets, String[] values, Map<String, Integer> ids) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.values = values;
+        this.ids = ids;
+
+        int nodes = values.length;
+        this.reverseOffsets = new int[nodes + 1];
+        this.reverseTargets = new int[targets.length];
+        transpose(offsets, targets, reverseOffsets, reverseTargets);
+    }
+
+    /**
+     * Freezes a directed graph into an immutable CSR graph.
+     * <p>
+     * Ids are assigned in {@link DirectedGraph#adjList} iteration order, including nodes that only
+     * appear as neighbors. For a {@link BiDiGraph}, the reverse CSR is derived from the forward edges,
+     * so it always matches them even if {@link BiDiGraph#reverseAdjList} has not been rebuilt.
+     *
+     * @param graph The graph to freeze.
+     * @return A CSR copy of the graph.
+     */
+    public static CsrGraph freeze(DirectedGraph graph) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        long edges = 0;
+
+        // Assign an id to every source and neighbor
+        for (Map.Entry<Node, List<Node>> entry : graph.adjList.entrySet()) {
+            assignId(entry.getKey().value(), ids, values);
+            for (Node neighbor : entry.getValue()) {
+                assignId(neighbor.value(), ids, values);
+            }
+            edges += entry.getValue().size();
+        }
+        if (edges > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many edges for a CSR graph: " + edges);
+        }
+
+        int nodes = values.size();
+        int[] offsets = new int[nodes + 1];
+        for (Map.Entry<Node, List<Node>> entry : graph.adjList.entrySet()) {
+            offsets[ids.get(entry.getKey().value()) + 1] = entry.getValue().size();
+        }
+        for (int i = 0; i < nodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] targets = new int[(int) edges];
+        for (Map.Entry<Node, List<Node>> entry : graph.adjList.entrySet()) {
+            int position = offsets[ids.get(entry.getKey().value())];
+            for (Node neighbor : entry.getValue()) {
+                targets[position++] = ids.get(neighbor.value());
+            }
+        }
+
+        return new CsrGraph(offsets, targets, values.toArray(new String[0]), ids);
+    }
+
+    /**
+     * Copies a graph under new ids, so that the nodes a traversal visits together sit together in memory.
+     * <p>
+     * Every neighbor list is rewritten in new ids and sorted, so a cursor walks the rows, visited marks and queue
+     * entries of neighbors in ascending address order. Values keep following their nodes: {@link CsrGraph#idOf}
+     * returns the new id of a value, and {@link CsrGraph#nodeOf} still returns the same {@link Node}. A
+     * {@link BiDiGraph} can be relabeled directly; ids it no longer maps a value to stay isolated and unnamed.
+     *
+     * @param graph The graph to relabel.
+     * @param rank  The new id of every node, a permutation such as one returned by {@link NodeOrdering}.
+     * @return The relabeled copy, whose node with id {@code rank[id]} is the graph's node with id {@code id}.
+     * @throws IllegalArgumentException If rank is not a permutation of the graph's ids.
+     */
+    public static CsrGraph relabel(IntGraph graph, int[] rank) {
+        int nodes = graph.nodeCount();
+        int[] old = NodeOrdering.inverse(rank, nodes);
+        if (graph.edgeCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many edges for a CSR graph: " + graph.edgeCount());
+        }
+
+        String[] values = new String[nodes];
+        Map<String, Integer> ids = new HashMap<>(nodes * 2);
+        for (int id = 0; id < nodes; id++) {
+            values[id] = graph.valueOf(old[id]);
+            if (graph.idOf(values[id]) == old[id]) {
+                ids.put(values[id], id);
+            }
+        }
+
+        int[] offsets = new int[nodes + 1];
+        int[] targets = new int[(int) graph.edgeCount()];
+        IntGraph.NeighborCursor cursor = graph.forwardCursor();
+        int position = 0;
+        for (int id = 0; id < nodes; id++) {
+            offsets[id] = position;
+            cursor.reset(old[id]);
+            for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+                targets[position++] = rank[neighbor];
+            }
+            Arrays.sort(targets, offsets[id], position);
+        }
+        offsets[nodes] = position;
+        return new CsrGraph(offsets, position == targets.length ? targets : Arrays.copyOf(targets, position),
+                values, ids);
+    }
+
+    /**
+     * Assigns the next free id to a value if it does not have one yet.
+     *
+     * @param value  The value of the node.
+     * @param ids    The ids assigned so far.
+     * @param values The values assigned so far, indexed by id.
+     */
+    private static void assignId(String value, Map<String, Integer> ids, List<String> values) {
+        if (!ids.containsKey(value)) {
+            ids.put(value, values.size());
+            values.add(value);
+        }
+    }
+
+    /**
+     * Computes the transpose of a CSR with a counting sort over the neighbor ids.
+     *
+     * @param offsets        The offsets of the CSR to transpose.
+     * @param targets        The neighbor ids of the CSR to transpose.
+     * @param reverseOffsets Receives the offsets of the transpose; must be zeroed.
+     * @param reverseTargets Receives the neighbor ids of the transpose.
+     */
+    static void transpose(int[] offsets, int[] targets, int[] reverseOffsets, int[] reverseTargets) {
+        int nodes = reverseOffsets.length - 1;
+        for (int target : targets) {
+            reverseOffsets[target + 1]++;
+        }
+        for (int i = 0; i < nodes; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+
+        int[] next = Arrays.copyOf(reverseOffsets, nodes);
+        for (int src = 0; src < nodes; src++) {
+            for (int i = offsets[src]; i < offsets[src + 1]; i++) {
+                reverseTargets[next[targets[i]]++] = src;
+            }
+        }
+    }
+
+    @Override
+    public int nodeCount() {
+        return values.length;
+    }
+
+    @Override
+    public long edgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        return id == null ? NO_NODE : id;
+    }
+
+    @Override
+    public String valueOf(int id) {
+        return values[id];
+    }
+
+    @Override
+    public int outDegree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    @Override
+    public int inDegree(int id) {
+        return reverseOffsets[id + 1] - reverseOffsets[id];
+    }
+
+    @Override
+    public NeighborCursor forwardCursor() {
+        return new Cursor(offsets, targets);
+    }
+
+    @Override
+    public NeighborCursor reverseCursor() {
+        return new Cursor(reverseOffsets, reverseTargets);
+    }
+
+    /**
+     * Returns the number of bytes held by the forward and reverse CSR arrays.
+     *
+     * @return The size of the adjacency arrays in bytes.
+     */
+    public long adjacencyBytes() {
+        return 4L * (offsets.length + targets.length + reverseOffsets.length + reverseTargets.length);
+    }
+
+    /**
+     * Returns a string representation of the forward graph, one node per line.
+     *
+     * @return A string representation of the CSR graph.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int id = 0; id < values.length; id++) {
+            sb.append(values[id]).append(" -> ");
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if (i > offsets[id]) {
+                    sb.append(", ");
+                }
+                sb.append(values[targets[i]]);
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A cursor over one row of a CSR.
+     */
+    static final class Cursor implements NeighborCursor {
+
+        private final int[] offsets;
+        private final int[] targets;
+        private int position;
+        private int end;
+
+        /**
+         * Constructs a cursor over the given CSR arrays.
+         *
+         * @param offsets The offsets of the CSR.
+         * @param targets The neighbor ids of the CSR.
+         */
+        Cursor(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        @Override
+        public void reset(int id) {
+            position = offsets[id];
+            end = offsets[id + 1];
+        }
+
+        @Override
+        public int next() {
+            return position < end ? targets[position++] : NO_NODE;
+        }
+    }
+}
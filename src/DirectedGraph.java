@@ -9,11 +9,41 @@ import java.util.stream.Collectors;
 public class DirectedGraph extends Graph<Node>{
 
     /**
-     * Constructs a bidirectional graph, updating {@link BiDiGraph#adjList} and  {@link BiDiGraph#reverseAdjList}.
+     * Interning index from a node's value to its dense integer id.
+     * <p>
+     * Every node that appears in the graph, either as a source or as a neighbor, is registered here,
+     * so lookups by value are constant-time instead of a scan over {@link DirectedGraph#adjList}.
+     * Subclasses share this index for any additional maps they keep, such as {@link BiDiGraph#reverseAdjList}.
+     */
+    protected final Map<String, Integer> nodeIds = new HashMap<>();
+
+    /**
+     * The canonical {@link Node} instance of every registered node, indexed by id.
+     */
+    protected final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * The ids of removed nodes, by value, so that re-adding a removed value takes its old id back.
+     * <p>
+     * Node equality is by value, so a second id for the same value would reach the new node's neighbor lists
+     * through the old id's {@link Node} and show up as a phantom copy of it.
+     */
+    private final Map<String, Integer> removedIds = new HashMap<>();
+
+    /**
+     * The number of mutations applied to the graph so far.
+     * <p>
+     * Every method that changes the graph increments it, so a cached result computed at one version
+     * must not be served once the version has moved on.
+     */
+    protected long version;
+
+    /**
+     * Constructs a directed graph, updating {@link DirectedGraph#adjList}.
      * This function is the default constructor so it sets an empty adjList.
      */
     public DirectedGraph() {
-        new DirectedGraph(new HashMap<Node, List<Node>>());
+        this(new HashMap<Node, List<Node>>());
     }
 
     /**
@@ -31,7 +61,8 @@ public class DirectedGraph extends Graph<Node>{
     public DirectedGraph(Map<?, ?> adjList) {
 
         if (isNodeListMap(adjList)) {
-            this.adjList = (Map<Node, List<Node>>) adjList;
+            this.adjList = new HashMap<>();
+            adoptNodeListMap((Map<Node, List<Node>>) adjList);
         } else if (isStringListMap(adjList)) {
             this.adjList = new HashMap<>();
             convertStringMapToAdjacencyList((Map<String, List<String>>) adjList);
@@ -75,6 +106,106 @@ public class DirectedGraph extends Graph<Node>{
         return entry.getKey() instanceof String && entry.getValue() instanceof List<?>;
     }
 
+    /**
+     * Copies an existing Node-List adjacency list into {@link DirectedGraph#adjList}, registering every node in
+     * {@link DirectedGraph#nodeIds} and dropping duplicate edges.
+     * <p>
+     * The first instance seen for a value becomes the canonical one.
+     *
+     * @param nodeListMap The adjacency list to copy.
+     */
+    private void adoptNodeListMap(Map<Node, List<Node>> nodeListMap) {
+        for (Map.Entry<Node, List<Node>> entry : nodeListMap.entrySet()) {
+            register(entry.getKey());
+            for (Node neighbor : entry.getValue()) {
+                register(neighbor);
+            }
+        }
+        for (Map.Entry<Node, List<Node>> entry : nodeListMap.entrySet()) {
+            adjList.computeIfAbsent(getNode(entry.getKey().value()), k -> newNeighborList()).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Creates an empty neighbor list for this graph.
+     * <p>
+     * Lists are {@link NeighborSet}s, which ignore duplicate edges and answer membership tests without a scan.
+     *
+     * @return A new, empty neighbor list.
+     */
+    protected NeighborSet newNeighborList() {
+        return new NeighborSet(this);
+    }
+
+    /**
+     * Registers a node under the next free id, unless a node with the same value is already registered.
+     * A removed value gets its old id and canonical node back.
+     *
+     * @param node The node to register.
+     * @return The canonical node with the value of the given node.
+     */
+    private Node register(Node node) {
+        return nodes.get(registerId(node));
+    }
+
+    /**
+     * Registers a node as {@link DirectedGraph#register(Node)} does.
+     *
+     * @param node The node to register.
+     * @return The id of the canonical node with the value of the given node.
+     */
+    private int registerId(Node node) {
+        Integer id = nodeIds.get(node.value());
+        if (id != null) {
+            return id;
+        }
+        id = removedIds.remove(node.value());
+        if (id == null) {
+            id = nodes.size();
+            nodes.add(node);
+        }
+        nodeIds.put(node.value(), id);
+        return id;
+    }
+
+    /**
+     * Unregisters a removed node, keeping its id for the value until it is added again.
+     *
+     * @param value The value of the removed node.
+     */
+    protected void unregister(String value) {
+        Integer id = nodeIds.remove(value);
+        if (id != null) {
+            removedIds.put(value, id);
+        }
+    }
+
+    /**
+     * Returns the canonical node for a value, creating and registering it if it is not yet known.
+     * <p>
+     * This only updates {@link DirectedGraph#nodeIds}; it does not add the node to the adjacency list.
+     *
+     * @param value The value of the node.
+     * @return The canonical node with the specified value.
+     */
+    protected Node intern(String value) {
+        return nodes.get(internId(value));
+    }
+
+    /**
+     * Returns the id of the canonical node for a value, creating and registering the node if it is not yet known.
+     *
+     * @param value The value of the node.
+     * @return The id of the canonical node with the specified value.
+     */
+    protected int internId(String value) {
+        Integer id = nodeIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        return registerId(new Node(value));
+    }
+
     /**
      * Adds a node to the directed graph.
      *
@@ -82,9 +213,8 @@ public class DirectedGraph extends Graph<Node>{
      */
     @Override
     public void addNode(Node node) {
-        if (!adjList.containsKey(node)) {
-            adjList.put(node, new ArrayList<>());
-        }
+        version++;
+        adjList.computeIfAbsent(register(node), k -> newNeighborList());
     }
 
     /**
@@ -94,40 +224,117 @@ public class DirectedGraph extends Graph<Node>{
      */
     @Override
     public void addNode(String value) {
-        if (getNode(value) == null) {
-            Node node = new Node(value);
-            adjList.put(node, new ArrayList<>());
-        }
+        version++;
+        adjList.computeIfAbsent(intern(value), k -> newNeighborList());
     }
 
     /**
      * Adds a directed edge between two nodes in the graph.
+     * Both endpoints are added to the graph if they are not present yet.
      *
      * @param src The source node.
      * @param dest   The destination node.
      */
     @Override
     public void addEdge(String src, String dest) {
+        version++;
+        Node srcNode = intern(src);
+        Node destNode = intern(dest);
+
+        adjList.computeIfAbsent(destNode, k -> newNeighborList());
+        connect(srcNode, destNode);
+    }
 
+    /**
+     * Adds a directed edge between two canonical nodes, unless it is already present.
+     * The source is added to the graph if it is not present yet.
+     * <p>
+     * The duplicate check is a lookup in the source's {@link NeighborSet}, so it does not scan the neighbors.
+     *
+     * @param srcNode  The canonical source node.
+     * @param destNode The canonical destination node.
+     * @return {@code true} if the edge was added, {@code false} if it was already present.
+     */
+    protected boolean connect(Node srcNode, Node destNode) {
+        return adjList.computeIfAbsent(srcNode, k -> newNeighborList()).add(destNode);
+    }
+
+    /**
+     * Checks whether the graph has a directed edge between two nodes.
+     * <p>
+     * This is a membership test in the source's {@link NeighborSet}: a binary search for a low out-degree and a
+     * hash lookup for a hub.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the destination node.
+     * @return {@code true} if the edge is present, {@code false} otherwise.
+     */
+    public boolean hasEdge(String src, String dest) {
         Node srcNode = getNode(src);
-        if (getNode(src) == null) {
-            this.addNode(src);
-            srcNode = getNode(src);
-        }
         Node destNode = getNode(dest);
-        if (getNode(dest) == null) {
-            this.addNode(dest);
-            destNode = getNode(src);
+        if (srcNode == null || destNode == null) {
+            return false;
         }
+        List<Node> neighbors = adjList.get(srcNode);
+        return neighbors != null && neighbors.contains(destNode);
+    }
 
-        List<Node> neighbors = getNeighbors(srcNode);
-        for (Node neighbor : neighbors) {
-            if (neighbor == destNode) {
-                return;
-            }
+    /**
+     * Removes a directed edge between two nodes in the graph.
+     * <p>
+     * The edge is found by a lookup in the source's {@link NeighborSet}; removing it from a small, sorted set
+     * shifts the neighbors after it.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the destination node.
+     * @return {@code true} if the edge was present, {@code false} otherwise.
+     */
+    public boolean removeEdge(String src, String dest) {
+        Node srcNode = getNode(src);
+        Node destNode = getNode(dest);
+        if (srcNode == null || destNode == null) {
+            return false;
         }
+        if (!disconnect(srcNode, destNode)) {
+            return false;
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * Removes a directed edge between two canonical nodes.
+     *
+     * @param srcNode  The canonical source node.
+     * @param destNode The canonical destination node.
+     * @return {@code true} if the edge was present, {@code false} otherwise.
+     */
+    protected boolean disconnect(Node srcNode, Node destNode) {
+        List<Node> neighbors = adjList.get(srcNode);
+        return neighbors != null && neighbors.remove(destNode);
+    }
 
-        adjList.get(srcNode).add(destNode);
+    /**
+     * Removes a node and all of its incoming and outgoing edges from the graph.
+     * <p>
+     * A directed graph does not index incoming edges, so this looks the node up in every neighbor list.
+     * The node stops being found by value; its id is left isolated, and is taken back if the value is added again.
+     *
+     * @param value The value of the node to remove.
+     * @return {@code true} if the node was present, {@code false} otherwise.
+     */
+    public boolean removeNode(String value) {
+        Node node = getNode(value);
+        if (node == null) {
+            return false;
+        }
+        version++;
+        adjList.remove(node);
+        for (List<Node> neighbors : adjList.values()) {
+            neighbors.remove(node);
+        }
+        unregister(value);
+        return true;
     }
 
     /**
@@ -146,20 +353,16 @@ public class DirectedGraph extends Graph<Node>{
 
     /**
      * Retrieves a node by its value from the directed graph.
+     * <p>
+     * The lookup goes through {@link DirectedGraph#nodeIds} and runs in constant time.
      *
      * @param value The value of the node to retrieve.
      * @return The node with the specified value, or {@code null} if not found.
      */
     @Override
     public Node getNode(String value) {
-        for (Node node : adjList.keySet()) {
-
-            if (Objects.equals(node.value(), value)) {
-                return node;
-            }
-        }
-
-        return null;
+        Integer id = nodeIds.get(value);
+        return id != null ? nodes.get(id) : null;
     }
 
 
@@ -167,47 +370,76 @@ public class DirectedGraph extends Graph<Node>{
      * Converts a String-List adjacency list to the internal Node-List representation.
      * <p>
      * This method takes a map with strings as keys and lists of strings as values and
-     * converts it into the Node-List format used by the directed graph.
+     * converts it into the Node-List format used by the directed graph. Duplicate edges, within one list or
+     * across calls, are stored once.
      *
      * @param stringAdjList The String-List adjacency list to convert.
      */
     @Override
     public void convertStringMapToAdjacencyList(Map<String, List<String>> stringAdjList) {
+        version++;
         for (Map.Entry<String, List<String>> entry : stringAdjList.entrySet()) {
-            Node source = new Node(entry.getKey());
+            Node source = intern(entry.getKey());
             addNode(source);
 
-            List<Node> neighbors = new ArrayList<>();
+            List<Node> neighbors = this.adjList.get(source);
             for (String neighborValue : entry.getValue()) {
-                Node neighbor = new Node(neighborValue);
-                neighbors.add(neighbor);
+                if (neighbors instanceof NeighborSet set) {
+                    set.addId(internId(neighborValue));
+                } else {
+                    neighbors.add(intern(neighborValue));
+                }
             }
-
-            this.adjList.get(source).addAll(neighbors);
         }
     }
 
+    /**
+     * Returns the version of the graph, which changes on every mutation.
+     *
+     * @return The number of mutations applied to the graph so far.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Generates a random adjacency list for testing purposes.
      * <p>
      * This method creates a random directed graph with the specified number of nodes
-     * and maximum edges per node for testing and experimentation.
+     * and maximum edges per node for testing and experimentation. Repeated draws of the same neighbor are
+     * dropped, so a node may get fewer edges than drawn.
      *
      * @param nodes          The number of nodes in the graph.
      * @param maxEdgesPerNode The maximum number of edges each node can have.
      * @return A randomly generated adjacency list.
      */
     public Map<String, List<String>> generateRandomAdjacencyList(int nodes, int maxEdgesPerNode) {
+        return generateRandomAdjacencyList(nodes, maxEdgesPerNode, new Random());
+    }
+
+    /**
+     * Generates a random adjacency list like {@link DirectedGraph#generateRandomAdjacencyList(int, int)}, drawing from
+     * a given source of randomness, so that a seeded source generates the same graph on every run.
+     *
+     * @param nodes           The number of nodes in the graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param random          The source of randomness.
+     * @return A randomly generated adjacency list.
+     */
+    public Map<String, List<String>> generateRandomAdjacencyList(int nodes, int maxEdgesPerNode, Random random) {
         Map<String, List<String>> adjacencyList = new HashMap<>();
 
         for (int i = 0; i < nodes; i++) {
             String node = "Node" + i;
-            int edges = (int) (Math.random() * maxEdgesPerNode) + 1;
+            int edges = (int) (random.nextDouble() * maxEdgesPerNode) + 1;
 
             List<String> neighbors = new ArrayList<>();
             for (int j = 0; j < edges; j++) {
-                int neighborIndex = (int) (Math.random() * nodes);
-                neighbors.add("Node" + neighborIndex);
+                int neighborIndex = (int) (random.nextDouble() * nodes);
+                String neighbor = "Node" + neighborIndex;
+                if (!neighbors.contains(neighbor)) {
+                    neighbors.add(neighbor);
+                }
             }
 
             adjacencyList.put(node, neighbors);
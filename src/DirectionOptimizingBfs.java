@@ -0,0 +1,222 @@
+import java.util.Arrays;
+
+/**
+ * A single-source breadth-first search that switches between top-down and bottom-up steps.
+ * <p>
+ * A top-down step pushes the out-edges of every frontier node. A bottom-up step instead scans every
+ * unvisited node and stops at its first in-neighbor that is in the frontier, which is far cheaper once the
+ * frontier covers a large share of the graph. The switch uses the usual edge-count heuristics: go bottom-up
+ * when the frontier's out-edges exceed {@code 1 / ALPHA} of the in-edges of unvisited nodes, and go back to
+ * top-down when the frontier holds fewer than {@code 1 / BETA} of all nodes.
+ * <p>
+ * A search object reuses its frontier and visit arrays, which are cleared by bumping an epoch rather than by a fill,
+ * and is not thread-safe.
+ */
+
+public class DirectionOptimizingBfs {
+
+    /**
+     * Switch to bottom-up once the frontier's edges exceed the unexplored edges divided by this factor.
+     */
+    static final int ALPHA = 14;
+
+    /**
+     * Switch back to top-down once the frontier holds fewer nodes than the node count divided by this factor.
+     */
+    static final int BETA = 24;
+
+    /**
+     * The graph on which the searches are performed.
+     */
+    final IntGraph graph;
+
+    private final IntGraph.NeighborCursor forwardCursor;
+    private final IntGraph.NeighborCursor reverseCursor;
+
+    private int[] frontier = new int[0];
+    private int[] next = new int[0];
+
+    /**
+     * The visit marks: a node was reached by the current search at level {@code marks[node] - base} if that is not
+     * negative, and not reached otherwise.
+     */
+    private int[] marks = new int[0];
+
+    /**
+     * The mark of the current search's source; every mark below it belongs to an earlier search.
+     */
+    private int base = 1;
+
+    /**
+     * The number of edges examined by the last search.
+     */
+    private long edgesVisited;
+
+    /**
+     * Constructs a direction-optimizing search for the specified graph.
+     *
+     * @param graph The graph on which the searches will be performed.
+     */
+    public DirectionOptimizingBfs(IntGraph graph) {
+        this.graph = graph;
+        this.forwardCursor = graph.forwardCursor();
+        this.reverseCursor = graph.reverseCursor();
+    }
+
+    /**
+     * Computes the BFS distance of every node from a source, switching between top-down and bottom-up steps.
+     *
+     * @param src The id of the source node.
+     * @return The distance of every node from src, indexed by id, with {@code -1} for unreachable nodes.
+     */
+    public int[] distances(int src) {
+        return distances(src, true);
+    }
+
+    /**
+     * Computes the BFS distance of every node from a source.
+     *
+     * @param src                 The id of the source node.
+     * @param directionOptimizing {@code true} to allow bottom-up steps, {@code false} for a plain top-down BFS.
+     * @return The distance of every node from src, indexed by id, with {@code -1} for unreachable nodes.
+     */
+    public int[] distances(int src, boolean directionOptimizing) {
+        int nodes = graph.nodeCount();
+        int[] distance = new int[nodes];
+        Arrays.fill(distance, -1);
+        edgesVisited = 0;
+        if (src == IntGraph.NO_NODE) {
+            return distance;
+        }
+        int levels = run(src, IntGraph.NO_NODE, directionOptimizing);
+        for (int node = 0; node < nodes; node++) {
+            if (marks[node] >= base) {
+                distance[node] = marks[node] - base;
+            }
+        }
+        base += levels;
+        return distance;
+    }
+
+    /**
+     * Checks whether a node is reachable from a source, stopping the search as soon as the node is reached.
+     *
+     * @param src  The id of the source node.
+     * @param dest The id of the target node.
+     * @return {@code true} if dest is reachable from src, {@code false} otherwise or if either is
+     *         {@link IntGraph#NO_NODE}.
+     */
+    public boolean reaches(int src, int dest) {
+        edgesVisited = 0;
+        if (src == IntGraph.NO_NODE || dest == IntGraph.NO_NODE) {
+            return false;
+        }
+        int levels = run(src, dest, true);
+        boolean found = marks[dest] >= base;
+        base += levels;
+        return found;
+    }
+
+    /**
+     * Runs the search from a source, marking every node it reaches with {@link DirectionOptimizingBfs#base} plus
+     * its distance. The caller advances the base past the returned number of levels once it has read the marks.
+     *
+     * @param src                 The id of the source node.
+     * @param dest                The id of a node at which to stop, or {@link IntGraph#NO_NODE} to reach every node.
+     * @param directionOptimizing {@code true} to allow bottom-up steps, {@code false} for a plain top-down BFS.
+     * @return The number of marks used, one per level started.
+     */
+    private int run(int src, int dest, boolean directionOptimizing) {
+        int nodes = graph.nodeCount();
+        if (marks.length < nodes) {
+            marks = new int[nodes];
+            frontier = new int[nodes];
+            next = new int[nodes];
+            base = 1;
+        } else if (base > Integer.MAX_VALUE - nodes - 1) {
+            Arrays.fill(marks, 0);
+            base = 1;
+        }
+
+        marks[src] = base;
+        if (src == dest) {
+            return 1;
+        }
+        frontier[0] = src;
+        int size = 1;
+        int level = 0;
+        long unexploredEdges = graph.edgeCount() - graph.inDegree(src);
+        boolean bottomUp = false;
+
+        while (size > 0) {
+            if (directionOptimizing) {
+                if (!bottomUp) {
+                    long frontierEdges = 0;
+                    for (int i = 0; i < size; i++) {
+                        frontierEdges += graph.outDegree(frontier[i]);
+                    }
+                    bottomUp = frontierEdges > unexploredEdges / ALPHA;
+                } else if (size < nodes / BETA) {
+                    bottomUp = false;
+                }
+            }
+
+            int current = base + level;
+            int nextSize = 0;
+            if (bottomUp) {
+                // Every unvisited node looks for a parent in the frontier
+                for (int node = 0; node < nodes; node++) {
+                    if (marks[node] >= base) {
+                        continue;
+                    }
+                    reverseCursor.reset(node);
+                    for (int parent = reverseCursor.next(); parent != IntGraph.NO_NODE; parent = reverseCursor.next()) {
+                        edgesVisited++;
+                        if (marks[parent] == current) {
+                            marks[node] = current + 1;
+                            if (node == dest) {
+                                return level + 2;
+                            }
+                            next[nextSize++] = node;
+                            unexploredEdges -= graph.inDegree(node);
+                            break;
+                        }
+                    }
+                }
+            } else {
+                // Every frontier node pushes its out-edges
+                for (int i = 0; i < size; i++) {
+                    forwardCursor.reset(frontier[i]);
+                    for (int neighbor = forwardCursor.next(); neighbor != IntGraph.NO_NODE; neighbor = forwardCursor.next()) {
+                        edgesVisited++;
+                        if (marks[neighbor] < base) {
+                            marks[neighbor] = current + 1;
+                            if (neighbor == dest) {
+                                return level + 2;
+                            }
+                            next[nextSize++] = neighbor;
+                            unexploredEdges -= graph.inDegree(neighbor);
+                        }
+                    }
+                }
+            }
+
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            size = nextSize;
+            level++;
+        }
+
+        return level + 1;
+    }
+
+    /**
+     * Returns the number of edges examined by the last search.
+     *
+     * @return The number of edges examined.
+     */
+    public long getEdgesVisited() {
+        return edgesVisited;
+    }
+}
@@ -0,0 +1,689 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * A bidirectional graph that survives restarts: every mutation is appended to a write-ahead log, and the whole
+ * graph is periodically written to a compact binary snapshot, after which the log starts over.
+ * <p>
+ * A durable graph lives in a directory holding at most two files:
+ * <ul>
+ *     <li>{@link DurableGraph#SNAPSHOT_FILE}: the node values and the forward and reverse CSR of the graph,
+ *     followed by a CRC-32 of the whole file. It is written to a temporary file first and then renamed, so a
+ *     crash never leaves a partial snapshot behind.</li>
+ *     <li>{@link DurableGraph#LOG_FILE}: one record per mutation since that snapshot, each framed by its length
+ *     and a CRC-32 and numbered by a sequence. A torn record at the end, left by a crash, is detected and
+ *     dropped.</li>
+ * </ul>
+ * Log records are group-committed: they collect in a buffer of {@link DurableGraph#GROUP_COMMIT_BYTES} bytes,
+ * which is written through a {@link FileChannel} and forced to disk once it is full, so one disk flush covers
+ * many mutations. A mutation is durable once {@link DurableGraph#sync()} has returned or its group has been
+ * committed. {@link DurableGraph#open(Path)} recovers the graph by loading the snapshot and replaying the log
+ * records newer than it; node ids are compacted by a snapshot, so removed nodes no longer take up ids afterwards.
+ * <p>
+ * Like {@link BiDiGraph}, a durable graph is not thread-safe. Mutations fail with an {@link UncheckedIOException}
+ * if the log cannot be written.
+ */
+
+public class DurableGraph extends BiDiGraph implements AutoCloseable {
+
+    /**
+     * The name of the snapshot file in the graph's directory.
+     */
+    public static final String SNAPSHOT_FILE = "graph.snapshot";
+
+    /**
+     * The name of the log file in the graph's directory.
+     */
+    public static final String LOG_FILE = "graph.wal";
+
+    /**
+     * The name under which a snapshot is written before it replaces the previous one.
+     */
+    private static final String SNAPSHOT_TEMP_FILE = "graph.snapshot.tmp";
+
+    /**
+     * The default number of logged mutations after which a snapshot is taken.
+     */
+    public static final int DEFAULT_SNAPSHOT_EVERY = 1_000_000;
+
+    /**
+     * The size of the buffer in which log records are group-committed.
+     */
+    static final int GROUP_COMMIT_BYTES = 1 << 16;
+
+    /**
+     * The first four bytes of every snapshot.
+     */
+    static final int SNAPSHOT_MAGIC = 0x47534E50;
+
+    /**
+     * The version of the snapshot and log formats.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * The size of a snapshot header: magic, version, sequence, node count and edge count.
+     */
+    private static final int SNAPSHOT_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * The size of the frame around every log record: its payload length and the CRC-32 of the payload.
+     */
+    private static final int FRAME_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * The size of the smallest record payload: sequence, type and two empty values.
+     */
+    private static final int MIN_PAYLOAD_BYTES = Long.BYTES + Byte.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * The log record types.
+     */
+    static final byte ADD_NODE = 1;
+    static final byte ADD_EDGE = 2;
+    static final byte REMOVE_EDGE = 3;
+    static final byte REMOVE_NODE = 4;
+
+    private static final byte[] NO_VALUE = new byte[0];
+
+    /**
+     * The directory holding the snapshot and the log.
+     */
+    private Path directory;
+
+    /**
+     * The open log, or {@code null} while the graph is being recovered, so that replayed mutations are not
+     * logged again.
+     */
+    private FileChannel log;
+
+    /**
+     * The log records not yet written to {@link DurableGraph#log}.
+     */
+    private final ByteBuffer group = ByteBuffer.allocate(GROUP_COMMIT_BYTES);
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The sequence number of the last logged mutation.
+     */
+    private long sequence;
+
+    /**
+     * The number of mutations logged since the last snapshot, and the number after which a snapshot is taken.
+     */
+    private long sinceSnapshot;
+    private long snapshotEvery;
+
+    private long recoveryNanos;
+    private long replayedRecords;
+
+    /**
+     * A decoded log record.
+     *
+     * @param sequence The sequence number of the mutation.
+     * @param type     The type of the mutation.
+     * @param src      The value of the node, or of the source node of an edge.
+     * @param dest     The value of the destination node of an edge, empty for node mutations.
+     */
+    private record Entry(long sequence, byte type, String src, String dest) {
+    }
+
+    /**
+     * Constructs an empty graph that is not yet attached to a directory.
+     */
+    private DurableGraph() {
+        super();
+    }
+
+    /**
+     * Opens or creates a durable graph, taking a snapshot every {@link DurableGraph#DEFAULT_SNAPSHOT_EVERY}
+     * mutations.
+     *
+     * @param directory The directory of the graph; created if it does not exist.
+     * @return The recovered graph.
+     * @throws IOException If the files cannot be read or written, or the snapshot is corrupt.
+     */
+    public static DurableGraph open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    /**
+     * Opens or creates a durable graph.
+     * <p>
+     * Recovery loads the snapshot, then replays the log: the record frames are located in one pass, their
+     * checksums are verified and their values decoded in parallel, and the mutations are applied in order.
+     * The log is cut after the last intact record.
+     *
+     * @param directory     The directory of the graph; created if it does not exist.
+     * @param snapshotEvery The number of logged mutations after which a snapshot is taken automatically.
+     * @return The recovered graph.
+     * @throws IOException              If the files cannot be read or written, or the snapshot is corrupt.
+     * @throws IllegalArgumentException If snapshotEvery is not positive.
+     */
+    public static DurableGraph open(Path directory, long snapshotEvery) throws IOException {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotEvery);
+        }
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        DurableGraph graph = new DurableGraph();
+        graph.directory = directory;
+        graph.snapshotEvery = snapshotEvery;
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            graph.loadSnapshot(snapshot);
+        }
+        Path logPath = directory.resolve(LOG_FILE);
+        long end = Files.exists(logPath) ? graph.replay(logPath) : 0;
+
+        graph.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        graph.log.truncate(end);
+        graph.log.position(end);
+        graph.syncDirectory();
+        graph.recoveryNanos = System.nanoTime() - start;
+        return graph;
+    }
+
+    /**
+     * Adds a node and logs it.
+     *
+     * @param node The node to add.
+     */
+    @Override
+    public void addNode(Node node) {
+        super.addNode(node);
+        append(ADD_NODE, node.value(), null);
+    }
+
+    /**
+     * Adds a node with the specified value and logs it.
+     *
+     * @param value The value of the node to add.
+     */
+    @Override
+    public void addNode(String value) {
+        super.addNode(value);
+        append(ADD_NODE, value, null);
+    }
+
+    /**
+     * Adds a directed edge and logs it.
+     *
+     * @param src  The source node.
+     * @param dest The destination node.
+     */
+    @Override
+    public void addEdge(String src, String dest) {
+        super.addEdge(src, dest);
+        append(ADD_EDGE, src, dest);
+    }
+
+    /**
+     * Removes a directed edge and logs it if it was present.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the destination node.
+     * @return {@code true} if the edge was present, {@code false} otherwise.
+     */
+    @Override
+    public boolean removeEdge(String src, String dest) {
+        if (!super.removeEdge(src, dest)) {
+            return false;
+        }
+        append(REMOVE_EDGE, src, dest);
+        return true;
+    }
+
+    /**
+     * Removes a node with all of its edges and logs it if it was present.
+     *
+     * @param value The value of the node to remove.
+     * @return {@code true} if the node was present, {@code false} otherwise.
+     */
+    @Override
+    public boolean removeNode(String value) {
+        if (!super.removeNode(value)) {
+            return false;
+        }
+        append(REMOVE_NODE, value, null);
+        return true;
+    }
+
+    /**
+     * Adds every node and edge of a String-List adjacency list, logging each of them.
+     *
+     * @param stringAdjList The String-List adjacency list to add.
+     */
+    @Override
+    public void convertStringMapToAdjacencyList(Map<String, List<String>> stringAdjList) {
+        for (Map.Entry<String, List<String>> entry : stringAdjList.entrySet()) {
+            addNode(entry.getKey());
+            for (String neighbor : entry.getValue()) {
+                addEdge(entry.getKey(), neighbor);
+            }
+        }
+    }
+
+    /**
+     * Writes all buffered log records and forces them to disk.
+     *
+     * @throws IOException If the log cannot be written.
+     */
+    public void sync() throws IOException {
+        if (group.position() > 0) {
+            MappedGraph.writeFully(log, group.flip());
+            group.clear();
+        }
+        log.force(false);
+    }
+
+    /**
+     * Writes a snapshot of the graph and empties the log.
+     * <p>
+     * The log is synced first, and only emptied once the new snapshot has replaced the old one and the rename has
+     * been made durable by syncing the directory. If the process stops in between, recovery skips the log records
+     * the snapshot already contains by their sequence numbers.
+     *
+     * @throws IOException If the snapshot or the log cannot be written.
+     */
+    public void snapshot() throws IOException {
+        sync();
+        Path temp = directory.resolve(SNAPSHOT_TEMP_FILE);
+        writeSnapshot(temp);
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        log.truncate(0);
+        log.force(true);
+        sinceSnapshot = 0;
+    }
+
+    /**
+     * Forces the entries of {@link DurableGraph#directory} to disk, so that a created or renamed file survives a
+     * crash; until then, the file system may still hold the old entry.
+     *
+     * @throws IOException If the directory cannot be synced.
+     */
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Syncs the log and closes it. The graph stays readable, but must not be modified afterwards.
+     *
+     * @throws IOException If the log cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (log != null && log.isOpen()) {
+            sync();
+            log.close();
+        }
+    }
+
+    /**
+     * Appends a mutation to the group of log records, committing the group first if the record does not fit,
+     * and takes a snapshot once enough mutations have been logged.
+     *
+     * @param type The type of the mutation.
+     * @param src  The value of the node, or of the source node of an edge.
+     * @param dest The value of the destination node of an edge, or {@code null}.
+     * @throws UncheckedIOException If the log cannot be written.
+     */
+    private void append(byte type, String src, String dest) {
+        if (log == null) {
+            return;  // Replaying the log during recovery
+        }
+        byte[] srcBytes = src.getBytes(StandardCharsets.UTF_8);
+        byte[] destBytes = dest == null ? NO_VALUE : dest.getBytes(StandardCharsets.UTF_8);
+        int payload = MIN_PAYLOAD_BYTES + srcBytes.length + destBytes.length;
+        try {
+            if (group.remaining() < FRAME_BYTES + payload) {
+                sync();
+            }
+            ByteBuffer buffer = FRAME_BYTES + payload > group.capacity() ? ByteBuffer.allocate(FRAME_BYTES + payload) : group;
+            int start = buffer.position();
+            buffer.putInt(payload).putInt(0).putLong(++sequence).put(type)
+                    .putInt(srcBytes.length).put(srcBytes).putInt(destBytes.length).put(destBytes);
+            crc.reset();
+            crc.update(buffer.array(), start + FRAME_BYTES, payload);
+            buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+            if (buffer != group) {
+                MappedGraph.writeFully(log, buffer.flip());
+                log.force(false);
+            }
+
+            if (++sinceSnapshot >= snapshotEvery) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not log a mutation in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes the live nodes and their edges to a snapshot file and forces it to disk.
+     *
+     * @param path The file to create or overwrite.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeSnapshot(Path path) throws IOException {
+        // Number the live nodes densely, skipping the ids of removed ones
+        int[] compact = new int[nodes.size()];
+        List<Node> live = new ArrayList<>(nodeIds.size());
+        for (int id = 0; id < nodes.size(); id++) {
+            Integer current = nodeIds.get(nodes.get(id).value());
+            compact[id] = current != null && current == id ? live.size() : -1;
+            if (compact[id] >= 0) {
+                live.add(nodes.get(id));
+            }
+        }
+        int count = live.size();
+        int edges = 0;
+        for (Node node : live) {
+            edges += neighborsOf(adjList, node).size();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 checksum = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(sequence).putInt(count).putInt(edges);
+
+            byte[][] encoded = new byte[count][];
+            int valueBytes = 0;
+            for (int i = 0; i < count; i++) {
+                encoded[i] = live.get(i).value().getBytes(StandardCharsets.UTF_8);
+                buffer = putInt(channel, buffer, checksum, valueBytes);
+                valueBytes += encoded[i].length;
+            }
+            buffer = putInt(channel, buffer, checksum, valueBytes);
+            for (byte[] value : encoded) {
+                for (byte b : value) {
+                    if (!buffer.hasRemaining()) {
+                        buffer = flush(channel, buffer, checksum);
+                    }
+                    buffer.put(b);
+                }
+            }
+
+            for (Map<Node, List<Node>> lists : List.of(adjList, reverseAdjList)) {
+                int offset = 0;
+                for (Node node : live) {
+                    buffer = putInt(channel, buffer, checksum, offset);
+                    offset += neighborsOf(lists, node).size();
+                }
+                buffer = putInt(channel, buffer, checksum, offset);
+                for (Node node : live) {
+                    for (Node neighbor : neighborsOf(lists, node)) {
+                        buffer = putInt(channel, buffer, checksum, compact[nodeIds.get(neighbor.value())]);
+                    }
+                }
+            }
+
+            flush(channel, buffer, checksum);
+            MappedGraph.writeFully(channel, ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) checksum.getValue()));
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Loads a snapshot into this empty graph. Node values are decoded and neighbor lists built in parallel.
+     *
+     * @param path The snapshot file.
+     * @throws IOException If the file cannot be read or is not an intact snapshot of a supported version.
+     */
+    private void loadSnapshot(Path path) throws IOException {
+        ByteBuffer in = readFully(path);
+        if (in.limit() < SNAPSHOT_HEADER_BYTES + Integer.BYTES || in.getInt(0) != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a graph snapshot: " + path);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(in.duplicate().limit(in.limit() - Integer.BYTES));
+        if ((int) checksum.getValue() != in.getInt(in.limit() - Integer.BYTES)) {
+            throw new IOException("Corrupt graph snapshot: " + path);
+        }
+        in.getInt();
+        int format = in.getInt();
+        if (format != FORMAT_VERSION) {
+            throw new IOException("Unsupported graph snapshot version " + format + " in " + path);
+        }
+        sequence = in.getLong();
+        int count = in.getInt();
+        int edges = in.getInt();
+
+        int[] valueOffsets = new int[count + 1];
+        in.asIntBuffer().get(valueOffsets);
+        in.position(in.position() + Integer.BYTES * (count + 1));
+        byte[] valueBytes = new byte[valueOffsets[count]];
+        in.get(valueBytes);
+        String[] values = new String[count];
+        IntStream.range(0, count).parallel().forEach(i -> values[i] =
+                new String(valueBytes, valueOffsets[i], valueOffsets[i + 1] - valueOffsets[i], StandardCharsets.UTF_8));
+        for (String value : values) {
+            intern(value);  // A fresh graph hands out ids in order, so snapshot ids stay valid
+        }
+
+        NeighborSet[] forward = readLists(in, count, edges);
+        NeighborSet[] reverse = readLists(in, count, edges);
+        for (int id = 0; id < count; id++) {
+            adjList.put(nodes.get(id), forward[id]);
+            edgeCount += forward[id].size();
+            if (!reverse[id].isEmpty()) {
+                reverseAdjList.put(nodes.get(id), reverse[id]);
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Reads one CSR section of a snapshot into neighbor lists, building the lists in parallel.
+     * <p>
+     * A hub's neighbors are written in its hash order, so every row is sorted first and handed to
+     * {@link NeighborSet#sorted(DirectedGraph, int[], int, int)} in one piece instead of being inserted one by one.
+     *
+     * @param in    The snapshot, positioned at the section.
+     * @param count The number of nodes.
+     * @param edges The number of edges.
+     * @return The neighbor list of every node id.
+     */
+    private NeighborSet[] readLists(ByteBuffer in, int count, int edges) {
+        int[] offsets = new int[count + 1];
+        in.asIntBuffer().get(offsets);
+        in.position(in.position() + Integer.BYTES * (count + 1));
+        int[] targets = new int[edges];
+        in.asIntBuffer().get(targets);
+        in.position(in.position() + Integer.BYTES * edges);
+
+        NeighborSet[] lists = new NeighborSet[count];
+        IntStream.range(0, count).parallel().forEach(id -> {
+            Arrays.sort(targets, offsets[id], offsets[id + 1]);
+            lists[id] = NeighborSet.sorted(this, targets, offsets[id], offsets[id + 1]);
+        });
+        return lists;
+    }
+
+    /**
+     * Replays the log records newer than the loaded snapshot.
+     *
+     * @param path The log file.
+     * @return The byte position just past the last intact record.
+     * @throws IOException If the log cannot be read.
+     */
+    private long replay(Path path) throws IOException {
+        ByteBuffer in = readFully(path);
+
+        // Locate the frames; a frame that runs past the end was torn by a crash
+        int[] starts = new int[16];
+        int frames = 0;
+        int position = 0;
+        while (position + FRAME_BYTES <= in.limit()) {
+            int payload = in.getInt(position);
+            if (payload < MIN_PAYLOAD_BYTES || payload > in.limit() - position - FRAME_BYTES) {
+                break;
+            }
+            if (frames == starts.length) {
+                starts = Arrays.copyOf(starts, frames * 2);
+            }
+            starts[frames++] = position;
+            position += FRAME_BYTES + payload;
+        }
+
+        int[] frameStarts = starts;
+        Entry[] entries = new Entry[frames];
+        IntStream.range(0, frames).parallel().forEach(i -> entries[i] = decode(in, frameStarts[i]));
+
+        long end = 0;
+        long snapshotSequence = sequence;
+        for (int i = 0; i < frames && entries[i] != null; i++) {
+            Entry entry = entries[i];
+            end = frameStarts[i] + FRAME_BYTES + in.getInt(frameStarts[i]);
+            if (entry.sequence() <= snapshotSequence) {
+                continue;  // Already in the snapshot
+            }
+            switch (entry.type()) {
+                case ADD_NODE -> addNode(entry.src());
+                case ADD_EDGE -> addEdge(entry.src(), entry.dest());
+                case REMOVE_EDGE -> removeEdge(entry.src(), entry.dest());
+                case REMOVE_NODE -> removeNode(entry.src());
+                default -> throw new IOException("Unknown log record type " + entry.type() + " in " + path);
+            }
+            sequence = entry.sequence();
+            sinceSnapshot++;
+            replayedRecords++;
+        }
+        return end;
+    }
+
+    /**
+     * Verifies and decodes one log record.
+     *
+     * @param in    The log.
+     * @param start The position of the record's frame.
+     * @return The record, or {@code null} if its checksum does not match.
+     */
+    private static Entry decode(ByteBuffer in, int start) {
+        int payload = in.getInt(start);
+        ByteBuffer record = in.slice(start + FRAME_BYTES, payload);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.duplicate());
+        if ((int) checksum.getValue() != in.getInt(start + Integer.BYTES)) {
+            return null;
+        }
+        long sequence = record.getLong();
+        byte type = record.get();
+        byte[] src = new byte[record.getInt()];
+        record.get(src);
+        byte[] dest = new byte[record.getInt()];
+        record.get(dest);
+        return new Entry(sequence, type, new String(src, StandardCharsets.UTF_8), new String(dest, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the neighbor list of a node in one of the adjacency lists.
+     *
+     * @param lists The adjacency list.
+     * @param node  The node.
+     * @return Its neighbors, or an empty list if it has none.
+     */
+    private static List<Node> neighborsOf(Map<Node, List<Node>> lists, Node node) {
+        List<Node> neighbors = lists.get(node);
+        return neighbors != null ? neighbors : Collections.emptyList();
+    }
+
+    /**
+     * Puts an {@code int} into a write buffer, flushing the buffer first if it is full.
+     *
+     * @param channel  The channel the buffer is flushed to.
+     * @param buffer   The buffer.
+     * @param checksum The checksum of everything flushed.
+     * @param value    The value to put.
+     * @return The buffer.
+     * @throws IOException If the channel cannot be written.
+     */
+    private static ByteBuffer putInt(FileChannel channel, ByteBuffer buffer, CRC32 checksum, int value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            flush(channel, buffer, checksum);
+        }
+        return buffer.putInt(value);
+    }
+
+    /**
+     * Writes a buffer to a channel, adds its bytes to a checksum and clears it.
+     *
+     * @param channel  The channel to write to.
+     * @param buffer   The buffer.
+     * @param checksum The checksum of everything flushed.
+     * @return The cleared buffer.
+     * @throws IOException If the channel cannot be written.
+     */
+    private static ByteBuffer flush(FileChannel channel, ByteBuffer buffer, CRC32 checksum) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        MappedGraph.writeFully(channel, buffer);
+        return buffer.clear();
+    }
+
+    /**
+     * Reads a whole file into a heap buffer.
+     *
+     * @param path The file.
+     * @return The contents, positioned at the start.
+     * @throws IOException If the file cannot be read or is larger than 2 GB.
+     */
+    private static ByteBuffer readFully(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to recover from: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * Returns the time {@link DurableGraph#open(Path, long)} took to recover this graph.
+     *
+     * @return The recovery time in nanoseconds.
+     */
+    public long getRecoveryNanos() {
+        return recoveryNanos;
+    }
+
+    /**
+     * Returns the number of log records replayed by {@link DurableGraph#open(Path, long)}.
+     *
+     * @return The number of replayed records.
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * Returns the size of the log, including records not yet written.
+     *
+     * @return The number of log bytes since the last snapshot.
+     * @throws IOException If the log size cannot be read.
+     */
+    public long getLogBytes() throws IOException {
+        return log.position() + group.position();
+    }
+}
@@ -0,0 +1,302 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads a {@link CsrGraph} from an edge-list or adjacency-list text file with bounded memory.
+ * <p>
+ * Lines are separated into tokens by tabs, commas or spaces, so TSV, CSV and whitespace-separated files all
+ * work, and files whose name ends in {@code .gz} are decompressed on the fly. Blank lines and lines starting
+ * with {@code #} are skipped.
+ * <p>
+ * The file is streamed twice in chunks of {@link EdgeListLoader#CHUNK_LINES} lines, and chunks are parsed in
+ * parallel on a {@link ForkJoinPool} while only a few of them are held at once. The first pass interns node
+ * values into int ids and counts out-degrees; the second pass places every edge into its slot of the CSR
+ * target array, a counting sort by source. The reverse CSR is then computed by {@link CsrGraph} as the
+ * transpose. No intermediate string map or edge list is ever built, so the peak heap is the node dictionary
+ * plus the final arrays.
+ */
+
+public class EdgeListLoader {
+
+    /**
+     * The layout of each line of the input file.
+     */
+    public enum Format {
+
+        /**
+         * One edge per line: a source and a destination. Further columns, such as weights, are ignored.
+         */
+        EDGE_LIST,
+
+        /**
+         * One node per line: a source followed by all of its destinations.
+         */
+        ADJACENCY_LIST
+    }
+
+    /**
+     * The number of lines parsed by one task.
+     */
+    static final int CHUNK_LINES = 16_384;
+
+    private final Path path;
+    private final Format format;
+    private final ForkJoinPool pool;
+
+    /**
+     * The id of every node, keyed by value, filled in by the first pass.
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * The out-degree of every node and the total number of edges, counted by the first pass.
+     */
+    private int[] degrees = new int[1024];
+    private long edgeCount;
+
+    /**
+     * Constructs a loader for one file.
+     *
+     * @param path   The file to load.
+     * @param format The layout of each line.
+     * @param pool   The pool that parses the chunks.
+     */
+    private EdgeListLoader(Path path, Format format, ForkJoinPool pool) {
+        this.path = path;
+        this.format = format;
+        this.pool = pool;
+    }
+
+    /**
+     * Loads a graph from a file, parsing on the common {@link ForkJoinPool}.
+     *
+     * @param path   The file to load, gzip-compressed if its name ends in {@code .gz}.
+     * @param format The layout of each line.
+     * @return The loaded graph.
+     * @throws IOException If the file cannot be read.
+     */
+    public static CsrGraph load(Path path, Format format) throws IOException {
+        return load(path, format, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads a graph from a file.
+     *
+     * @param path   The file to load, gzip-compressed if its name ends in {@code .gz}.
+     * @param format The layout of each line.
+     * @param pool   The pool that parses the chunks.
+     * @return The loaded graph.
+     * @throws IOException If the file cannot be read.
+     */
+    public static CsrGraph load(Path path, Format format, ForkJoinPool pool) throws IOException {
+        return new EdgeListLoader(path, format, pool).load();
+    }
+
+    /**
+     * Runs both passes and builds the graph.
+     *
+     * @return The loaded graph.
+     * @throws IOException If the file cannot be read.
+     */
+    private CsrGraph load() throws IOException {
+        // First pass: intern every value and count the out-degree of every node
+        scan(true, this::countDegrees);
+        if (edgeCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many edges for a CSR graph: " + edgeCount);
+        }
+
+        int nodes = nextId.get();
+        int[] offsets = new int[nodes + 1];
+        System.arraycopy(degrees, 0, offsets, 1, Math.min(nodes, degrees.length));
+        degrees = null;
+        for (int id = 0; id < nodes; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+
+        // Second pass: place every edge into the next free slot of its source's row
+        int[] targets = new int[(int) edgeCount];
+        int[] next = Arrays.copyOf(offsets, nodes);
+        scan(false, pairs -> {
+            for (int i = 0; i < pairs.length; i += 2) {
+                targets[next[pairs[i]]++] = pairs[i + 1];
+            }
+        });
+
+        String[] values = new String[nodes];
+        ids.forEach((value, id) -> values[id] = value);
+        return new CsrGraph(offsets, targets, values, ids);
+    }
+
+    /**
+     * Counts the edges of a parsed chunk into {@link EdgeListLoader#degrees}.
+     *
+     * @param pairs The source and destination ids of the chunk's edges, interleaved.
+     */
+    private void countDegrees(int[] pairs) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] >= degrees.length) {
+                degrees = Arrays.copyOf(degrees, Math.max(pairs[i] + 1, degrees.length * 2));
+            }
+            degrees[pairs[i]]++;
+        }
+        edgeCount += pairs.length / 2;
+    }
+
+    /**
+     * Streams the file once, parsing chunks of lines in parallel and handing their edges to a consumer in file order.
+     * At most twice the pool's parallelism chunks are held at once.
+     *
+     * @param intern   {@code true} to assign ids to new values, {@code false} to look up ids assigned by an earlier pass.
+     * @param consumer Receives the source and destination ids of every chunk's edges, interleaved.
+     * @throws IOException If the file cannot be read.
+     */
+    private void scan(boolean intern, java.util.function.Consumer<int[]> consumer) throws IOException {
+        int inFlight = Math.max(2, 2 * pool.getParallelism());
+        Deque<Future<int[]>> pending = new ArrayDeque<>();
+
+        try (BufferedReader reader = open()) {
+            List<String> chunk = new ArrayList<>(CHUNK_LINES);
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                chunk.add(line);
+                if (chunk.size() == CHUNK_LINES) {
+                    List<String> lines = chunk;
+                    pending.add(pool.submit(() -> parse(lines, intern)));
+                    chunk = new ArrayList<>(CHUNK_LINES);
+                    if (pending.size() >= inFlight) {
+                        consumer.accept(await(pending.poll()));
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<String> lines = chunk;
+                pending.add(pool.submit(() -> parse(lines, intern)));
+            }
+            while (!pending.isEmpty()) {
+                consumer.accept(await(pending.poll()));
+            }
+        }
+    }
+
+    /**
+     * Opens the file as a stream of UTF-8 lines, decompressing it if it is gzip-compressed.
+     *
+     * @return A reader over the lines of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    private BufferedReader open() throws IOException {
+        InputStream in = Files.newInputStream(path);
+        if (path.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Waits for a chunk to be parsed.
+     *
+     * @param future The parse task of the chunk.
+     * @return The parsed edges.
+     * @throws IOException If the chunk could not be parsed.
+     */
+    private static int[] await(Future<int[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading a graph", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not parse a graph chunk", e.getCause());
+        }
+    }
+
+    /**
+     * Parses a chunk of lines into edges.
+     *
+     * @param lines  The lines of the chunk.
+     * @param intern {@code true} to assign ids to new values, {@code false} to look up existing ids.
+     * @return The source and destination ids of the chunk's edges, interleaved.
+     */
+    private int[] parse(List<String> lines, boolean intern) {
+        int[] pairs = new int[2 * lines.size()];
+        int size = 0;
+        List<String> tokens = new ArrayList<>();
+        for (String line : lines) {
+            tokenize(line, tokens);
+            if (tokens.isEmpty() || tokens.get(0).startsWith("#")) {
+                continue;
+            }
+            if (tokens.size() == 1) {
+                // A node without edges in an adjacency list
+                if (intern && format == Format.ADJACENCY_LIST) {
+                    idOf(tokens.get(0), true);
+                }
+                continue;
+            }
+
+            int src = idOf(tokens.get(0), intern);
+            int last = format == Format.EDGE_LIST ? 2 : tokens.size();
+            for (int i = 1; i < last; i++) {
+                if (size == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[size++] = src;
+                pairs[size++] = idOf(tokens.get(i), intern);
+            }
+        }
+        return Arrays.copyOf(pairs, size);
+    }
+
+    /**
+     * Returns the id of a value.
+     *
+     * @param value  The value of the node.
+     * @param intern {@code true} to assign the next free id if the value has none yet.
+     * @return The id of the node.
+     */
+    private int idOf(String value, boolean intern) {
+        return intern ? ids.computeIfAbsent(value, k -> nextId.getAndIncrement()) : ids.get(value);
+    }
+
+    /**
+     * Splits a line into tokens separated by tabs, commas or spaces, ignoring empty tokens.
+     *
+     * @param line   The line to split.
+     * @param tokens Receives the tokens; cleared first.
+     */
+    private static void tokenize(String line, List<String> tokens) {
+        tokens.clear();
+        int start = -1;
+        for (int i = 0; i <= line.length(); i++) {
+            boolean separator = i == line.length() || isSeparator(line.charAt(i));
+            if (separator && start >= 0) {
+                tokens.add(line.substring(start, i));
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a character separates tokens.
+     *
+     * @param c The character.
+     * @return {@code true} for a tab, comma, space or carriage return, {@code false} otherwise.
+     */
+    private static boolean isSeparator(char c) {
+        return c == '\t' || c == ',' || c == ' ' || c == '\r';
+    }
+}
@@ -0,0 +1,1349 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A small benchmark harness for the graph classes.
+ * <p>
+ * Each benchmark prints one line per measured size so results can be compared between runs.
+ * Sizes are kept moderate so the whole harness runs in a few seconds on a laptop.
+ */
+
+public class GraphBenchmark {
+
+    /**
+     * Seed used for every randomly generated workload, so runs are comparable.
+     */
+    static final long SEED = 42L;
+
+    /**
+     * Measures how long it takes to bulk-load a {@link DirectedGraph} through {@link DirectedGraph#addEdge(String, String)}.
+     * <p>
+     * With the value-to-node index every insert is constant-time, so the time per edge should
+     * stay roughly flat while the edge count doubles.
+     *
+     * @param edgeCounts The edge counts to measure.
+     */
+    static void benchmarkLoad(int... edgeCounts) {
+        System.out.println("load: edges, millis, nanos/edge");
+        for (int edges : edgeCounts) {
+            int nodes = Math.max(1, edges / 4);
+            String[] values = new String[nodes];
+            for (int i = 0; i < nodes; i++) {
+                values[i] = "Node" + i;
+            }
+
+            Random random = new Random(SEED);
+            long start = System.nanoTime();
+            DirectedGraph graph = new DirectedGraph();
+            for (int i = 0; i < edges; i++) {
+                graph.addEdge(values[random.nextInt(nodes)], values[random.nextInt(nodes)]);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("load: %d, %d, %.1f%n", edges, elapsed / 1_000_000, (double) elapsed / edges);
+        }
+    }
+
+    /**
+     * Compares the heap used per edge by the map-based {@link BiDiGraph} and by its frozen {@link CsrGraph}.
+     * <p>
+     * Both figures are heap deltas measured after a full collection, and both exclude the node value strings,
+     * which are shared with the generated adjacency list.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     */
+    static void benchmarkMemory(int nodes, int maxEdgesPerNode) {
+        Map<String, List<String>> adjacencyList = randomAdjacencyList(nodes, maxEdgesPerNode);
+        long edges = adjacencyList.values().stream().mapToLong(List::size).sum();
+
+        long before = usedHeap();
+        BiDiGraph graph = new BiDiGraph(adjacencyList);
+        long mapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        CsrGraph csrGraph = CsrGraph.freeze(graph);
+        long csrBytes = usedHeap() - before;
+
+        System.out.println("memory: backend, edges, bytes, bytes/edge");
+        System.out.printf("memory: map, %d, %d, %.1f%n", edges, mapBytes, (double) mapBytes / edges);
+        System.out.printf("memory: csr, %d, %d, %.1f%n", edges, csrBytes, (double) csrBytes / edges);
+        System.out.printf("memory: csr-adjacency, %d, %d, %.1f%n", edges, csrGraph.adjacencyBytes(),
+                (double) csrGraph.adjacencyBytes() / edges);
+
+        // Keep both graphs reachable until both have been measured.
+        Objects.requireNonNull(graph);
+    }
+
+    /**
+     * Measures the throughput and the bytes allocated per query of {@link SearchKernel} on a frozen random graph.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param queries         The number of random queries to run.
+     */
+    static void benchmarkKernel(int nodes, int maxEdgesPerNode, int queries) {
+        CsrGraph graph = CsrGraph.freeze(new BiDiGraph(randomAdjacencyList(nodes, maxEdgesPerNode)));
+        SearchKernel kernel = new SearchKernel(graph);
+        Random random = new Random(SEED);
+        int[] pairs = new int[2 * queries];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(graph.nodeCount());
+        }
+
+        // Warm up the JIT and size the kernel's arrays.
+        runQueries(kernel, pairs);
+
+        long allocatedBefore = SearchStats.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        int found = runQueries(kernel, pairs);
+        long elapsed = System.nanoTime() - start;
+        long allocated = SearchStats.currentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.println("kernel: queries, found, micros/query, bytes/query");
+        System.out.printf("kernel: %d, %d, %.1f, %.1f%n", queries, found, elapsed / 1000.0 / queries, (double) allocated / queries);
+    }
+
+    /**
+     * Compares the cost of reachability, distance and path queries on the same frozen random graph.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param queries         The number of random queries to run per query type.
+     */
+    static void benchmarkPaths(int nodes, int maxEdgesPerNode, int queries) {
+        CsrGraph graph = CsrGraph.freeze(new BiDiGraph(randomAdjacencyList(nodes, maxEdgesPerNode)));
+        SearchKernel kernel = new SearchKernel(graph);
+
+        System.out.println("paths: query, micros/query, edges/query");
+        for (String query : List.of("search", "distance", "findPath", "search", "distance", "findPath")) {
+            Random random = new Random(SEED);
+            long edges = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                int src = random.nextInt(nodes);
+                int dest = random.nextInt(nodes);
+                switch (query) {
+                    case "search" -> kernel.search(src, dest);
+                    case "distance" -> kernel.distance(src, dest);
+                    default -> kernel.findPath(src, dest);
+                }
+                edges += kernel.getEdgesVisited();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("paths: %s, %.1f, %.0f%n", query, elapsed / 1000.0 / queries, (double) edges / queries);
+        }
+    }
+
+    /**
+     * Compares single-query latency of {@link SearchKernel} and {@link ParallelSearchKernel} on a large random graph.
+     * <p>
+     * The speedup depends on the number of cores; pass {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism}
+     * to vary it.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param queries         The number of random queries to run per kernel.
+     */
+    static void benchmarkParallel(int nodes, int maxEdgesPerNode, int queries) {
+        CsrGraph graph = CsrGraph.freeze(new BiDiGraph(randomAdjacencyList(nodes, maxEdgesPerNode)));
+        SearchKernel kernel = new SearchKernel(graph);
+        ParallelSearchKernel parallelKernel = new ParallelSearchKernel(graph, java.util.concurrent.ForkJoinPool.commonPool());
+
+        System.out.println("parallel: kernel, threads, queries, millis/query");
+        for (int round = 0; round < 2; round++) {
+            Random random = new Random(SEED);
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                kernel.search(random.nextInt(nodes), random.nextInt(nodes), BidirectionalSearch.Strategy.SMALLER_FRONTIER);
+            }
+            long sequential = System.nanoTime() - start;
+
+            random = new Random(SEED);
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                parallelKernel.search(random.nextInt(nodes), random.nextInt(nodes));
+            }
+            long parallel = System.nanoTime() - start;
+
+            System.out.printf("parallel: sequential, 1, %d, %.2f%n", queries, sequential / 1e6 / queries);
+            System.out.printf("parallel: fork-join, %d, %d, %.2f%n", parallelKernel.pool.getParallelism(), queries,
+                    parallel / 1e6 / queries);
+        }
+    }
+
+    /**
+     * Compares top-down and direction-optimizing BFS on a low-diameter random graph, both as a single-source
+     * search and inside the bidirectional search.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param queries         The number of random queries to run per variant.
+     */
+    static void benchmarkDirectionOptimizing(int nodes, int maxEdgesPerNode, int queries) {
+        CsrGraph graph = CsrGraph.freeze(new BiDiGraph(randomAdjacencyList(nodes, maxEdgesPerNode)));
+        DirectionOptimizingBfs bfs = new DirectionOptimizingBfs(graph);
+        SearchKernel kernel = new SearchKernel(graph);
+
+        System.out.println("direction: variant, queries, edges/query, millis/query");
+        for (boolean directionOptimizing : new boolean[] {false, true}) {
+            Random random = new Random(SEED);
+            long edges = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                bfs.distances(random.nextInt(nodes), directionOptimizing);
+                edges += bfs.getEdgesVisited();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("direction: %s, %d, %.0f, %.2f%n", directionOptimizing ? "bfs-direction-optimizing" : "bfs-top-down",
+                    queries, (double) edges / queries, elapsed / 1e6 / queries);
+        }
+
+        for (BidirectionalSearch.Strategy strategy : List.of(BidirectionalSearch.Strategy.SMALLER_FRONTIER,
+                BidirectionalSearch.Strategy.DIRECTION_OPTIMIZING)) {
+            Random random = new Random(SEED);
+            long edges = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                kernel.search(random.nextInt(nodes), random.nextInt(nodes), strategy);
+                edges += kernel.getEdgesVisited();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("direction: search-%s, %d, %.0f, %.2f%n", strategy, queries, (double) edges / queries,
+                    elapsed / 1e6 / queries);
+        }
+    }
+
+    /**
+     * Compares looping {@link BidirectionalSearch#search(String, String)} with one
+     * {@link BidirectionalSearch#searchAll(Collection)} call on a workload where many pairs share a node.
+     * <p>
+     * Half of the pairs start at one of a few hundred hot sources, a quarter end at one of a few hundred
+     * hot destinations, and the rest are random.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param queries         The number of pairs in the workload.
+     */
+    static void benchmarkBatch(int nodes, int maxEdgesPerNode, int queries) {
+        CsrGraph graph = CsrGraph.freeze(new BiDiGraph(randomAdjacencyList(nodes, maxEdgesPerNode)));
+        BidirectionalSearch search = new BidirectionalSearch(graph);
+        Random random = new Random(SEED);
+        List<BidirectionalSearch.Pair> pairs = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            int kind = random.nextInt(4);
+            String src = "Node" + (kind < 2 ? random.nextInt(300) : random.nextInt(nodes));
+            String dest = "Node" + (kind == 2 ? random.nextInt(300) : random.nextInt(nodes));
+            pairs.add(new BidirectionalSearch.Pair(src, dest));
+        }
+
+        System.out.println("batch: mode, pairs, found, millis, pairs/second");
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            int found = 0;
+            for (BidirectionalSearch.Pair pair : pairs) {
+                if (search.search(pair.src(), pair.dest())) {
+                    found++;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("batch: loop, %d, %d, %d, %.0f%n", queries, found, elapsed / 1_000_000, queries / (elapsed / 1e9));
+
+            start = System.nanoTime();
+            found = 0;
+            for (boolean result : search.searchAll(pairs)) {
+                if (result) {
+                    found++;
+                }
+            }
+            elapsed = System.nanoTime() - start;
+            System.out.printf("batch: searchAll, %d, %d, %d, %.0f%n", queries, found, elapsed / 1_000_000, queries / (elapsed / 1e9));
+        }
+    }
+
+    /**
+     * Compares uncached and cached {@link BidirectionalSearch#findPath(String, String)} on a Zipfian query workload.
+     *
+     * @param nodes      The number of nodes in the generated graph.
+     * @param distinct   The number of distinct pairs the queries are drawn from.
+     * @param queries    The number of queries to run.
+     * @param maxEntries The size bound of the cache.
+     */
+    static void benchmarkCache(int nodes, int distinct, int queries, int maxEntries) {
+        BiDiGraph graph = new BiDiGraph(randomAdjacencyList(nodes, 3));
+        Random random = new Random(SEED);
+        String[] sources = new String[distinct];
+        String[] destinations = new String[distinct];
+        for (int i = 0; i < distinct; i++) {
+            sources[i] = "Node" + random.nextInt(nodes);
+            destinations[i] = "Node" + random.nextInt(nodes);
+        }
+
+        // Zipfian ranks with exponent 1, drawn by inverting the cumulative distribution
+        double[] cumulative = new double[distinct];
+        double sum = 0;
+        for (int i = 0; i < distinct; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        int[] workload = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            workload[i] = Math.min(distinct - 1, rank < 0 ? -rank - 1 : rank);
+        }
+
+        System.out.println("cache: mode, queries, micros/query, hits, misses, evictions");
+        for (int round = 0; round < 2; round++) {
+            for (boolean cached : new boolean[] {false, true}) {
+                BidirectionalSearch search = new BidirectionalSearch(graph);
+                SearchCache cache = new SearchCache(maxEntries);
+                if (cached) {
+                    search.setCache(cache);
+                }
+                long start = System.nanoTime();
+                for (int pair : workload) {
+                    search.findPath(sources[pair], destinations[pair]);
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("cache: %s, %d, %.1f, %d, %d, %d%n", cached ? "cached" : "uncached", queries,
+                        elapsed / 1000.0 / queries, cache.getHits(), cache.getMisses(), cache.getEvictions());
+            }
+        }
+    }
+
+    /**
+     * Compares the update throughput of incremental reverse-list maintenance with rebuilding the reverse list.
+     * <p>
+     * Both variants apply the same stream of edge additions and removals. The incremental variant relies on
+     * {@link BiDiGraph#addEdge(String, String)} and {@link BiDiGraph#removeEdge(String, String)}; the rebuild
+     * variant calls {@link BiDiGraph#reverse(Map)} after every batch of updates, which is how fresh reverse
+     * lists had to be obtained before.
+     *
+     * @param nodes        The number of nodes in the generated graph.
+     * @param updates      The number of updates to apply.
+     * @param rebuildEvery The number of updates between two rebuilds.
+     */
+    static void benchmarkUpdates(int nodes, int updates, int rebuildEvery) {
+        Map<String, List<String>> adjacencyList = randomAdjacencyList(nodes, 5);
+
+        System.out.println("updates: mode, updates, millis, updates/second, consistent");
+        for (int round = 0; round < 2; round++) {
+            for (boolean incremental : new boolean[] {true, false}) {
+                BiDiGraph graph = new BiDiGraph(adjacencyList);
+                Random random = new Random(SEED);
+                long start = System.nanoTime();
+                for (int i = 0; i < updates; i++) {
+                    String src = "Node" + random.nextInt(nodes);
+                    String dest = "Node" + random.nextInt(nodes);
+                    if (random.nextBoolean()) {
+                        graph.addEdge(src, dest);
+                    } else {
+                        graph.removeEdge(src, dest);
+                    }
+                    if (!incremental && (i + 1) % rebuildEvery == 0) {
+                        graph.reverse(graph.adjList);
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("updates: %s, %d, %d, %.0f, %b%n", incremental ? "incremental" : "rebuild-" + rebuildEvery,
+                        updates, elapsed / 1_000_000, updates / (elapsed / 1e9), graph.isConsistent());
+            }
+        }
+    }
+
+    /**
+     * Stress-tests {@link ConcurrentGraph} with reader threads searching while a writer thread adds and removes edges.
+     * <p>
+     * Readers count their searches and check that every snapshot they pin is consistent; the run fails loudly on
+     * any exception or inconsistent snapshot. Read throughput is reported with and without the writer.
+     *
+     * @param nodes   The number of nodes in the generated graph.
+     * @param readers The number of reader threads.
+     * @param millis  How long each phase runs.
+     * @throws InterruptedException If the benchmark thread is interrupted while waiting for the workers.
+     */
+    static void benchmarkConcurrent(int nodes, int readers, long millis) throws InterruptedException {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        graph.addEdges(randomAdjacencyList(nodes, 3));
+
+        System.out.println("concurrent: phase, readers, searches/second, writes/second");
+        for (boolean writing : new boolean[] {false, true, false, true}) {
+            java.util.concurrent.atomic.AtomicBoolean running = new java.util.concurrent.atomic.AtomicBoolean(true);
+            java.util.concurrent.atomic.AtomicLong searches = new java.util.concurrent.atomic.AtomicLong();
+            java.util.concurrent.atomic.AtomicLong writes = new java.util.concurrent.atomic.AtomicLong();
+            java.util.concurrent.ConcurrentLinkedQueue<Throwable> failures = new java.util.concurrent.ConcurrentLinkedQueue<>();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int r = 0; r < readers; r++) {
+                long seed = SEED + r;
+                threads.add(new Thread(() -> {
+                    Random random = new Random(seed);
+                    try {
+                        while (running.get()) {
+                            graph.search("Node" + random.nextInt(nodes), "Node" + random.nextInt(nodes));
+                            if (searches.incrementAndGet() % 10_000 == 0 && !graph.snapshot().isConsistent()) {
+                                throw new IllegalStateException("Inconsistent snapshot");
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            if (writing) {
+                threads.add(new Thread(() -> {
+                    Random random = new Random(SEED - 1);
+                    try {
+                        while (running.get()) {
+                            String src = "Node" + random.nextInt(nodes);
+                            String dest = "Node" + random.nextInt(nodes);
+                            if (random.nextBoolean()) {
+                                graph.addEdge(src, dest);
+                            } else {
+                                graph.removeEdge(src, dest);
+                            }
+                            writes.incrementAndGet();
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+
+            threads.forEach(Thread::start);
+            Thread.sleep(millis);
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("Concurrent stress test failed", failures.peek());
+            }
+
+            System.out.printf("concurrent: %s, %d, %.0f, %.0f%n", writing ? "with-writer" : "read-only", readers,
+                    searches.get() * 1000.0 / millis, writes.get() * 1000.0 / millis);
+        }
+    }
+
+    /**
+     * Compares building a searchable graph from an in-memory adjacency list with opening a {@link MappedGraph} file.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @param queries         The number of random queries to run on each graph.
+     * @throws java.io.IOException If the temporary graph file cannot be written or read.
+     */
+    static void benchmarkMapped(int nodes, int maxEdgesPerNode, int queries) throws java.io.IOException {
+        Map<String, List<String>> adjacencyList = randomAdjacencyList(nodes, maxEdgesPerNode);
+        java.nio.file.Path path = java.nio.file.Files.createTempFile("graph", ".bin");
+        try {
+            long start = System.nanoTime();
+            CsrGraph csrGraph = CsrGraph.freeze(new BiDiGraph(adjacencyList));
+            long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+            MappedGraph.write(csrGraph, path);
+            start = System.nanoTime();
+            MappedGraph mappedGraph = MappedGraph.open(path);
+            long openMicros = (System.nanoTime() - start) / 1000;
+
+            System.out.println("mapped: backend, file bytes, startup, micros/query");
+            for (IntGraph graph : List.of(csrGraph, mappedGraph, csrGraph, mappedGraph)) {
+                BidirectionalSearch search = new BidirectionalSearch(graph);
+                Random random = new Random(SEED);
+                start = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    search.search("Node" + random.nextInt(nodes), "Node" + random.nextInt(nodes));
+                }
+                long elapsed = System.nanoTime() - start;
+                boolean mapped = graph == mappedGraph;
+                System.out.printf("mapped: %s, %d, %s, %.1f%n", mapped ? "mapped" : "csr-from-map",
+                        java.nio.file.Files.size(path), mapped ? openMicros + " us" : buildMillis + " ms",
+                        elapsed / 1000.0 / queries);
+            }
+        } finally {
+            java.nio.file.Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Compares loading a gzip-compressed edge list with {@link EdgeListLoader} against reading it into a string map
+     * and building a {@link BiDiGraph} and a {@link CsrGraph} from that map.
+     *
+     * @param nodes           The number of nodes in the generated graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @throws java.io.IOException If the temporary edge-list file cannot be written or read.
+     */
+    static void benchmarkLoader(int nodes, int maxEdgesPerNode) throws java.io.IOException {
+        java.nio.file.Path path = java.nio.file.Files.createTempFile("edges", ".tsv.gz");
+        try {
+            try (Writer writer = new OutputStreamWriter(new java.util.zip.GZIPOutputStream(
+                    java.nio.file.Files.newOutputStream(path)), java.nio.charset.StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, List<String>> entry
+                        : randomAdjacencyList(nodes, maxEdgesPerNode).entrySet()) {
+                    for (String neighbor : entry.getValue()) {
+                        writer.write(entry.getKey() + "\t" + neighbor + "\n");
+                    }
+                }
+            }
+
+            System.out.println("loader: mode, edges, millis, peak heap MB");
+            for (int round = 0; round < 2; round++) {
+                long baseline = resetPeakHeap();
+                long start = System.nanoTime();
+                CsrGraph streamed = EdgeListLoader.load(path, EdgeListLoader.Format.EDGE_LIST);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("loader: streaming, %d, %d, %d%n", streamed.edgeCount(), elapsed / 1_000_000,
+                        (peakHeap() - baseline) >> 20);
+                streamed = null;
+
+                baseline = resetPeakHeap();
+                start = System.nanoTime();
+                Map<String, List<String>> adjacencyList = new HashMap<>();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new java.util.zip.GZIPInputStream(
+                        java.nio.file.Files.newInputStream(path)), java.nio.charset.StandardCharsets.UTF_8))) {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        int tab = line.indexOf('\t');
+                        adjacencyList.computeIfAbsent(line.substring(0, tab), k -> new ArrayList<>()).add(line.substring(tab + 1));
+                    }
+                }
+                CsrGraph fromMap = CsrGraph.freeze(new BiDiGraph(adjacencyList));
+                elapsed = System.nanoTime() - start;
+                System.out.printf("loader: string-map, %d, %d, %d%n", fromMap.edgeCount(), elapsed / 1_000_000,
+                        (peakHeap() - baseline) >> 20);
+            }
+        } finally {
+            java.nio.file.Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Collects garbage and resets the peak usage of every heap pool.
+     *
+     * @return The heap in use after the collection.
+     */
+    static long resetPeakHeap() {
+        long used = usedHeap();
+        for (java.lang.management.MemoryPoolMXBean pool : java.lang.management.ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == java.lang.management.MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Returns the sum of the peak usage of every heap pool since the last {@link GraphBenchmark#resetPeakHeap()}.
+     * This overestimates the true peak, since pools rarely peak at the same moment.
+     *
+     * @return The peak heap usage in bytes.
+     */
+    static long peakHeap() {
+        long peak = 0;
+        for (java.lang.management.MemoryPoolMXBean pool : java.lang.management.ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == java.lang.management.MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Compares reachability queries answered by a {@link ReachabilityIndex} with bidirectional searches, on a sparse
+     * random graph with many strongly connected components and on a power-law DAG.
+     *
+     * @param nodes   The number of nodes in each generated graph.
+     * @param queries The number of random queries to run per graph and method.
+     */
+    static void benchmarkIndex(int nodes, int queries) {
+        System.out.println("index: graph, components, build millis, index bytes/node, guided %, index micros/query, search micros/query");
+        Map<String, Map<String, List<String>>> graphs = new LinkedHashMap<>();
+        graphs.put("random", randomAdjacencyList(nodes, 2));
+        graphs.put("power-law", powerLawAdjacencyList(nodes, 3));
+        for (Map.Entry<String, Map<String, List<String>>> entry : graphs.entrySet()) {
+            CsrGraph graph = CsrGraph.freeze(new DirectedGraph(entry.getValue()));
+            long start = System.nanoTime();
+            ReachabilityIndex index = ReachabilityIndex.build(graph);
+            long build = System.nanoTime() - start;
+
+            SearchKernel kernel = new SearchKernel(graph);
+            int[] pairs = new int[2 * queries];
+            Random random = new Random(SEED);
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = random.nextInt(graph.nodeCount());
+            }
+
+            long indexNanos = 0;
+            long searchNanos = 0;
+            for (int round = 0; round < 2; round++) {
+                start = System.nanoTime();
+                for (int i = 0; i < pairs.length; i += 2) {
+                    index.isReachable(pairs[i], pairs[i + 1]);
+                }
+                indexNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < pairs.length; i += 2) {
+                    kernel.search(pairs[i], pairs[i + 1], BidirectionalSearch.Strategy.SMALLER_FRONTIER);
+                }
+                searchNanos = System.nanoTime() - start;
+            }
+
+            System.out.printf("index: %s, %d, %d, %.1f, %.1f, %.2f, %.2f%n", entry.getKey(), index.componentCount(),
+                    build / 1_000_000, (double) index.sizeBytes() / graph.nodeCount(),
+                    50.0 * index.getGuidedSearches() / queries, indexNanos / 1000.0 / queries, searchNanos / 1000.0 / queries);
+        }
+    }
+
+    /**
+     * Compares the sequential and the parallel computation of strongly connected components on a random graph,
+     * which has one giant component, and on a power-law DAG, whose components are all single nodes.
+     *
+     * @param nodes The number of nodes of each graph.
+     */
+    static void benchmarkComponents(int nodes) {
+        System.out.println("components: graph, components, tarjan millis, parallel millis, parallelism");
+        Map<String, Map<String, List<String>>> graphs = new LinkedHashMap<>();
+        graphs.put("random", randomAdjacencyList(nodes, 2));
+        graphs.put("power-law", powerLawAdjacencyList(nodes, 3));
+        for (Map.Entry<String, Map<String, List<String>>> entry : graphs.entrySet()) {
+            CsrGraph graph = CsrGraph.freeze(new DirectedGraph(entry.getValue()));
+            long tarjanNanos = 0;
+            long parallelNanos = 0;
+            int count = 0;
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                count = StronglyConnectedComponents.of(graph).count();
+                tarjanNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                StronglyConnectedComponents.parallel(graph);
+                parallelNanos = System.nanoTime() - start;
+            }
+            System.out.printf("components: %s, %d, %d, %d, %d%n", entry.getKey(), count, tarjanNanos / 1_000_000,
+                    parallelNanos / 1_000_000, ForkJoinPool.commonPool().getParallelism());
+        }
+    }
+
+    /**
+     * Drives a {@link QueryServer} with a local load generator that keeps a fixed number of random reachability
+     * queries in flight, and prints the throughput and the latency percentiles from submission to answer.
+     *
+     * @param nodes       The number of nodes of the random graph.
+     * @param concurrency The numbers of queries to keep in flight, one run each.
+     * @param queries     The number of queries per run.
+     */
+    static void benchmarkServer(int nodes, int[] concurrency, int queries) throws InterruptedException {
+        CsrGraph graph = CsrGraph.freeze(new DirectedGraph(randomAdjacencyList(nodes, 2)));
+        System.out.println("server: in flight, queries/s, p50 micros, p99 micros, max micros, rejected, timed out");
+        for (int inFlight : concurrency) {
+            try (QueryServer server = new QueryServer(graph)) {
+                long[] latencies = new long[queries];
+                Semaphore slots = new Semaphore(inFlight);
+                CountDownLatch done = new CountDownLatch(queries);
+                Random random = new Random(SEED);
+                long start = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    slots.acquire();
+                    int query = i;
+                    long submitted = System.nanoTime();
+                    server.search(random.nextInt(nodes), random.nextInt(nodes)).whenComplete((found, failure) -> {
+                        latencies[query] = System.nanoTime() - submitted;
+                        slots.release();
+                        done.countDown();
+                    });
+                }
+                done.await();
+                long elapsed = System.nanoTime() - start;
+
+                Arrays.sort(latencies);
+                System.out.printf("server: %d, %.0f, %.1f, %.1f, %.1f, %d, %d%n", inFlight, queries * 1e9 / elapsed,
+                        latencies[queries / 2] / 1000.0, latencies[(int) (queries * 0.99)] / 1000.0,
+                        latencies[queries - 1] / 1000.0, server.getRejected(), server.getTimedOut());
+            }
+        }
+    }
+
+    /**
+     * Compares hash and label propagation partitions of a random graph and a grid by their edge cut and by the
+     * messages and bytes a {@link ShardedSearch} exchanges per query over an {@link InProcessTransport}.
+     *
+     * @param nodes   The approximate number of nodes of each graph.
+     * @param shards  The number of shards.
+     * @param queries The number of random queries per partition.
+     */
+    static void benchmarkSharded(int nodes, int shards, int queries) {
+        System.out.println("sharded: graph, partitioner, edge cut %, messages/query, bytes/query, micros/query");
+        int side = (int) Math.sqrt(nodes);
+        Map<String, Map<String, List<String>>> graphs = new LinkedHashMap<>();
+        graphs.put("random", randomAdjacencyList(nodes, 2));
+        graphs.put("grid", gridAdjacencyList(side, side));
+        for (Map.Entry<String, Map<String, List<String>>> entry : graphs.entrySet()) {
+            CsrGraph graph = CsrGraph.freeze(new DirectedGraph(entry.getValue()));
+            Map<String, int[]> partitions = new LinkedHashMap<>();
+            partitions.put("hash", GraphPartitioner.byHash(graph, shards));
+            partitions.put("label propagation", GraphPartitioner.byLabelPropagation(graph, shards, 10));
+            for (Map.Entry<String, int[]> partition : partitions.entrySet()) {
+                int[] shardOf = partition.getValue();
+                ShardedSearch search = new ShardedSearch(new InProcessTransport(GraphShard.split(graph, shardOf, shards)), shardOf);
+                Random random = new Random(SEED);
+                long messages = 0;
+                long bytes = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    search.search(random.nextInt(graph.nodeCount()), random.nextInt(graph.nodeCount()));
+                    messages += search.getMessages();
+                    bytes += search.getBytes();
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("sharded: %s, %s, %.1f, %.1f, %d, %.1f%n", entry.getKey(), partition.getKey(),
+                        100.0 * GraphPartitioner.edgeCut(graph, shardOf) / graph.edgeCount(), (double) messages / queries,
+                        bytes / queries, elapsed / 1000.0 / queries);
+            }
+        }
+    }
+
+    /**
+     * Measures the write overhead of a {@link DurableGraph} per added edge against an in-memory {@link BiDiGraph},
+     * and its recovery time from the log alone and from a snapshot, against rebuilding the graph from scratch.
+     *
+     * @param nodes           The number of nodes of the random graph.
+     * @param maxEdgesPerNode The maximum out-degree of the random graph.
+     * @throws IOException If the temporary graph directory cannot be written or read.
+     */
+    static void benchmarkDurable(int nodes, int maxEdgesPerNode) throws IOException {
+        Map<String, List<String>> adjList = randomAdjacencyList(nodes, maxEdgesPerNode);
+        long start = System.nanoTime();
+        BiDiGraph memory = new BiDiGraph();
+        memory.convertStringMapToAdjacencyList(adjList);
+        long rebuild = System.nanoTime() - start;
+        long edges = memory.edgeCount();
+
+        java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("durable-graph");
+        try {
+            start = System.nanoTime();
+            long logBytes;
+            try (DurableGraph graph = DurableGraph.open(directory, Long.MAX_VALUE)) {
+                graph.convertStringMapToAdjacencyList(adjList);
+                graph.sync();
+                logBytes = graph.getLogBytes();
+            }
+            long durable = System.nanoTime() - start;
+
+            long fromLog;
+            try (DurableGraph graph = DurableGraph.open(directory, Long.MAX_VALUE)) {
+                fromLog = graph.getRecoveryNanos();
+                graph.snapshot();
+            }
+            long snapshotBytes = java.nio.file.Files.size(directory.resolve(DurableGraph.SNAPSHOT_FILE));
+            long fromSnapshot;
+            try (DurableGraph graph = DurableGraph.open(directory, Long.MAX_VALUE)) {
+                fromSnapshot = graph.getRecoveryNanos();
+            }
+
+            System.out.println("durable: edges, rebuild millis, write overhead ns/edge, log bytes/edge, "
+                    + "snapshot bytes/edge, log recovery millis, snapshot recovery millis");
+            System.out.printf("durable: %d, %d, %.0f, %.1f, %.1f, %d, %d%n", edges, rebuild / 1_000_000,
+                    (double) (durable - rebuild) / edges, (double) logBytes / edges, (double) snapshotBytes / edges,
+                    fromLog / 1_000_000, fromSnapshot / 1_000_000);
+        } finally {
+            for (String file : new String[]{DurableGraph.SNAPSHOT_FILE, DurableGraph.LOG_FILE}) {
+                java.nio.file.Files.deleteIfExists(directory.resolve(file));
+            }
+            java.nio.file.Files.delete(directory);
+        }
+    }
+
+    /**
+     * Compares a {@link CompressedGraph} under the original, BFS and degree orders with the uncompressed
+     * {@link CsrGraph}: bits per forward edge, adjacency size, and the time of random searches.
+     *
+     * @param nodes   The approximate number of nodes of each graph.
+     * @param queries The number of random queries per graph.
+     */
+    static void benchmarkCompressed(int nodes, int queries) {
+        System.out.println("compressed: graph, order, bits/edge, adjacency bytes/edge, csr micros/query, "
+                + "compressed micros/query, slowdown");
+        int side = (int) Math.sqrt(nodes);
+        Map<String, Map<String, List<String>>> graphs = new LinkedHashMap<>();
+        graphs.put("random", randomAdjacencyList(nodes, 10));
+        graphs.put("power-law", powerLawAdjacencyList(nodes, 5));
+        graphs.put("grid", gridAdjacencyList(side, side));
+        for (Map.Entry<String, Map<String, List<String>>> entry : graphs.entrySet()) {
+            CsrGraph csr = CsrGraph.freeze(new DirectedGraph(entry.getValue()));
+            Map<String, int[]> orders = new LinkedHashMap<>();
+            orders.put("original", null);
+            orders.put("bfs", NodeOrdering.bfs(csr));
+            orders.put("degree", NodeOrdering.degree(csr));
+            for (Map.Entry<String, int[]> order : orders.entrySet()) {
+                CompressedGraph compressed = order.getValue() == null ? CompressedGraph.compress(csr)
+                        : CompressedGraph.compress(csr, order.getValue());
+                String[] values = new String[2 * queries];
+                Random random = new Random(SEED);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = csr.valueOf(random.nextInt(csr.nodeCount()));
+                }
+
+                long[] nanos = new long[2];
+                IntGraph[] pair = {csr, compressed};
+                for (int round = 0; round < 2; round++) {
+                    for (int g = 0; g < pair.length; g++) {
+                        SearchKernel kernel = new SearchKernel(pair[g]);
+                        long start = System.nanoTime();
+                        for (int i = 0; i < values.length; i += 2) {
+                            kernel.search(pair[g].idOf(values[i]), pair[g].idOf(values[i + 1]),
+                                    BidirectionalSearch.Strategy.SMALLER_FRONTIER);
+                        }
+                        nanos[g] = System.nanoTime() - start;
+                    }
+                }
+                System.out.printf("compressed: %s, %s, %.2f, %.2f, %.1f, %.1f, %.2f%n", entry.getKey(), order.getKey(),
+                        compressed.bitsPerEdge(), (double) compressed.adjacencyBytes() / csr.edgeCount(),
+                        nanos[0] / 1000.0 / queries, nanos[1] / 1000.0 / queries, (double) nanos[1] / nanos[0]);
+            }
+        }
+    }
+
+    /**
+     * Relabels a {@link BiDiGraph} under every {@link NodeOrdering} and compares the locality and traversal speed of
+     * the resulting {@link CsrGraph}s: the average log2 gap between neighbor ids, the cache-line misses of a full
+     * breadth-first traversal replayed through {@link GraphBenchmark#simulatedMisses(CsrGraph)}, the time of that
+     * traversal, and the time of random bidirectional searches.
+     *
+     * @param nodes   The number of nodes of each graph.
+     * @param queries The number of random queries per order.
+     */
+    static void benchmarkReordering(int nodes, int queries) {
+        System.out.println("reordering: graph, order, order millis, log2 gap, misses/edge, traversal millis, "
+                + "micros/query");
+        int side = (int) Math.sqrt(nodes);
+        Map<String, Map<String, List<String>>> graphs = new LinkedHashMap<>();
+        graphs.put("random", randomAdjacencyList(nodes, 10));
+        graphs.put("power-law", powerLawAdjacencyList(nodes, 5));
+        graphs.put("grid", gridAdjacencyList(side, side));
+        for (Map.Entry<String, Map<String, List<String>>> entry : graphs.entrySet()) {
+            BiDiGraph graph = new BiDiGraph(entry.getValue());
+            String[] values = new String[2 * queries];
+            Random random = new Random(SEED);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = graph.valueOf(random.nextInt(graph.nodeCount()));
+            }
+
+            for (String order : new String[]{"original", "bfs", "rcm", "degree", "gorder-lite"}) {
+                long start = System.nanoTime();
+                int[] rank = switch (order) {
+                    case "bfs" -> NodeOrdering.bfs(graph);
+                    case "rcm" -> NodeOrdering.rcm(graph);
+                    case "degree" -> NodeOrdering.degree(graph);
+                    case "gorder-lite" -> NodeOrdering.gorderLite(graph, NodeOrdering.DEFAULT_WINDOW);
+                    default -> {
+                        int[] identity = new int[graph.nodeCount()];
+                        for (int id = 0; id < identity.length; id++) {
+                            identity[id] = id;
+                        }
+                        yield identity;
+                    }
+                };
+                long orderNanos = System.nanoTime() - start;
+                CsrGraph relabeled = CsrGraph.relabel(graph, rank);
+
+                double gaps = 0;
+                for (int id = 0; id < relabeled.nodeCount(); id++) {
+                    for (int i = relabeled.offsets[id]; i < relabeled.offsets[id + 1]; i++) {
+                        gaps += Math.log(Math.abs(relabeled.targets[i] - id) + 1) / Math.log(2);
+                    }
+                }
+                long misses = simulatedMisses(relabeled);
+
+                long traversalNanos = 0;
+                long queryNanos = 0;
+                for (int round = 0; round < 2; round++) {
+                    start = System.nanoTime();
+                    traverse(relabeled);
+                    traversalNanos = System.nanoTime() - start;
+
+                    SearchKernel kernel = new SearchKernel(relabeled);
+                    start = System.nanoTime();
+                    for (int i = 0; i < values.length; i += 2) {
+                        kernel.search(relabeled.idOf(values[i]), relabeled.idOf(values[i + 1]),
+                                BidirectionalSearch.Strategy.SMALLER_FRONTIER);
+                    }
+                    queryNanos = System.nanoTime() - start;
+                }
+                long edges = Math.max(1, relabeled.edgeCount());
+                System.out.printf("reordering: %s, %s, %d, %.2f, %.3f, %d, %.1f%n", entry.getKey(), order,
+                        orderNanos / 1_000_000, gaps / edges, (double) misses / edges, traversalNanos / 1_000_000,
+                        queryNanos / 1000.0 / queries);
+            }
+        }
+    }
+
+    /**
+     * Visits every node of a CSR graph breadth-first along forward edges, starting a new search from the lowest
+     * unvisited id whenever one runs out.
+     *
+     * @param graph The graph.
+     * @return The number of edges scanned, so the work is not optimized away.
+     */
+    private static long traverse(CsrGraph graph) {
+        int nodes = graph.nodeCount();
+        boolean[] visited = new boolean[nodes];
+        int[] queue = new int[nodes];
+        long scanned = 0;
+        int tail = 0;
+        for (int root = 0; root < nodes; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            visited[root] = true;
+            int head = tail;
+            queue[tail++] = root;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+                    int neighbor = graph.targets[i];
+                    scanned++;
+                    if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return scanned;
+    }
+
+    /**
+     * Replays the random accesses of {@link GraphBenchmark#traverse(CsrGraph)} through a model of a 256 KiB
+     * direct-mapped cache of 64-byte lines and counts its misses. The model stands in for hardware cache
+     * counters, which a benchmark cannot read portably: it counts the loads of every visited node's offsets and
+     * first targets, and of every neighbor's visited mark, which are the accesses an ordering moves around.
+     *
+     * @param graph The graph.
+     * @return The number of simulated cache-line misses.
+     */
+    static long simulatedMisses(CsrGraph graph) {
+        int lines = 1 << 12;
+        long[] tags = new long[lines];
+        Arrays.fill(tags, -1);
+        int nodes = graph.nodeCount();
+        boolean[] visited = new boolean[nodes];
+        int[] queue = new int[nodes];
+        long misses = 0;
+        int tail = 0;
+        for (int root = 0; root < nodes; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            visited[root] = true;
+            int head = tail;
+            queue[tail++] = root;
+            while (head < tail) {
+                int node = queue[head++];
+                // Lay the arrays out one after the other: offsets, then targets, then one mark byte per node
+                misses += touch(tags, 4L * node);
+                misses += touch(tags, 4L * (nodes + 1 + graph.offsets[node]));
+                for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+                    int neighbor = graph.targets[i];
+                    misses += touch(tags, 4L * (nodes + 1 + graph.targets.length) + neighbor);
+                    if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Loads an address into the direct-mapped cache model.
+     *
+     * @param tags    The line held by every slot of the cache.
+     * @param address The byte address.
+     * @return {@code 1} on a miss, {@code 0} on a hit.
+     */
+    private static int touch(long[] tags, long address) {
+        long line = address >>> 6;
+        int slot = (int) (line & (tags.length - 1));
+        if (tags[slot] == line) {
+            return 0;
+        }
+        tags[slot] = line;
+        return 1;
+    }
+
+    /**
+     * Loads a skewed graph with many repeated edges into a {@link BiDiGraph}, whose {@link NeighborSet}s store every
+     * edge once, then grows one hub edge by edge and compares edge lookups in it against a linear scan of the same
+     * neighbors in an {@link ArrayList}.
+     *
+     * @param nodes     The number of nodes of the graph.
+     * @param maxDegree The largest out-degree drawn for a node, before duplicates are dropped.
+     * @param hubDegree The number of edges drawn for the hub.
+     * @param lookups   The number of random edge lookups per container.
+     */
+    static void benchmarkNeighborSets(int nodes, int maxDegree, int hubDegree, int lookups) {
+        Map<String, List<String>> adjacencyList = skewedAdjacencyList(nodes, maxDegree);
+        long drawn = 0;
+        for (List<String> neighbors : adjacencyList.values()) {
+            drawn += neighbors.size();
+        }
+        long start = System.nanoTime();
+        BiDiGraph graph = new BiDiGraph(adjacencyList);
+        long loadNanos = System.nanoTime() - start;
+        System.out.printf("neighbor sets: drawn edges %d, stored edges %d, load millis %d%n", drawn,
+                graph.edgeCount(), loadNanos / 1_000_000);
+
+        Random random = new Random(SEED);
+        start = System.nanoTime();
+        for (int i = 0; i < hubDegree; i++) {
+            graph.addEdge("Hub", "Node" + random.nextInt(nodes));
+        }
+        long hubNanos = System.nanoTime() - start;
+        List<Node> scanned = new ArrayList<>(graph.getNeighbors(graph.getNode("Hub")));
+        System.out.printf("neighbor sets: hub edges drawn %d, stored %d, nanos/addEdge %.0f%n", hubDegree,
+                scanned.size(), (double) hubNanos / hubDegree);
+
+        String[] dests = new String[lookups];
+        for (int i = 0; i < lookups; i++) {
+            dests[i] = "Node" + random.nextInt(nodes);
+        }
+        System.out.println("neighbor sets: container, hub degree, lookup nanos, hits");
+        for (int round = 0; round < 2; round++) {
+            for (boolean set : new boolean[]{false, true}) {
+                int hits = 0;
+                start = System.nanoTime();
+                for (String dest : dests) {
+                    if (set ? graph.hasEdge("Hub", dest) : scanned.contains(graph.getNode(dest))) {
+                        hits++;
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("neighbor sets: %s, %d, %.1f, %d%n", set ? "neighbor set" : "array list scan",
+                        scanned.size(), (double) elapsed / lookups, hits);
+            }
+        }
+    }
+
+    /**
+     * Compares unbounded bidirectional searches with hop-bounded ones on a power-law DAG, where most random pairs
+     * are unreachable and an unbounded miss explores everything its source reaches, then times a lazily streamed
+     * k-hop neighborhood of the largest hub with and without a result limit.
+     *
+     * @param nodes   The number of nodes of the graph.
+     * @param queries The number of random queries per budget.
+     * @param budgets The hop budgets to compare, one run each.
+     */
+    static void benchmarkBounded(int nodes, int queries, int[] budgets) {
+        BiDiGraph graph = new BiDiGraph(powerLawAdjacencyList(nodes, 3));
+        SearchKernel kernel = new SearchKernel(graph);
+        int[] pairs = new int[2 * queries];
+        Random random = new Random(SEED);
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(graph.nodeCount());
+        }
+
+        System.out.println("bounded: max hops, found, edges/query, p50 micros, p99 micros, max micros");
+        long[] latencies = new long[queries];
+        for (int round = 0; round < 2; round++) {
+            for (int b = -1; b < budgets.length; b++) {
+                int found = 0;
+                long edges = 0;
+                for (int i = 0; i < queries; i++) {
+                    long start = System.nanoTime();
+                    boolean hit = b < 0 ? kernel.search(pairs[2 * i], pairs[2 * i + 1],
+                            BidirectionalSearch.Strategy.SMALLER_FRONTIER)
+                            : kernel.searchWithin(pairs[2 * i], pairs[2 * i + 1], budgets[b]);
+                    latencies[i] = System.nanoTime() - start;
+                    edges += kernel.getEdgesVisited();
+                    if (hit) {
+                        found++;
+                    }
+                }
+                Arrays.sort(latencies);
+                System.out.printf("bounded: %s, %d, %.0f, %.1f, %.1f, %.1f%n", b < 0 ? "none" : budgets[b], found,
+                        (double) edges / queries, latencies[queries / 2] / 1000.0,
+                        latencies[(int) (queries * 0.99)] / 1000.0, latencies[queries - 1] / 1000.0);
+            }
+        }
+
+        // Every edge points to an older node, so the in-neighborhood of the first node is the largest one
+        String hub = "Node0";
+        System.out.println("neighborhood: max hops, limit, results, micros");
+        for (int round = 0; round < 2; round++) {
+            for (long limit : new long[]{Long.MAX_VALUE, 100}) {
+                long start = System.nanoTime();
+                long results = graph.neighborhood(hub, 3, false).limit(limit).count();
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("neighborhood: 3, %s, %d, %.1f%n", limit == Long.MAX_VALUE ? "none" : limit, results,
+                        elapsed / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Compares the nodes settled by landmark-guided bidirectional A* ({@link AltSearch}) and by plain
+     * bidirectional Dijkstra on a road-like weighted grid.
+     *
+     * @param side      The number of rows and columns of the grid.
+     * @param landmarks The number of landmarks.
+     * @param queries   The number of random queries to run per search.
+     */
+    static void benchmarkAlt(int side, int landmarks, int queries) {
+        WeightedGraph graph = roadNetwork(side);
+        long start = System.nanoTime();
+        AltSearch search = new AltSearch(graph, landmarks);
+        long preprocessing = System.nanoTime() - start;
+
+        System.out.println("alt: search, nodes, landmarks, preprocessing millis, settled/query, micros/query");
+        for (int round = 0; round < 2; round++) {
+            for (boolean alt : new boolean[]{false, true}) {
+                Random random = new Random(SEED);
+                long settled = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    String src = "Node" + random.nextInt(side * side);
+                    String dest = "Node" + random.nextInt(side * side);
+                    if (alt) {
+                        search.distance(src, dest);
+                    } else {
+                        search.dijkstraDistance(src, dest);
+                    }
+                    settled += search.getSettledNodes();
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("alt: %s, %d, %d, %d, %.0f, %.1f%n", alt ? "alt" : "dijkstra", graph.nodeCount(),
+                        landmarks, preprocessing / 1_000_000, (double) settled / queries, elapsed / 1000.0 / queries);
+            }
+        }
+    }
+
+    /**
+     * Generates a road-like weighted graph: a grid whose neighboring cells are linked in both directions by
+     * roads of random length, with one direction of a quarter of the vertical roads missing, like one-way streets.
+     *
+     * @param side The number of rows and columns of the grid.
+     * @return The generated graph.
+     */
+    private static WeightedGraph roadNetwork(int side) {
+        Random random = new Random(SEED);
+        WeightedGraph graph = new WeightedGraph();
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                String node = "Node" + (row * side + column);
+                if (column + 1 < side) {
+                    String right = "Node" + (row * side + column + 1);
+                    graph.addEdge(node, right, 1 + 9 * random.nextDouble());
+                    graph.addEdge(right, node, 1 + 9 * random.nextDouble());
+                }
+                if (row + 1 < side) {
+                    String down = "Node" + ((row + 1) * side + column);
+                    graph.addEdge(node, down, 1 + 9 * random.nextDouble());
+                    if (random.nextInt(4) > 0) {
+                        graph.addEdge(down, node, 1 + 9 * random.nextDouble());
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Compares the edges examined by each {@link BidirectionalSearch.Strategy} on a graph with skewed degrees.
+     *
+     * @param nodes   The number of nodes in the generated graph.
+     * @param queries The number of random queries to run per strategy.
+     */
+    static void benchmarkStrategies(int nodes, int queries) {
+        CsrGraph graph = CsrGraph.freeze(new DirectedGraph(skewedAdjacencyList(nodes, 200)));
+        SearchKernel kernel = new SearchKernel(graph);
+
+        System.out.println("strategy: name, queries, found, edges/query, micros/query");
+        for (BidirectionalSearch.Strategy strategy : BidirectionalSearch.Strategy.values()) {
+            Random random = new Random(SEED);
+            long edges = 0;
+            int found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                if (kernel.search(random.nextInt(nodes), random.nextInt(nodes), strategy)) {
+                    found++;
+                }
+                edges += kernel.getEdgesVisited();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("strategy: %s, %d, %d, %.0f, %.1f%n", strategy, queries, found,
+                    (double) edges / queries, elapsed / 1000.0 / queries);
+        }
+    }
+
+    /**
+     * Generates the random graph of {@link DirectedGraph#generateRandomAdjacencyList(int, int, Random)}, seeded with
+     * {@link GraphBenchmark#SEED} so every run measures the same graph.
+     *
+     * @param nodes           The number of nodes in the graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @return The generated adjacency list.
+     */
+    static Map<String, List<String>> randomAdjacencyList(int nodes, int maxEdgesPerNode) {
+        return new DirectedGraph().generateRandomAdjacencyList(nodes, maxEdgesPerNode, new Random(SEED));
+    }
+
+    /**
+     * Generates the random graph of {@link BiDiGraph#generateRandomAdjacencyList(int, int, Random)}, in which every
+     * edge has a backward edge, seeded with {@link GraphBenchmark#SEED}.
+     *
+     * @param nodes           The number of nodes in the graph.
+     * @param maxEdgesPerNode The maximum number of edges each node can have.
+     * @return The generated adjacency list.
+     */
+    static Map<String, List<String>> randomBidiAdjacencyList(int nodes, int maxEdgesPerNode) {
+        return new BiDiGraph().generateRandomAdjacencyList(nodes, maxEdgesPerNode, new Random(SEED));
+    }
+
+    /**
+     * Generates a power-law graph by preferential attachment.
+     * <p>
+     * Nodes are added one at a time, and each new node links to {@code edgesPerNode} earlier nodes chosen with a
+     * probability proportional to their degree, so the in-degrees follow a power law with a few large hubs. Every
+     * edge points from a newer node to an older one, so the graph is acyclic and many pairs are unreachable.
+     *
+     * @param nodes        The number of nodes in the graph.
+     * @param edgesPerNode The number of edges added with every node.
+     * @return The generated adjacency list.
+     */
+    static Map<String, List<String>> powerLawAdjacencyList(int nodes, int edgesPerNode) {
+        Random random = new Random(SEED);
+        Map<String, List<String>> adjacencyList = new HashMap<>();
+        // Every endpoint of every edge so far, so a uniform pick from it is proportional to degree
+        int[] endpoints = new int[2 * nodes * edgesPerNode + 2];
+        int size = 0;
+        for (int i = 0; i < nodes; i++) {
+            List<String> neighbors = new ArrayList<>(edgesPerNode);
+            if (i > 0) {
+                for (int j = 0; j < edgesPerNode; j++) {
+                    int target = size == 0 ? 0 : endpoints[random.nextInt(size)];
+                    neighbors.add("Node" + target);
+                    endpoints[size++] = target;
+                    endpoints[size++] = i;
+                }
+            }
+            adjacencyList.put("Node" + i, neighbors);
+        }
+        return adjacencyList;
+    }
+
+    /**
+     * Generates a directed grid whose edges point right and down, so the distance between two nodes is their
+     * Manhattan distance and a node is only reachable from nodes above and to the left of it.
+     *
+     * @param rows    The number of rows of the grid.
+     * @param columns The number of columns of the grid.
+     * @return The generated adjacency list.
+     */
+    static Map<String, List<String>> gridAdjacencyList(int rows, int columns) {
+        Map<String, List<String>> adjacencyList = new HashMap<>();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                List<String> neighbors = new ArrayList<>(2);
+                if (column + 1 < columns) {
+                    neighbors.add("Node" + (row * columns + column + 1));
+                }
+                if (row + 1 < rows) {
+                    neighbors.add("Node" + ((row + 1) * columns + column));
+                }
+                adjacencyList.put("Node" + (row * columns + column), neighbors);
+            }
+        }
+        return adjacencyList;
+    }
+
+    /**
+     * Generates an adjacency list whose out-degrees and in-degrees are both heavily skewed,
+     * so a few hubs hold most of the edges.
+     *
+     * @param nodes     The number of nodes in the graph.
+     * @param maxDegree The largest out-degree of a node.
+     * @return The generated adjacency list.
+     */
+    private static Map<String, List<String>> skewedAdjacencyList(int nodes, int maxDegree) {
+        Random random = new Random(SEED);
+        Map<String, List<String>> adjacencyList = new HashMap<>();
+        for (int i = 0; i < nodes; i++) {
+            int edges = 1 + (int) (maxDegree * Math.pow(random.nextDouble(), 8));
+            List<String> neighbors = new ArrayList<>(edges);
+            for (int j = 0; j < edges; j++) {
+                neighbors.add("Node" + (int) (nodes * Math.pow(random.nextDouble(), 4)));
+            }
+            adjacencyList.put("Node" + i, neighbors);
+        }
+        return adjacencyList;
+    }
+
+    /**
+     * Runs a batch of kernel queries.
+     *
+     * @param kernel The kernel to query.
+     * @param pairs  The source and destination ids, interleaved.
+     * @return The number of queries that found a path.
+     */
+    private static int runQueries(SearchKernel kernel, int[] pairs) {
+        int found = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (kernel.search(pairs[i], pairs[i + 1])) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the heap currently in use, after asking for a full collection.
+     *
+     * @return The used heap in bytes.
+     */
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs every benchmark in this harness.
+     *
+     * @param args The command-line arguments (not used in this implementation).
+     * @throws InterruptedException If the benchmark thread is interrupted while waiting for worker threads.
+     * @throws java.io.IOException  If a temporary graph file cannot be written or read.
+     */
+    public static void main(String[] args) throws InterruptedException, java.io.IOException {
+        // Warm up the JIT before measuring.
+        benchmarkLoad(100_000);
+        benchmarkLoad(250_000, 500_000, 1_000_000, 2_000_000);
+        benchmarkMemory(200_000, 10);
+        benchmarkKernel(200_000, 3, 20_000);
+        benchmarkStrategies(200_000, 2_000);
+        benchmarkPaths(200_000, 3, 20_000);
+        benchmarkParallel(1_000_000, 10, 50);
+        benchmarkDirectionOptimizing(500_000, 32, 20);
+        benchmarkBatch(200_000, 3, 100_000);
+        benchmarkCache(200_000, 100_000, 50_000, 10_000);
+        benchmarkUpdates(200_000, 20_000, 1_000);
+        benchmarkConcurrent(200_000, 4, 2_000);
+        benchmarkMapped(1_000_000, 10, 20_000);
+        benchmarkLoader(500_000, 10);
+        benchmarkAlt(500, 8, 200);
+        benchmarkIndex(1_000_000, 20_000);
+        benchmarkComponents(1_000_000);
+        benchmarkServer(1_000_000, new int[]{1, 1_000, 4_000}, 100_000);
+        benchmarkSharded(250_000, 8, 1_000);
+        benchmarkDurable(500_000, 10);
+        benchmarkCompressed(500_000, 1_000);
+        benchmarkReordering(500_000, 1_000);
+        benchmarkNeighborSets(200_000, 200, 100_000, 20_000);
+        benchmarkBounded(500_000, 5_000, new int[]{2, 3, 4, 6});
+    }
+}
@@ -0,0 +1,296 @@
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One shard of a partitioned graph: the forward and reverse adjacency lists of the nodes it owns, and the search
+ * state of those nodes for every running {@link ShardedSearch} query.
+ * <p>
+ * Node ids are the global ids of the graph that was split; neighbors owned by other shards are kept as plain ids,
+ * so a shard needs nothing but its own nodes. A shard answers two requests, both encoded as bytes so they can
+ * travel over any {@link ShardTransport}:
+ * <ul>
+ *     <li>{@code EXPAND}: marks a batch of candidate nodes as reached by one side of a query, reports whether any
+ *     of them had already been reached by the other side, and returns the neighbors of the newly reached ones in
+ *     that side's direction.</li>
+ *     <li>{@code RELEASE}: forgets the state of a finished query.</li>
+ * </ul>
+ */
+
+public class GraphShard {
+
+    /**
+     * The request type that expands a batch of forward candidates.
+     */
+    static final byte EXPAND_FORWARD = 1;
+
+    /**
+     * The request type that expands a batch of reverse candidates.
+     */
+    static final byte EXPAND_REVERSE = 2;
+
+    /**
+     * The request type that forgets a query.
+     */
+    static final byte RELEASE = 3;
+
+    /**
+     * The size of a request without its node ids: type, query id and count.
+     */
+    static final int REQUEST_HEADER_BYTES = Byte.BYTES + Long.BYTES + Integer.BYTES;
+
+    /**
+     * The size of a response without its node ids: met flag and count.
+     */
+    static final int RESPONSE_HEADER_BYTES = Byte.BYTES + Integer.BYTES;
+
+    /**
+     * The number of this shard.
+     */
+    private final int shard;
+
+    /**
+     * The global ids of the owned nodes, in ascending order; a node's position is its local index.
+     */
+    private final int[] nodes;
+
+    /**
+     * The forward and reverse CSR of the owned nodes, by local index, with neighbors as global ids.
+     */
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] reverseOffsets;
+    private final int[] reverseTargets;
+
+    /**
+     * The nodes each running query has reached on this shard, keyed by query id.
+     */
+    private final Map<Long, Marks> queries = new ConcurrentHashMap<>();
+
+    /**
+     * The local indexes reached by both sides of one query.
+     */
+    private static final class Marks {
+        final BitSet forward = new BitSet();
+        final BitSet reverse = new BitSet();
+    }
+
+    /**
+     * Constructs a shard.
+     *
+     * @param shard          The number of the shard.
+     * @param nodes          The global ids of the owned nodes, ascending.
+     * @param offsets        The forward offsets, by local index.
+     * @param targets        The forward neighbors, as global ids.
+     * @param reverseOffsets The reverse offsets, by local index.
+     * @param reverseTargets The reverse neighbors, as global ids.
+     */
+    private GraphShard(int shard, int[] nodes, int[] offsets, int[] targets, int[] reverseOffsets, int[] reverseTargets) {
+        this.shard = shard;
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseTargets = reverseTargets;
+    }
+
+    /**
+     * Splits a graph into shards.
+     *
+     * @param graph   The graph to split; must not change while this runs.
+     * @param shardOf The shard of every node, for example from {@link GraphPartitioner}.
+     * @param shards  The number of shards.
+     * @return The shards, indexed by shard number.
+     * @throws IllegalArgumentException If a node is assigned to a shard outside {@code [0, shards)}.
+     */
+    public static GraphShard[] split(IntGraph graph, int[] shardOf, int shards) {
+        int[] sizes = new int[shards];
+        for (int id = 0; id < shardOf.length; id++) {
+            if (shardOf[id] < 0 || shardOf[id] >= shards) {
+                throw new IllegalArgumentException("Node " + id + " is assigned to shard " + shardOf[id]);
+            }
+            sizes[shardOf[id]]++;
+        }
+
+        GraphShard[] result = new GraphShard[shards];
+        IntGraph.NeighborCursor forward = graph.forwardCursor();
+        IntGraph.NeighborCursor reverse = graph.reverseCursor();
+        for (int shard = 0; shard < shards; shard++) {
+            int[] nodes = new int[sizes[shard]];
+            int count = 0;
+            for (int id = 0; id < shardOf.length; id++) {
+                if (shardOf[id] == shard) {
+                    nodes[count++] = id;
+                }
+            }
+
+            int[] offsets = new int[count + 1];
+            int[] reverseOffsets = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[i + 1] = offsets[i] + graph.outDegree(nodes[i]);
+                reverseOffsets[i + 1] = reverseOffsets[i] + graph.inDegree(nodes[i]);
+            }
+            int[] targets = new int[offsets[count]];
+            int[] reverseTargets = new int[reverseOffsets[count]];
+            for (int i = 0; i < count; i++) {
+                int position = offsets[i];
+                forward.reset(nodes[i]);
+                for (int neighbor = forward.next(); neighbor != IntGraph.NO_NODE; neighbor = forward.next()) {
+                    targets[position++] = neighbor;
+                }
+                position = reverseOffsets[i];
+                reverse.reset(nodes[i]);
+                for (int neighbor = reverse.next(); neighbor != IntGraph.NO_NODE; neighbor = reverse.next()) {
+                    reverseTargets[position++] = neighbor;
+                }
+            }
+            result[shard] = new GraphShard(shard, nodes, offsets, targets, reverseOffsets, reverseTargets);
+        }
+        return result;
+    }
+
+    /**
+     * Answers an encoded request.
+     *
+     * @param request The request, as encoded by {@link GraphShard#expandRequest(byte, long, int[], int)} or
+     *                {@link GraphShard#releaseRequest(long)}.
+     * @return The encoded response.
+     * @throws IllegalArgumentException If the request type is unknown or a node is not owned by this shard.
+     */
+    public byte[] handle(byte[] request) {
+        ByteBuffer in = ByteBuffer.wrap(request);
+        byte type = in.get();
+        long query = in.getLong();
+        int count = in.getInt();
+        if (type == RELEASE) {
+            queries.remove(query);
+            return ByteBuffer.allocate(RESPONSE_HEADER_BYTES).array();
+        }
+        if (type != EXPAND_FORWARD && type != EXPAND_REVERSE) {
+            throw new IllegalArgumentException("Unknown request type: " + type);
+        }
+
+        boolean isForward = type == EXPAND_FORWARD;
+        Marks marks = queries.computeIfAbsent(query, key -> new Marks());
+        BitSet mark = isForward ? marks.forward : marks.reverse;
+        BitSet otherMark = isForward ? marks.reverse : marks.forward;
+        int[] edgeOffsets = isForward ? offsets : reverseOffsets;
+        int[] edgeTargets = isForward ? targets : reverseTargets;
+
+        boolean met = false;
+        int[] next = new int[16];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int id = in.getInt();
+            int local = Arrays.binarySearch(nodes, id);
+            if (local < 0) {
+                throw new IllegalArgumentException("Node " + id + " is not owned by shard " + shard);
+            }
+            if (mark.get(local)) {
+                continue;
+            }
+            mark.set(local);
+            if (otherMark.get(local)) {
+                met = true;
+                break;
+            }
+            for (int j = edgeOffsets[local]; j < edgeOffsets[local + 1]; j++) {
+                int neighbor = edgeTargets[j];
+                int neighborLocal = Arrays.binarySearch(nodes, neighbor);
+                if (neighborLocal >= 0 && mark.get(neighborLocal)) {
+                    continue;  // Already reached on this shard, no need to send it back
+                }
+                if (size == next.length) {
+                    next = Arrays.copyOf(next, size * 2);
+                }
+                next[size++] = neighbor;
+            }
+        }
+
+        // Send every neighbor once, however many of the batch lead to it
+        Arrays.sort(next, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || next[i] != next[unique - 1]) {
+                next[unique++] = next[i];
+            }
+        }
+        if (met) {
+            unique = 0;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(RESPONSE_HEADER_BYTES + Integer.BYTES * unique);
+        out.put((byte) (met ? 1 : 0));
+        out.putInt(unique);
+        for (int i = 0; i < unique; i++) {
+            out.putInt(next[i]);
+        }
+        return out.array();
+    }
+
+    /**
+     * Encodes an {@code EXPAND} request.
+     *
+     * @param type  {@link GraphShard#EXPAND_FORWARD} or {@link GraphShard#EXPAND_REVERSE}.
+     * @param query The id of the query.
+     * @param ids   The candidate node ids, all owned by the receiving shard.
+     * @param count The number of candidates.
+     * @return The encoded request.
+     */
+    static byte[] expandRequest(byte type, long query, int[] ids, int count) {
+        ByteBuffer out = ByteBuffer.allocate(REQUEST_HEADER_BYTES + Integer.BYTES * count);
+        out.put(type);
+        out.putLong(query);
+        out.putInt(count);
+        for (int i = 0; i < count; i++) {
+            out.putInt(ids[i]);
+        }
+        return out.array();
+    }
+
+    /**
+     * Encodes a {@code RELEASE} request.
+     *
+     * @param query The id of the finished query.
+     * @return The encoded request.
+     */
+    static byte[] releaseRequest(long query) {
+        return expandRequest(RELEASE, query, new int[0], 0);
+    }
+
+    /**
+     * Returns the number of this shard.
+     *
+     * @return The shard number.
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * Returns the number of nodes this shard owns.
+     *
+     * @return The number of owned nodes.
+     */
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the number of out-edges of the nodes this shard owns.
+     *
+     * @return The number of owned edges.
+     */
+    public long edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the number of queries whose state this shard currently holds.
+     *
+     * @return The number of running queries.
+     */
+    public int runningQueries() {
+        return queries.size();
+    }
+}
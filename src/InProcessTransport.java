@@ -0,0 +1,57 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ShardTransport} that hands every message directly to a {@link GraphShard} in the same JVM, for tests
+ * and for measuring a sharded search on one machine.
+ * <p>
+ * Messages still go through their byte encoding, so the message and byte counts are those a network transport
+ * would carry.
+ */
+
+public class InProcessTransport implements ShardTransport {
+
+    private final GraphShard[] shards;
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Constructs a transport to the specified shards.
+     *
+     * @param shards The shards, indexed by shard number.
+     */
+    public InProcessTransport(GraphShard[] shards) {
+        this.shards = shards.clone();
+    }
+
+    @Override
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public byte[] send(int shard, byte[] request) {
+        byte[] response = shards[shard].handle(request);
+        messages.add(2);
+        bytes.add(request.length + response.length);
+        return response;
+    }
+
+    /**
+     * Returns the number of messages carried so far, counting every request and every response.
+     *
+     * @return The number of messages.
+     */
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    /**
+     * Returns the number of bytes carried so far in requests and responses.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+}
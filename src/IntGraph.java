@@ -0,0 +1,122 @@
+/**
+ * Represents a read-only directed graph whose nodes are identified by dense integer ids.
+ *
+ * <p>
+ * Ids range over {@code [0, nodeCount())} and map one-to-one to node values. Both edge
+ * directions are exposed, so a bidirectional search can run on any implementation,
+ * such as the compact {@link CsrGraph}.
+ * </p>
+ *
+ * <p>
+ * Neighbors are read through a {@link NeighborCursor}, which can be reset to a new node
+ * and reused, so traversals do not allocate per visited node or edge.
+ * </p>
+ *
+ */
+public interface IntGraph {
+
+    /**
+     * The id returned when a node does not exist, and by a cursor that has no more neighbors.
+     */
+    int NO_NODE = -1;
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return The number of node ids.
+     */
+    int nodeCount();
+
+    /**
+     * Returns the number of directed edges in the graph.
+     *
+     * @return The number of edges.
+     */
+    long edgeCount();
+
+    /**
+     * Returns the version of the graph, which changes whenever a mutable graph is modified, so results derived
+     * from the graph can tell whether they are still current.
+     *
+     * @return The version of the graph; {@code 0} for a graph that cannot change.
+     */
+    default long version() {
+        return 0;
+    }
+
+    /**
+     * Returns the id of the node with the given value.
+     *
+     * @param value The value of the node of interest.
+     * @return The id of the node, or {@link IntGraph#NO_NODE} if it does not exist.
+     */
+    int idOf(String value);
+
+    /**
+     * Returns the value of the node with the given id.
+     *
+     * @param id The id of the node.
+     * @return The value of the node.
+     */
+    String valueOf(int id);
+
+    /**
+     * Returns the number of outgoing edges of a node.
+     *
+     * @param id The id of the node.
+     * @return The out-degree of the node.
+     */
+    int outDegree(int id);
+
+    /**
+     * Returns the number of incoming edges of a node.
+     *
+     * @param id The id of the node.
+     * @return The in-degree of the node.
+     */
+    int inDegree(int id);
+
+    /**
+     * Creates a cursor over the outgoing neighbors of a node.
+     *
+     * @return A new cursor, positioned on no node until {@link NeighborCursor#reset(int)} is called.
+     */
+    NeighborCursor forwardCursor();
+
+    /**
+     * Creates a cursor over the incoming neighbors of a node.
+     *
+     * @return A new cursor, positioned on no node until {@link NeighborCursor#reset(int)} is called.
+     */
+    NeighborCursor reverseCursor();
+
+    /**
+     * Returns the node with the given id.
+     *
+     * @param id The id of the node.
+     * @return A node holding the value of the given id.
+     */
+    default Node nodeOf(int id) {
+        return new Node(valueOf(id));
+    }
+
+    /**
+     * A reusable iterator over the neighbor ids of one node.
+     */
+    interface NeighborCursor {
+
+        /**
+         * Positions the cursor on the first neighbor of a node.
+         *
+         * @param id The id of the node whose neighbors are iterated.
+         */
+        void reset(int id);
+
+        /**
+         * Returns the next neighbor id.
+         *
+         * @return The next neighbor id, or {@link IntGraph#NO_NODE} if there are no more neighbors.
+         */
+        int next();
+    }
+}
@@ -0,0 +1,352 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A read-only graph backed by a memory-mapped binary file.
+ * <p>
+ * The file holds the node dictionary, the forward CSR and the reverse CSR of a {@link CsrGraph}, so opening it
+ * only maps the file: nothing is parsed or copied onto the heap, and a graph of any size is searchable within
+ * milliseconds. The mapping is read-only, so several processes that open the same file share its pages in the
+ * OS page cache.
+ * <p>
+ * The file starts with a header of {@link MappedGraph#HEADER_BYTES} bytes, big-endian:
+ * <ul>
+ *     <li>the magic number {@link MappedGraph#MAGIC} and the format {@link MappedGraph#FORMAT_VERSION};</li>
+ *     <li>the node count, the edge count and the number of dictionary hash slots;</li>
+ *     <li>the byte position of each section: forward offsets, forward targets, reverse offsets, reverse targets,
+ *     value offsets, hash slots and value bytes.</li>
+ * </ul>
+ * Offsets and targets are {@code int} arrays laid out exactly like those of {@link CsrGraph}. Node values are
+ * stored as UTF-8 bytes, located through an {@code int} array of byte offsets with one extra trailing entry.
+ * The hash slots form an open-addressing table that maps a value's hash to {@code id + 1}, with {@code 0}
+ * marking an empty slot.
+ */
+
+public class MappedGraph implements IntGraph {
+
+    /**
+     * The first four bytes of every graph file.
+     */
+    static final int MAGIC = 0x47524148;
+
+    /**
+     * The version of the file format written by {@link MappedGraph#write(CsrGraph, Path)}.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * The number of sections in a file.
+     */
+    private static final int SECTIONS = 7;
+
+    /**
+     * The size of the file header: five {@code int} fields, one padding {@code int} and one {@code long} per section.
+     */
+    static final int HEADER_BYTES = 6 * Integer.BYTES + SECTIONS * Long.BYTES;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer reverseOffsets;
+    private final IntBuffer reverseTargets;
+    private final IntBuffer valueOffsets;
+    private final IntBuffer slots;
+    private final ByteBuffer valueBytes;
+
+    /**
+     * Constructs a graph over the mapped sections of a file.
+     */
+    private MappedGraph(int nodeCount, int edgeCount, IntBuffer offsets, IntBuffer targets, IntBuffer reverseOffsets,
+                        IntBuffer reverseTargets, IntBuffer valueOffsets, IntBuffer slots, ByteBuffer valueBytes) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseTargets = reverseTargets;
+        this.valueOffsets = valueOffsets;
+        this.slots = slots;
+        this.valueBytes = valueBytes;
+    }
+
+    /**
+     * Writes a directed graph to a file, freezing it into a {@link CsrGraph} first.
+     *
+     * @param graph The graph to write.
+     * @param path  The file to create or overwrite.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(DirectedGraph graph, Path path) throws IOException {
+        write(CsrGraph.freeze(graph), path);
+    }
+
+    /**
+     * Writes a CSR graph to a file in the mapped graph format.
+     *
+     * @param graph The graph to write.
+     * @param path  The file to create or overwrite.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(CsrGraph graph, Path path) throws IOException {
+        int nodes = graph.nodeCount();
+        byte[][] encoded = new byte[nodes][];
+        int[] valueOffsets = new int[nodes + 1];
+        for (int id = 0; id < nodes; id++) {
+            encoded[id] = graph.valueOf(id).getBytes(StandardCharsets.UTF_8);
+            long end = (long) valueOffsets[id] + encoded[id].length;
+            if (end > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Node values too large for a mapped graph: " + end + " bytes");
+            }
+            valueOffsets[id + 1] = (int) end;
+        }
+
+        int[] slots = new int[slotCount(nodes)];
+        for (int id = 0; id < nodes; id++) {
+            int slot = hash(encoded[id]) & (slots.length - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = id + 1;
+        }
+
+        int[][] intSections = {graph.offsets, graph.targets, graph.reverseOffsets, graph.reverseTargets, valueOffsets, slots};
+        long[] positions = new long[SECTIONS];
+        long position = HEADER_BYTES;
+        for (int i = 0; i < intSections.length; i++) {
+            positions[i] = position;
+            position += (long) Integer.BYTES * intSections[i].length;
+        }
+        positions[SECTIONS - 1] = position;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(nodes).putInt((int) graph.edgeCount())
+                    .putInt(slots.length).putInt(0);
+            for (long sectionPosition : positions) {
+                header.putLong(sectionPosition);
+            }
+            writeFully(channel, header.flip());
+
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            for (int[] section : intSections) {
+                for (int value : section) {
+                    if (buffer.remaining() < Integer.BYTES) {
+                        writeFully(channel, buffer.flip());
+                        buffer.clear();
+                    }
+                    buffer.putInt(value);
+                }
+            }
+            for (byte[] value : encoded) {
+                if (buffer.remaining() < value.length) {
+                    writeFully(channel, buffer.flip());
+                    buffer.clear();
+                }
+                if (value.length > buffer.capacity()) {
+                    writeFully(channel, ByteBuffer.wrap(value));
+                } else {
+                    buffer.put(value);
+                }
+            }
+            writeFully(channel, buffer.flip());
+        }
+    }
+
+    /**
+     * Opens a graph file by mapping it read-only into memory.
+     * <p>
+     * Only the header is read; every section is accessed in place through the mapping, which stays valid
+     * after the file channel is closed.
+     *
+     * @param path The file to open.
+     * @return The mapped graph.
+     * @throws IOException If the file cannot be read or is not a mapped graph of a supported version.
+     */
+    public static MappedGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            if (header.hasRemaining() || header.flip().getInt() != MAGIC) {
+                throw new IOException("Not a mapped graph file: " + path);
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported mapped graph version " + version + " in " + path);
+            }
+            int nodes = header.getInt();
+            int edges = header.getInt();
+            int slotCount = header.getInt();
+            header.getInt();
+            long[] positions = new long[SECTIONS + 1];
+            for (int i = 0; i < SECTIONS; i++) {
+                positions[i] = header.getLong();
+            }
+            positions[SECTIONS] = channel.size();
+
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++) {
+                long size = positions[i + 1] - positions[i];
+                if (size < 0 || size > Integer.MAX_VALUE) {
+                    throw new IOException("Corrupt or oversized section " + i + " in " + path);
+                }
+                MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, positions[i], size);
+                sections[i] = section;
+            }
+
+            return new MappedGraph(nodes, edges, sections[0].asIntBuffer(), sections[1].asIntBuffer(),
+                    sections[2].asIntBuffer(), sections[3].asIntBuffer(), sections[4].asIntBuffer(),
+                    sections[5].asIntBuffer(), sections[6]);
+        }
+    }
+
+    /**
+     * Writes a whole buffer to a channel.
+     *
+     * @param channel The channel to write to.
+     * @param buffer  The bytes to write.
+     * @throws IOException If the channel cannot be written.
+     */
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Returns the number of dictionary hash slots for a node count: a power of two at least twice as large.
+     *
+     * @param nodes The number of nodes.
+     * @return The number of slots.
+     */
+    private static int slotCount(int nodes) {
+        return Integer.highestOneBit(Math.max(1, nodes) * 2 - 1) << 1;
+    }
+
+    /**
+     * Hashes the UTF-8 bytes of a value for the dictionary.
+     *
+     * @param bytes The UTF-8 bytes of the value.
+     * @return The hash of the value.
+     */
+    private static int hash(byte[] bytes) {
+        int hash = Arrays.hashCode(bytes);
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int idOf(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.limit() - 1;
+        for (int slot = hash(bytes) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots.get(slot);
+            if (entry == 0) {
+                return NO_NODE;
+            }
+            if (valueEquals(entry - 1, bytes)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Compares the stored value of a node with the given bytes, without decoding it.
+     *
+     * @param id    The id of the node.
+     * @param bytes The UTF-8 bytes to compare with.
+     * @return {@code true} if the stored value has exactly these bytes, {@code false} otherwise.
+     */
+    private boolean valueEquals(int id, byte[] bytes) {
+        int start = valueOffsets.get(id);
+        if (valueOffsets.get(id + 1) - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (valueBytes.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String valueOf(int id) {
+        int start = valueOffsets.get(id);
+        byte[] bytes = new byte[valueOffsets.get(id + 1) - start];
+        valueBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int outDegree(int id) {
+        return offsets.get(id + 1) - offsets.get(id);
+    }
+
+    @Override
+    public int inDegree(int id) {
+        return reverseOffsets.get(id + 1) - reverseOffsets.get(id);
+    }
+
+    @Override
+    public NeighborCursor forwardCursor() {
+        return new Cursor(offsets, targets);
+    }
+
+    @Override
+    public NeighborCursor reverseCursor() {
+        return new Cursor(reverseOffsets, reverseTargets);
+    }
+
+    /**
+     * A cursor over one row of a mapped CSR.
+     */
+    private static final class Cursor implements NeighborCursor {
+
+        private final IntBuffer offsets;
+        private final IntBuffer targets;
+        private int position;
+        private int end;
+
+        /**
+         * Constructs a cursor over the given mapped CSR sections.
+         *
+         * @param offsets The offsets of the CSR.
+         * @param targets The neighbor ids of the CSR.
+         */
+        Cursor(IntBuffer offsets, IntBuffer targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        @Override
+        public void reset(int id) {
+            position = offsets.get(id);
+            end = offsets.get(id + 1);
+        }
+
+        @Override
+        public int next() {
+            return position < end ? targets.get(position++) : NO_NODE;
+        }
+    }
+}
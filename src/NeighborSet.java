@@ -0,0 +1,406 @@
+import java.util.*;
+
+/**
+ * A duplicate-free neighbor list of a {@link DirectedGraph}, holding node ids instead of {@link Node} references.
+ * <p>
+ * Up to {@link NeighborSet#HASH_THRESHOLD} neighbors are kept as a sorted {@code int[]}, so a membership test is a
+ * binary search over a few cache lines. Above it, the set also builds an open-addressing hash index from id to
+ * position, so hubs answer {@link NeighborSet#containsId(int)} and reject duplicate inserts in constant time, at
+ * the cost of keeping their neighbors in insertion order. Removing from a hashed set moves the last neighbor into
+ * the freed position and never reorders the others, so removal through an iterator or
+ * {@link Collection#removeIf} visits every neighbor once. A hashed set that has shrunk below half the threshold
+ * falls back to the sorted array on its next insert.
+ * <p>
+ * The set is a {@link List} whose elements resolve to the graph's canonical nodes, so code written against
+ * {@code List<Node>} keeps working, while {@link NeighborSet#idAt(int)} lets id-based readers such as
+ * {@link BiDiGraph}'s cursors skip the value lookup. Adding a node that is already present leaves the set
+ * unchanged and returns {@code false}. Like an {@link ArrayList}, a set is not thread-safe.
+ */
+
+public class NeighborSet extends AbstractList<Node> implements RandomAccess {
+
+    /**
+     * The size above which the set switches from a sorted array to a hash index.
+     */
+    static final int HASH_THRESHOLD = 64;
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * The graph whose node ids the set holds.
+     */
+    private final DirectedGraph graph;
+
+    /**
+     * The neighbor ids: sorted while {@link NeighborSet#slots} is {@code null}, in insertion order otherwise.
+     */
+    private int[] ids = EMPTY;
+    private int size;
+
+    /**
+     * The hash index, a power-of-two table of positions in {@link NeighborSet#ids} plus one, with {@code 0} for
+     * an empty slot; {@code null} while the set is small.
+     */
+    private int[] slots;
+
+    /**
+     * Constructs an empty neighbor set.
+     *
+     * @param graph The graph whose nodes the set holds.
+     */
+    NeighborSet(DirectedGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Builds a set from ids sorted in ascending order, dropping repeated ids.
+     *
+     * @param graph The graph whose nodes the set holds.
+     * @param ids   An array holding the sorted ids.
+     * @param from  The first position of the ids, inclusive.
+     * @param to    The last position of the ids, exclusive.
+     * @return The set.
+     */
+    static NeighborSet sorted(DirectedGraph graph, int[] ids, int from, int to) {
+        NeighborSet set = new NeighborSet(graph);
+        set.ids = new int[to - from];
+        for (int i = from; i < to; i++) {
+            if (set.size == 0 || set.ids[set.size - 1] != ids[i]) {
+                set.ids[set.size++] = ids[i];
+            }
+        }
+        if (set.size > HASH_THRESHOLD) {
+            set.rehash(Integer.highestOneBit(set.size) * 4);
+        }
+        return set;
+    }
+
+    /**
+     * Checks whether the set holds ids of a graph.
+     *
+     * @param graph The graph.
+     * @return {@code true} if the set was created for that graph, {@code false} otherwise.
+     */
+    boolean belongsTo(DirectedGraph graph) {
+        return this.graph == graph;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Node get(int index) {
+        return graph.nodes.get(idAt(index));
+    }
+
+    /**
+     * Returns the id of the neighbor at a position.
+     *
+     * @param index The position.
+     * @return The id of the neighbor.
+     * @throws IndexOutOfBoundsException If index is not less than the size.
+     */
+    public int idAt(int index) {
+        Objects.checkIndex(index, size);
+        return ids[index];
+    }
+
+    /**
+     * Checks whether the set holds an id, in logarithmic time while small and constant time once hashed.
+     *
+     * @param id The node id.
+     * @return {@code true} if the node is a neighbor, {@code false} otherwise.
+     */
+    public boolean containsId(int id) {
+        return indexOfId(id) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int id = idOf(o);
+        return id == IntGraph.NO_NODE ? -1 : indexOfId(id);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    /**
+     * Checks whether the set shares a node with a collection, probing the larger side with the elements of the
+     * smaller one, as a meeting check between a search frontier and a hub's neighbors needs.
+     *
+     * @param others The nodes to test.
+     * @return {@code true} if one of them is a neighbor, {@code false} otherwise.
+     */
+    public boolean intersects(Collection<Node> others) {
+        if (others instanceof NeighborSet set && set.belongsTo(graph)) {
+            return intersects(set);
+        }
+        if (others.size() < size) {
+            for (Node node : others) {
+                if (contains(node)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (others.contains(graph.nodes.get(ids[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether two sets share a node. Sets of the same graph are compared by a merge when both are sorted,
+     * and by probing the larger one otherwise.
+     *
+     * @param other The other set.
+     * @return {@code true} if they share a node, {@code false} otherwise.
+     */
+    public boolean intersects(NeighborSet other) {
+        if (!other.belongsTo(graph)) {
+            return intersects((Collection<Node>) other);
+        }
+        NeighborSet small = size <= other.size ? this : other;
+        NeighborSet large = small == this ? other : this;
+        if (small.slots == null && large.slots == null) {
+            for (int i = 0, j = 0; i < small.size && j < large.size; ) {
+                if (small.ids[i] == large.ids[j]) {
+                    return true;
+                }
+                if (small.ids[i] < large.ids[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return false;
+        }
+        for (int i = 0; i < small.size; i++) {
+            if (large.containsId(small.ids[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a node, unless it is already a neighbor. A node whose value the graph does not know yet is registered
+     * in the graph, as {@link DirectedGraph#intern(String)} would.
+     *
+     * @param node The node to add.
+     * @return {@code true} if it was added, {@code false} if it was already present.
+     */
+    @Override
+    public boolean add(Node node) {
+        return addId(graph.internId(node.value()));
+    }
+
+    /**
+     * Adds a node id, unless it is already present.
+     *
+     * @param id The id of a node of the graph.
+     * @return {@code true} if it was added, {@code false} if it was already present.
+     */
+    public boolean addId(int id) {
+        if (slots != null && size < HASH_THRESHOLD / 2) {
+            slots = null;
+            Arrays.sort(ids, 0, size);
+        }
+        if (slots == null) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            grow();
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+            if (size > HASH_THRESHOLD) {
+                rehash(Integer.highestOneBit(size) * 4);
+            }
+        } else {
+            if (indexOfId(id) >= 0) {
+                return false;
+            }
+            grow();
+            ids[size++] = id;
+            if (2 * size > slots.length) {
+                rehash(slots.length * 2);
+            } else {
+                insertSlot(size - 1);
+            }
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    /**
+     * Removes the neighbor at a position. In a hashed set the last neighbor takes its place, and the hash index is
+     * shrunk once it is mostly empty; the order of the other neighbors is kept either way.
+     *
+     * @param index The position.
+     * @return The removed node.
+     * @throws IndexOutOfBoundsException If index is not less than the size.
+     */
+    @Override
+    public Node remove(int index) {
+        Node removed = get(index);
+        if (slots == null) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        } else {
+            deleteSlot(index);
+            int last = --size;
+            if (index != last) {
+                deleteSlot(last);
+                ids[index] = ids[last];
+                insertSlot(index);
+            }
+            if (slots.length > 2 * HASH_THRESHOLD && 8 * size < slots.length) {
+                rehash(slots.length / 2);
+            }
+        }
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        slots = null;
+        modCount++;
+    }
+
+    /**
+     * Returns the number of bytes held by the id array and the hash index.
+     *
+     * @return The size of the set's arrays in bytes.
+     */
+    long footprintBytes() {
+        return 4L * ids.length + (slots == null ? 0 : 4L * slots.length);
+    }
+
+    /**
+     * Resolves a node to its id in the graph.
+     *
+     * @param o The object to resolve.
+     * @return The id, or {@link IntGraph#NO_NODE} if it is not a node of the graph.
+     */
+    private int idOf(Object o) {
+        if (!(o instanceof Node node)) {
+            return IntGraph.NO_NODE;
+        }
+        Integer id = graph.nodeIds.get(node.value());
+        return id == null ? IntGraph.NO_NODE : id;
+    }
+
+    /**
+     * Finds the position of an id.
+     *
+     * @param id The node id.
+     * @return Its position, or a negative number if it is absent.
+     */
+    private int indexOfId(int id) {
+        if (slots == null) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? index : -1;
+        }
+        int mask = slots.length - 1;
+        for (int slot = hash(id) & mask; slots[slot] != 0; slot = slot + 1 & mask) {
+            if (ids[slots[slot] - 1] == id) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Makes room for one more id.
+     */
+    private void grow() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+    }
+
+    /**
+     * Rebuilds the hash index with a new capacity.
+     *
+     * @param capacity The number of slots, a power of two larger than twice the size.
+     */
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int index = 0; index < size; index++) {
+            insertSlot(index);
+        }
+    }
+
+    /**
+     * Indexes the id at a position.
+     *
+     * @param index The position.
+     */
+    private void insertSlot(int index) {
+        int mask = slots.length - 1;
+        int slot = hash(ids[index]) & mask;
+        while (slots[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    /**
+     * Removes the id at a position from the hash index, shifting back the entries that probed past it.
+     *
+     * @param index The position.
+     */
+    private void deleteSlot(int index) {
+        int mask = slots.length - 1;
+        int slot = hash(ids[index]) & mask;
+        while (slots[slot] != index + 1) {
+            slot = slot + 1 & mask;
+        }
+        for (int next = slot + 1 & mask; slots[next] != 0; next = next + 1 & mask) {
+            int home = hash(ids[slots[next] - 1]) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (slot, next]
+            if ((next - home & mask) >= (next - slot & mask)) {
+                slots[slot] = slots[next];
+                slot = next;
+            }
+        }
+        slots[slot] = 0;
+    }
+
+    /**
+     * Spreads the bits of an id over the table.
+     *
+     * @param id The node id.
+     * @return The hash.
+     */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+}
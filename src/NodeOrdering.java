@@ -0,0 +1,422 @@
+import java.util.*;
+
+/**
+ * Computes new id orders for the nodes of an {@link IntGraph}, so that neighbors get nearby ids.
+ * <p>
+ * An order is returned as a rank array: {@code rank[id]} is the new id of the node that has id {@code id} now.
+ * Nearby ids shrink the gaps of a {@link CompressedGraph}'s neighbor lists, and keep the nodes a search touches
+ * together in memory: {@link CsrGraph#relabel(IntGraph, int[])} applies an order to a graph, so that the visited
+ * marks, queues and rows a traversal reads hit the same cache lines more often.
+ * <p>
+ * All orders treat edges as undirected.
+ */
+
+public class NodeOrdering {
+
+    /**
+     * The default number of recently placed nodes a {@link NodeOrdering#gorderLite(IntGraph, int)} candidate is
+     * scored against.
+     */
+    public static final int DEFAULT_WINDOW = 5;
+
+    /**
+     * The largest out-degree of a shared in-neighbor that still makes its out-neighbors siblings in
+     * {@link NodeOrdering#gorderLite(IntGraph, int)}; hubs are skipped, since all their neighbors would be.
+     */
+    static final int SIBLING_DEGREE_LIMIT = 64;
+
+    private NodeOrdering() {
+    }
+
+    /**
+     * Orders the nodes by breadth-first searches that follow edges in both directions, so that every node is
+     * close to the node it was discovered from.
+     *
+     * @param graph The graph to order.
+     * @return The new id of every node.
+     */
+    public static int[] bfs(IntGraph graph) {
+        return rank(bfsOrder(graph));
+    }
+
+    /**
+     * Orders the nodes by descending total degree, so that the hubs most lists point to get the smallest ids.
+     * Nodes of equal degree keep their relative order.
+     *
+     * @param graph The graph to order.
+     * @return The new id of every node.
+     */
+    public static int[] degree(IntGraph graph) {
+        int nodes = graph.nodeCount();
+        Integer[] order = new Integer[nodes];
+        for (int id = 0; id < nodes; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, Comparator.comparingLong(id -> -((long) graph.outDegree(id) + graph.inDegree(id))));
+
+        int[] rank = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            rank[order[i]] = i;
+        }
+        return rank;
+    }
+
+    /**
+     * Orders the nodes by reverse Cuthill-McKee, which keeps the ids of neighbors within a narrow band.
+     * <p>
+     * Every connected component is searched breadth-first from one of its nodes of minimum degree, visiting the
+     * unvisited neighbors of each node in ascending degree order, and the resulting order is reversed.
+     *
+     * @param graph The graph to order.
+     * @return The new id of every node.
+     */
+    public static int[] rcm(IntGraph graph) {
+        int nodes = graph.nodeCount();
+        int[] byDegree = ascendingDegree(graph);
+        int[] order = new int[nodes];
+        boolean[] visited = new boolean[nodes];
+        long[] batch = new long[nodes == 0 ? 0 : degree(graph, byDegree[nodes - 1])];
+        IntGraph.NeighborCursor forward = graph.forwardCursor();
+        IntGraph.NeighborCursor reverse = graph.reverseCursor();
+        int tail = 0;
+        for (int root : byDegree) {
+            if (visited[root]) {
+                continue;
+            }
+            visited[root] = true;
+            int head = tail;
+            order[tail++] = root;
+            while (head < tail) {
+                int node = order[head++];
+                forward.reset(node);
+                int size = unvisited(graph, forward, visited, batch, 0);
+                reverse.reset(node);
+                size = unvisited(graph, reverse, visited, batch, size);
+                Arrays.sort(batch, 0, size);
+                for (int i = 0; i < size; i++) {
+                    order[tail++] = (int) batch[i];
+                }
+            }
+        }
+
+        for (int i = 0, j = nodes - 1; i < j; i++, j--) {
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return rank(order);
+    }
+
+    /**
+     * Marks the unvisited neighbors a cursor returns as visited and appends them to a batch, keyed by degree.
+     *
+     * @param graph   The graph.
+     * @param cursor  A cursor reset to a node.
+     * @param visited Whether each node has been visited.
+     * @param batch   Receives every neighbor as its degree in the high half and its id in the low half.
+     * @param size    The number of entries already in the batch.
+     * @return The number of entries in the batch afterwards.
+     */
+    private static int unvisited(IntGraph graph, IntGraph.NeighborCursor cursor, boolean[] visited, long[] batch,
+                                 int size) {
+        for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+            if (!visited[neighbor]) {
+                visited[neighbor] = true;
+                batch[size++] = (long) degree(graph, neighbor) << 32 | neighbor;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Orders the nodes with a light version of Gorder, which places next to each other nodes that share
+     * neighbors.
+     * <p>
+     * Nodes are placed one at a time. Every unplaced node scores one point for each edge to one of the last
+     * {@code window} placed nodes, and one for each in-neighbor it shares with one of them, as long as that
+     * in-neighbor has at most {@link NodeOrdering#SIBLING_DEGREE_LIMIT} out-neighbors. The node with the highest
+     * score is placed next; when no node scores, the unplaced node of highest degree is. Scores are kept in a heap
+     * with lazy updates, instead of the exact priority queue of full Gorder.
+     *
+     * @param graph  The graph to order.
+     * @param window The number of recently placed nodes a candidate is scored against, at least {@code 1}.
+     * @return The new id of every node.
+     * @throws IllegalArgumentException If window is less than {@code 1}.
+     */
+    public static int[] gorderLite(IntGraph graph, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be at least 1: " + window);
+        }
+        int nodes = graph.nodeCount();
+        int[] byDegree = ascendingDegree(graph);
+        int nextByDegree = nodes - 1;
+        int[] order = new int[nodes];
+        boolean[] placed = new boolean[nodes];
+        int[] score = new int[nodes];
+        LazyHeap heap = new LazyHeap();
+        IntGraph.NeighborCursor forward = graph.forwardCursor();
+        IntGraph.NeighborCursor reverse = graph.reverseCursor();
+        IntGraph.NeighborCursor siblings = graph.forwardCursor();
+
+        for (int count = 0; count < nodes; count++) {
+            int next = IntGraph.NO_NODE;
+            while (!heap.isEmpty()) {
+                long top = heap.pop();
+                int node = (int) top;
+                int pushed = (int) (top >>> 32);
+                if (placed[node] || score[node] == 0 || pushed < score[node]) {
+                    continue;  // Stale: a newer entry holds the current score
+                }
+                if (pushed == score[node]) {
+                    next = node;
+                    break;
+                }
+                heap.push(score[node], node);  // The score dropped since this entry was pushed
+            }
+            if (next == IntGraph.NO_NODE) {
+                while (placed[byDegree[nextByDegree]]) {
+                    nextByDegree--;
+                }
+                next = byDegree[nextByDegree];
+            }
+            placed[next] = true;
+            order[count] = next;
+
+            // The new node enters the window and the oldest one leaves it
+            score(graph, next, 1, placed, score, heap, forward, reverse, siblings);
+            if (count >= window) {
+                score(graph, order[count - window], -1, placed, score, heap, forward, reverse, siblings);
+            }
+        }
+        return rank(order);
+    }
+
+    /**
+     * Adds to or subtracts from the scores of the unplaced neighbors and siblings of a node.
+     *
+     * @param graph    The graph.
+     * @param node     The node entering or leaving the window.
+     * @param delta    {@code 1} when it enters, {@code -1} when it leaves.
+     * @param placed   Whether each node has been placed.
+     * @param score    The score of every node.
+     * @param heap     The heap of scores, which receives every increase.
+     * @param forward  A forward cursor.
+     * @param reverse  A reverse cursor.
+     * @param siblings Another forward cursor.
+     */
+    private static void score(IntGraph graph, int node, int delta, boolean[] placed, int[] score, LazyHeap heap,
+                              IntGraph.NeighborCursor forward, IntGraph.NeighborCursor reverse,
+                              IntGraph.NeighborCursor siblings) {
+        forward.reset(node);
+        for (int neighbor = forward.next(); neighbor != IntGraph.NO_NODE; neighbor = forward.next()) {
+            adjust(neighbor, delta, placed, score, heap);
+        }
+        reverse.reset(node);
+        for (int parent = reverse.next(); parent != IntGraph.NO_NODE; parent = reverse.next()) {
+            adjust(parent, delta, placed, score, heap);
+            if (graph.outDegree(parent) <= SIBLING_DEGREE_LIMIT) {
+                siblings.reset(parent);
+                for (int sibling = siblings.next(); sibling != IntGraph.NO_NODE; sibling = siblings.next()) {
+                    if (sibling != node) {
+                        adjust(sibling, delta, placed, score, heap);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the score of an unplaced node, pushing it onto the heap if it rose.
+     *
+     * @param node   The node.
+     * @param delta  The change.
+     * @param placed Whether each node has been placed.
+     * @param score  The score of every node.
+     * @param heap   The heap of scores.
+     */
+    private static void adjust(int node, int delta, boolean[] placed, int[] score, LazyHeap heap) {
+        if (placed[node]) {
+            return;
+        }
+        score[node] += delta;
+        if (delta > 0) {
+            heap.push(score[node], node);
+        }
+    }
+
+    /**
+     * Returns the total degree of a node.
+     *
+     * @param graph The graph.
+     * @param id    The id of the node.
+     * @return Its in-degree plus its out-degree.
+     */
+    private static int degree(IntGraph graph, int id) {
+        return graph.outDegree(id) + graph.inDegree(id);
+    }
+
+    /**
+     * Sorts the node ids by ascending total degree with a counting sort; equal degrees keep ascending ids.
+     *
+     * @param graph The graph.
+     * @return Every node id once.
+     */
+    private static int[] ascendingDegree(IntGraph graph) {
+        int nodes = graph.nodeCount();
+        int maxDegree = 0;
+        for (int id = 0; id < nodes; id++) {
+            maxDegree = Math.max(maxDegree, degree(graph, id));
+        }
+        int[] starts = new int[maxDegree + 2];
+        for (int id = 0; id < nodes; id++) {
+            starts[degree(graph, id) + 1]++;
+        }
+        for (int d = 0; d <= maxDegree; d++) {
+            starts[d + 1] += starts[d];
+        }
+        int[] sorted = new int[nodes];
+        for (int id = 0; id < nodes; id++) {
+            sorted[starts[degree(graph, id)]++] = id;
+        }
+        return sorted;
+    }
+
+    /**
+     * Lists all nodes in the order of breadth-first searches that follow edges in both directions, starting a new
+     * search from the lowest unvisited id whenever one runs out.
+     *
+     * @param graph The graph.
+     * @return Every node id once, in visiting order.
+     */
+    static int[] bfsOrder(IntGraph graph) {
+        int nodes = graph.nodeCount();
+        int[] order = new int[nodes];
+        boolean[] visited = new boolean[nodes];
+        IntGraph.NeighborCursor forward = graph.forwardCursor();
+        IntGraph.NeighborCursor reverse = graph.reverseCursor();
+        int tail = 0;
+        for (int root = 0; root < nodes; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            visited[root] = true;
+            int head = tail;
+            order[tail++] = root;
+            while (head < tail) {
+                int node = order[head++];
+                forward.reset(node);
+                for (int neighbor = forward.next(); neighbor != IntGraph.NO_NODE; neighbor = forward.next()) {
+                    if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        order[tail++] = neighbor;
+                    }
+                }
+                reverse.reset(node);
+                for (int neighbor = reverse.next(); neighbor != IntGraph.NO_NODE; neighbor = reverse.next()) {
+                    if (!visited[neighbor]) {
+                        visited[neighbor] = true;
+                        order[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Turns a visiting order into a rank array.
+     *
+     * @param order Every node id once, in the new order.
+     * @return The new id of every node.
+     */
+    static int[] rank(int[] order) {
+        int[] rank = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the old id of every new id, checking that a rank array is a permutation.
+     *
+     * @param rank  The new id of every node.
+     * @param nodes The number of nodes.
+     * @return The old id of every new id.
+     * @throws IllegalArgumentException If rank is not a permutation of {@code [0, nodes)}.
+     */
+    static int[] inverse(int[] rank, int nodes) {
+        if (rank.length != nodes) {
+            throw new IllegalArgumentException("Not a permutation of " + nodes + " node ids");
+        }
+        int[] old = new int[nodes];
+        Arrays.fill(old, IntGraph.NO_NODE);
+        for (int id = 0; id < nodes; id++) {
+            if (rank[id] < 0 || rank[id] >= nodes || old[rank[id]] != IntGraph.NO_NODE) {
+                throw new IllegalArgumentException("Not a permutation of " + nodes + " node ids");
+            }
+            old[rank[id]] = id;
+        }
+        return old;
+    }
+
+    /**
+     * A binary max-heap of {@code (score, node)} entries packed into {@code long}s, which may hold stale entries.
+     */
+    private static final class LazyHeap {
+
+        private long[] entries = new long[64];
+        private int size;
+
+        /**
+         * Checks whether the heap is empty.
+         *
+         * @return {@code true} if it holds no entry, {@code false} otherwise.
+         */
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Adds an entry.
+         *
+         * @param score The score of the node, not negative.
+         * @param node  The id of the node.
+         */
+        void push(int score, int node) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            long entry = (long) score << 32 | node;
+            int i = size++;
+            while (i > 0 && entries[(i - 1) >>> 1] < entry) {
+                entries[i] = entries[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            entries[i] = entry;
+        }
+
+        /**
+         * Removes the entry of highest score.
+         *
+         * @return The entry, with the score in the high half and the id in the low half.
+         */
+        long pop() {
+            long top = entries[0];
+            long last = entries[--size];
+            int i = 0;
+            for (int child = 1; child < size; child = 2 * i + 1) {
+                if (child + 1 < size && entries[child + 1] > entries[child]) {
+                    child++;
+                }
+                if (entries[child] <= last) {
+                    break;
+                }
+                entries[i] = entries[child];
+                i = child;
+            }
+            entries[i] = last;
+            return top;
+        }
+    }
+}
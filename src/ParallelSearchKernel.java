@@ -0,0 +1,195 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A multi-core bidirectional breadth-first search over the node ids of an {@link IntGraph}.
+ * <p>
+ * The search is level-synchronous. In every round the forward and the reverse side each expand their
+ * whole current level at the same time, and each level is split into chunks that run as fork/join tasks.
+ * Nodes are claimed lock-free by setting their bit in a per-side {@link AtomicLongArray} bitset with a
+ * compare-and-set, so every node enters each side's next frontier exactly once. A side that claims a node
+ * whose bit is already set on the other side raises a shared termination flag, which stops all tasks.
+ * <p>
+ * The graph must not be modified while a search is running. A kernel can be shared by several threads.
+ */
+
+public class ParallelSearchKernel {
+
+    /**
+     * The number of frontier nodes below which a task expands its nodes itself instead of splitting.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    /**
+     * The graph on which the searches are performed.
+     */
+    final IntGraph graph;
+
+    /**
+     * The pool that runs the expansion tasks.
+     */
+    final ForkJoinPool pool;
+
+    /**
+     * Constructs a parallel search kernel for the specified graph.
+     *
+     * @param graph The graph on which the searches will be performed.
+     * @param pool  The pool that runs the expansion tasks.
+     */
+    public ParallelSearchKernel(IntGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Performs a parallel bidirectional search between two node ids.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    public boolean search(int src, int dest) {
+        if (src == IntGraph.NO_NODE || dest == IntGraph.NO_NODE) {
+            return false;
+        }
+        if (src == dest) {
+            return true;
+        }
+
+        int words = (graph.nodeCount() + 63) >>> 6;
+        AtomicLongArray forwardVisited = new AtomicLongArray(words);
+        AtomicLongArray reverseVisited = new AtomicLongArray(words);
+        AtomicBoolean found = new AtomicBoolean();
+
+        claim(forwardVisited, src);
+        claim(reverseVisited, dest);
+        int[] forwardFrontier = {src};
+        int[] reverseFrontier = {dest};
+
+        while (forwardFrontier.length > 0 && reverseFrontier.length > 0) {
+            Expansion forward = new Expansion(forwardFrontier, 0, forwardFrontier.length, true,
+                    forwardVisited, reverseVisited, found);
+            Expansion reverse = new Expansion(reverseFrontier, 0, reverseFrontier.length, false,
+                    reverseVisited, forwardVisited, found);
+
+            // Both sides expand their level at the same time
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(forward, reverse)));
+
+            if (found.get()) {
+                return true;  // Intersection found
+            }
+            forwardFrontier = forward.join();
+            reverseFrontier = reverse.join();
+        }
+
+        return false;  // No intersection found
+    }
+
+    /**
+     * Sets the bit of a node in a bitset.
+     *
+     * @param visited The bitset.
+     * @param node    The id of the node.
+     * @return {@code true} if this call set the bit, {@code false} if it was already set.
+     */
+    static boolean claim(AtomicLongArray visited, int node) {
+        int word = node >>> 6;
+        long bit = 1L << node;
+        long current = visited.get(word);
+        while ((current & bit) == 0) {
+            if (visited.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+            current = visited.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the bit of a node is set in a bitset.
+     *
+     * @param visited The bitset.
+     * @param node    The id of the node.
+     * @return {@code true} if the bit is set, {@code false} otherwise.
+     */
+    static boolean isClaimed(AtomicLongArray visited, int node) {
+        return (visited.get(node >>> 6) & (1L << node)) != 0;
+    }
+
+    /**
+     * Expands a range of one side's frontier and returns the nodes it claimed for the next level.
+     */
+    @SuppressWarnings("serial")
+    private final class Expansion extends RecursiveTask<int[]> {
+
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final boolean forward;
+        private final AtomicLongArray visited;
+        private final AtomicLongArray otherVisited;
+        private final AtomicBoolean found;
+
+        /**
+         * Constructs an expansion of {@code frontier[from]} up to {@code frontier[to - 1]}.
+         *
+         * @param frontier     The frontier of the side.
+         * @param from         The first frontier index to expand.
+         * @param to           The frontier index just past the last one to expand.
+         * @param forward      {@code true} to follow out-edges, {@code false} to follow in-edges.
+         * @param visited      The bitset of this side.
+         * @param otherVisited The bitset of the other side.
+         * @param found        The shared termination flag.
+         */
+        Expansion(int[] frontier, int from, int to, boolean forward,
+                  AtomicLongArray visited, AtomicLongArray otherVisited, AtomicBoolean found) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.forward = forward;
+            this.visited = visited;
+            this.otherVisited = otherVisited;
+            this.found = found;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > SEQUENTIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                Expansion left = new Expansion(frontier, from, middle, forward, visited, otherVisited, found);
+                Expansion right = new Expansion(frontier, middle, to, forward, visited, otherVisited, found);
+                left.fork();
+                int[] rightNext = right.compute();
+                int[] leftNext = left.join();
+
+                int[] next = Arrays.copyOf(leftNext, leftNext.length + rightNext.length);
+                System.arraycopy(rightNext, 0, next, leftNext.length, rightNext.length);
+                return next;
+            }
+
+            IntGraph.NeighborCursor cursor = forward ? graph.forwardCursor() : graph.reverseCursor();
+            int[] next = new int[16];
+            int size = 0;
+            for (int i = from; i < to && !found.get(); i++) {
+                cursor.reset(frontier[i]);
+                for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+                    if (claim(visited, neighbor)) {
+                        if (isClaimed(otherVisited, neighbor)) {
+                            found.set(true);
+                            return new int[0];
+                        }
+                        if (size == next.length) {
+                            next = Arrays.copyOf(next, size * 2);
+                        }
+                        next[size++] = neighbor;
+                    }
+                }
+            }
+            return Arrays.copyOf(next, size);
+        }
+    }
+}
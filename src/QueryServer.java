@@ -0,0 +1,300 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Serves concurrent reachability and shortest-path queries over one shared, immutable graph.
+ * <p>
+ * Unlike {@link BidirectionalSearch}, a server holds no graph of its own: every query runs against the graph
+ * given to the constructor, which must not change while the server is open, such as a {@link CsrGraph} or a
+ * {@link ConcurrentGraph.Snapshot}. Queries are submitted without blocking and run on a fixed set of worker
+ * threads, each of which keeps one {@link SearchKernel} as scratch space, so a query allocates nothing on the
+ * search path however many are in flight.
+ * <p>
+ * Admission is bounded: at most {@code maxPending} queries may be queued or running at once, and further
+ * submissions fail right away with a {@link RejectedExecutionException} instead of queueing without limit.
+ * Every query has a deadline counted from its submission; the search checks it, and whether the returned future
+ * has been cancelled, every few dequeued nodes, and a query past its deadline fails with a
+ * {@link TimeoutException}.
+ */
+
+public class QueryServer implements AutoCloseable {
+
+    /**
+     * The default number of queries that may be queued or running at once.
+     */
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+
+    /**
+     * The default time a query may take from submission to answer, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1_000;
+
+    /**
+     * The graph all queries run against.
+     */
+    private final IntGraph graph;
+
+    /**
+     * The strategy of every reachability query.
+     */
+    private final BidirectionalSearch.Strategy strategy;
+
+    /**
+     * The time a query may take from submission to answer, in nanoseconds.
+     */
+    private final long timeoutNanos;
+
+    private final ExecutorService workers;
+
+    /**
+     * The search scratch space of each worker thread.
+     */
+    private final ThreadLocal<SearchKernel> kernels;
+
+    /**
+     * One permit per query that may still be admitted.
+     */
+    private final Semaphore admissions;
+
+    /**
+     * Whether {@link QueryServer#close()} has been called.
+     */
+    private volatile boolean closed;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * Constructs a server with one worker per available processor and the default limits.
+     *
+     * @param graph The graph to serve; must not change while the server is open.
+     */
+    public QueryServer(IntGraph graph) {
+        this(graph, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_PENDING, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a server.
+     *
+     * @param graph         The graph to serve; must not change while the server is open.
+     * @param threads       The number of worker threads.
+     * @param maxPending    The number of queries that may be queued or running at once.
+     * @param timeoutMillis The time a query may take from submission to answer, in milliseconds.
+     * @throws IllegalArgumentException If threads, maxPending or timeoutMillis is not positive.
+     */
+    public QueryServer(IntGraph graph, int threads, int maxPending, long timeoutMillis) {
+        if (threads < 1 || maxPending < 1 || timeoutMillis < 1) {
+            throw new IllegalArgumentException("Threads, pending queries and timeout must be positive: "
+                    + threads + ", " + maxPending + ", " + timeoutMillis);
+        }
+        this.graph = graph;
+        this.strategy = BidirectionalSearch.Strategy.SMALLER_FRONTIER;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.kernels = ThreadLocal.withInitial(() -> new SearchKernel(graph));
+        this.admissions = new Semaphore(maxPending);
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "query-server-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a reachability query.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return A future that completes with {@code true} if there is a path from src to dest, {@code false} otherwise.
+     */
+    public CompletableFuture<Boolean> search(String src, String dest) {
+        return search(graph.idOf(src), graph.idOf(dest));
+    }
+
+    /**
+     * Submits a reachability query between node ids.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return A future that completes with {@code true} if there is a path from src to dest, {@code false} otherwise.
+     */
+    public CompletableFuture<Boolean> search(int src, int dest) {
+        return submit(kernel -> kernel.search(src, dest, strategy));
+    }
+
+    /**
+     * Submits a bounded reachability query, which caps the work of a miss at the levels within the hop budget.
+     *
+     * @param src     The value of the starting node.
+     * @param dest    The value of the target node.
+     * @param maxHops The largest number of edges the path may have.
+     * @return A future that completes with {@code true} if dest is within maxHops edges of src, {@code false}
+     *         otherwise.
+     * @throws IllegalArgumentException If maxHops is negative.
+     */
+    public CompletableFuture<Boolean> searchWithin(String src, String dest, int maxHops) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("Hop budget must not be negative: " + maxHops);
+        }
+        int srcId = graph.idOf(src);
+        int destId = graph.idOf(dest);
+        return submit(kernel -> kernel.searchWithin(srcId, destId, maxHops));
+    }
+
+    /**
+     * Submits a shortest-path length query.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return A future that completes with the number of edges on a shortest path, or {@code -1} if there is none.
+     */
+    public CompletableFuture<Integer> distance(String src, String dest) {
+        int srcId = graph.idOf(src);
+        int destId = graph.idOf(dest);
+        return submit(kernel -> kernel.distance(srcId, destId));
+    }
+
+    /**
+     * Submits a shortest-path query.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @return A future that completes with the nodes on a shortest path from src to dest, both included,
+     *         or an empty list if there is no path.
+     */
+    public CompletableFuture<List<Node>> findPath(String src, String dest) {
+        int srcId = graph.idOf(src);
+        int destId = graph.idOf(dest);
+        return submit(kernel -> {
+            int[] path = kernel.findPath(srcId, destId);
+            if (path == null) {
+                return Collections.emptyList();
+            }
+            List<Node> nodes = new ArrayList<>(path.length);
+            for (int id : path) {
+                nodes.add(graph.nodeOf(id));
+            }
+            return nodes;
+        });
+    }
+
+    /**
+     * Admits a query and hands it to a worker.
+     * <p>
+     * The admission permit is returned as soon as the future completes, including when the caller cancels it;
+     * a worker still running a cancelled query notices at its next check and drops it.
+     *
+     * @param query The query to run on a worker's kernel.
+     * @param <T>   The type of the answer.
+     * @return A future for the answer.
+     */
+    private <T> CompletableFuture<T> submit(Function<SearchKernel, T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!admissions.tryAcquire()) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException("Too many pending queries"));
+            return future;
+        }
+        future.whenComplete((answer, failure) -> admissions.release());
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            workers.execute(() -> run(query, future, deadline));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs a query on the current worker's kernel, unless it was cancelled or timed out while queued.
+     *
+     * @param query    The query.
+     * @param future   The future to complete with the answer.
+     * @param deadline The {@link System#nanoTime()} at which the query times out.
+     * @param <T>      The type of the answer.
+     */
+    private <T> void run(Function<SearchKernel, T> query, CompletableFuture<T> future, long deadline) {
+        if (future.isDone()) {
+            return;
+        }
+        if (closed) {
+            future.cancel(false);
+            return;
+        }
+        SearchKernel kernel = kernels.get();
+        kernel.deadline = deadline;
+        kernel.query = future;
+        try {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new CancellationException("Query timed out while queued");
+            }
+            T answer = query.apply(kernel);
+            completed.increment();  // Counted first, so callers see it once the future completes
+            future.complete(answer);
+        } catch (CancellationException e) {
+            if (!future.isDone()) {
+                timedOut.increment();
+                future.completeExceptionally(new TimeoutException("Query timed out"));
+            }
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            kernel.deadline = SearchKernel.NO_DEADLINE;
+            kernel.query = null;
+        }
+    }
+
+    /**
+     * Returns the graph the server answers queries on.
+     *
+     * @return The graph.
+     */
+    public IntGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of queries answered so far.
+     *
+     * @return The number of completed queries.
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Returns the number of queries turned away so far because too many were pending or the server was closed.
+     *
+     * @return The number of rejected queries.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of queries that failed so far because their deadline passed.
+     *
+     * @return The number of timed out queries.
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Stops accepting queries and cancels the queued ones. Running queries finish or time out.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Runnable task : workers.shutdownNow()) {
+            task.run();  // Cancels the task's future without searching
+        }
+    }
+}
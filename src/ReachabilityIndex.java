@@ -0,0 +1,370 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A reachability index that answers most queries from precomputed labels instead of a traversal.
+ * <p>
+ * The graph is first condensed: every strongly connected component becomes one node of a DAG, so two nodes of
+ * the same component always reach each other. Components are numbered in reverse topological order by
+ * {@link StronglyConnectedComponents}, and every component also gets its height, the length of the longest DAG
+ * path down to a sink; a component can only reach components with a smaller number and a smaller height.
+ * <p>
+ * On top of that, every component gets GRAIL-style interval labels from several randomized depth-first traversals
+ * of the DAG: {@code [low, post]}, where {@code post} is the component's post-order rank and {@code low} the
+ * smallest rank below it. If a component reaches another one, the other's interval lies inside its own in every
+ * traversal, so one interval that does not nest proves there is no path. The first traversal also records
+ * pre-order intervals of its spanning tree, which prove a path whenever one component is a tree descendant of the
+ * other.
+ * <p>
+ * Queries that no label decides fall back to a depth-first search of the DAG that skips every component whose
+ * labels rule it out. The index describes the graph at the time it was built and must be rebuilt after the graph
+ * changes. Like {@link SearchKernel}, the fallback search reuses per-index state, so an index must not be queried
+ * from several threads at once.
+ */
+
+public class ReachabilityIndex {
+
+    /**
+     * The number of randomized interval traversals used when none is specified.
+     */
+    public static final int DEFAULT_TRAVERSALS = 3;
+
+    /**
+     * The answers of {@link ReachabilityIndex#decide(int, int)}.
+     */
+    private static final int UNREACHABLE = 0;
+    private static final int REACHABLE = 1;
+    private static final int UNDECIDED = 2;
+
+    /**
+     * The graph the index was built from.
+     */
+    final IntGraph graph;
+
+    /**
+     * The version of {@link ReachabilityIndex#graph} when the index was built, or {@code 0} for a graph that cannot change.
+     */
+    final long version;
+
+    /**
+     * The component of every node, indexed by node id.
+     */
+    private final int[] component;
+
+    /**
+     * The condensation DAG in CSR form, without duplicate edges.
+     */
+    private final int[] dagOffsets;
+    private final int[] dagTargets;
+
+    /**
+     * The length of the longest DAG path from every component down to a sink.
+     */
+    private final int[] height;
+
+    /**
+     * The {@code low} and {@code post} bounds of every traversal's interval, at {@code 2 * (component * traversals + traversal)}.
+     */
+    private final int[] intervals;
+    private final int traversals;
+
+    /**
+     * The pre-order rank of every component in the spanning tree of the first traversal, and the rank just past
+     * its subtree.
+     */
+    private final int[] treeStart;
+    private final int[] treeEnd;
+
+    /**
+     * The epoch in which each component was last visited by the fallback search, as in {@link SearchKernel}.
+     */
+    private final int[] visited;
+    private int[] stack = new int[16];
+    private int epoch;
+
+    private long edgesVisited;
+    private long guidedSearches;
+
+    /**
+     * Builds an index with {@link ReachabilityIndex#DEFAULT_TRAVERSALS} interval traversals.
+     *
+     * @param graph The graph to index; must not change while the index is built.
+     * @return The index.
+     */
+    public static ReachabilityIndex build(IntGraph graph) {
+        return build(graph, DEFAULT_TRAVERSALS);
+    }
+
+    /**
+     * Builds an index.
+     * <p>
+     * More traversals rule out more unreachable pairs by labels alone, at the cost of two {@code int} per component
+     * and one DAG traversal each.
+     *
+     * @param graph      The graph to index; must not change while the index is built.
+     * @param traversals The number of randomized interval traversals, at least {@code 1}.
+     * @return The index.
+     * @throws IllegalArgumentException If traversals is less than {@code 1}.
+     */
+    public static ReachabilityIndex build(IntGraph graph, int traversals) {
+        if (traversals < 1) {
+            throw new IllegalArgumentException("At least one traversal is needed: " + traversals);
+        }
+        return new ReachabilityIndex(graph, traversals);
+    }
+
+    /**
+     * Condenses the graph and computes all labels.
+     *
+     * @param graph      The graph to index.
+     * @param traversals The number of randomized interval traversals.
+     */
+    private ReachabilityIndex(IntGraph graph, int traversals) {
+        this.graph = graph;
+        this.version = graph.version();
+        this.traversals = traversals;
+
+        StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+        this.component = components.component;
+        int count = components.count;
+
+        int[][] dag = components.dag();
+        this.dagOffsets = dag[0];
+        this.dagTargets = dag[1];
+
+        // Successors always have smaller numbers, so ascending order visits them first
+        this.height = new int[count];
+        for (int c = 0; c < count; c++) {
+            for (int i = dagOffsets[c]; i < dagOffsets[c + 1]; i++) {
+                height[c] = Math.max(height[c], height[dagTargets[i]] + 1);
+            }
+        }
+
+        this.intervals = new int[2 * count * traversals];
+        this.treeStart = new int[count];
+        this.treeEnd = new int[count];
+        Random random = new Random(count);
+        for (int traversal = 0; traversal < traversals; traversal++) {
+            label(traversal, random);
+        }
+
+        this.visited = new int[count];
+    }
+
+    /**
+     * Runs one randomized depth-first traversal of the DAG from its sources and records the interval of every
+     * component. The first traversal also records the spanning-tree intervals.
+     *
+     * @param traversal The number of the traversal.
+     * @param random    Picks the first root and the first child of every component.
+     */
+    private void label(int traversal, Random random) {
+        int count = height.length;
+        boolean[] hasParent = new boolean[count];
+        for (int target : dagTargets) {
+            hasParent[target] = true;
+        }
+
+        int[] edge = new int[count];
+        int[] shift = new int[count];
+        boolean[] discovered = new boolean[count];
+        int[] calls = new int[count];
+        int post = 0;
+        int pre = 0;
+        int firstRoot = count == 0 ? 0 : random.nextInt(count);
+        for (int r = 0; r < count; r++) {
+            int root = (firstRoot + r) % count;
+            if (hasParent[root]) {
+                continue;
+            }
+            int callDepth = 0;
+            discovered[root] = true;
+            if (traversal == 0) {
+                treeStart[root] = pre++;
+            }
+            calls[callDepth++] = root;
+            start(root, edge, shift, random);
+
+            while (callDepth > 0) {
+                int c = calls[callDepth - 1];
+                int degree = dagOffsets[c + 1] - dagOffsets[c];
+                if (edge[c] < degree) {
+                    // Children are visited in a rotated order starting at a random one
+                    int child = dagTargets[dagOffsets[c] + (edge[c]++ + shift[c]) % degree];
+                    if (!discovered[child]) {
+                        discovered[child] = true;
+                        if (traversal == 0) {
+                            treeStart[child] = pre++;
+                        }
+                        calls[callDepth++] = child;
+                        start(child, edge, shift, random);
+                    }
+                    continue;
+                }
+
+                callDepth--;
+                int rank = ++post;
+                int low = rank;
+                for (int i = dagOffsets[c]; i < dagOffsets[c + 1]; i++) {
+                    low = Math.min(low, intervals[2 * (dagTargets[i] * traversals + traversal)]);
+                }
+                intervals[2 * (c * traversals + traversal)] = low;
+                intervals[2 * (c * traversals + traversal) + 1] = rank;
+                if (traversal == 0) {
+                    treeEnd[c] = pre;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepares a component for the traversal: no child visited yet, starting at a random one.
+     *
+     * @param c      The component.
+     * @param edge   The number of children visited so far, per component.
+     * @param shift  The index of the first child to visit, per component.
+     * @param random The source of randomness.
+     */
+    private void start(int c, int[] edge, int[] shift, Random random) {
+        int degree = dagOffsets[c + 1] - dagOffsets[c];
+        edge[c] = 0;
+        shift[c] = degree > 1 ? random.nextInt(degree) : 0;
+    }
+
+    /**
+     * Checks whether a node is reachable from another one.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the target node.
+     * @return {@code true} if dest is reachable from src, {@code false} otherwise or if either node is unknown.
+     */
+    public boolean isReachable(String src, String dest) {
+        return isReachable(graph.idOf(src), graph.idOf(dest));
+    }
+
+    /**
+     * Checks whether a node id is reachable from another one, from the labels when they decide and with a
+     * label-pruned search of the condensation otherwise.
+     *
+     * @param src  The id of the source node.
+     * @param dest The id of the target node.
+     * @return {@code true} if dest is reachable from src, {@code false} otherwise or if either id is {@link IntGraph#NO_NODE}.
+     */
+    public boolean isReachable(int src, int dest) {
+        edgesVisited = 0;
+        if (src == IntGraph.NO_NODE || dest == IntGraph.NO_NODE) {
+            return false;
+        }
+        int from = component[src];
+        int to = component[dest];
+        int decided = decide(from, to);
+        if (decided != UNDECIDED) {
+            return decided == REACHABLE;
+        }
+
+        guidedSearches++;
+        if (++epoch == 0) {
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+        int size = 0;
+        stack[size++] = from;
+        visited[from] = epoch;
+        while (size > 0) {
+            int c = stack[--size];
+            for (int i = dagOffsets[c]; i < dagOffsets[c + 1]; i++) {
+                int child = dagTargets[i];
+                edgesVisited++;
+                if (visited[child] == epoch) {
+                    continue;
+                }
+                visited[child] = epoch;
+                decided = decide(child, to);
+                if (decided == REACHABLE) {
+                    return true;
+                }
+                if (decided == UNDECIDED) {
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = child;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries to decide from the labels alone whether one component reaches another.
+     *
+     * @param from The source component.
+     * @param to   The target component.
+     * @return {@code REACHABLE}, {@code UNREACHABLE}, or {@code UNDECIDED} if the labels allow both.
+     */
+    private int decide(int from, int to) {
+        if (from == to) {
+            return REACHABLE;
+        }
+        if (from < to || height[from] <= height[to]) {
+            return UNREACHABLE;
+        }
+        int fromBase = 2 * from * traversals;
+        int toBase = 2 * to * traversals;
+        for (int i = 0; i < 2 * traversals; i += 2) {
+            if (intervals[toBase + i] < intervals[fromBase + i] || intervals[toBase + i + 1] > intervals[fromBase + i + 1]) {
+                return UNREACHABLE;
+            }
+        }
+        if (treeStart[from] <= treeStart[to] && treeStart[to] < treeEnd[from]) {
+            return REACHABLE;
+        }
+        return UNDECIDED;
+    }
+
+    /**
+     * Checks whether the index still describes a graph.
+     *
+     * @param graph The graph to check.
+     * @return {@code true} if the index was built from this graph and the graph has not changed since.
+     */
+    boolean isCurrent(IntGraph graph) {
+        return graph == this.graph && graph.version() == version;
+    }
+
+    /**
+     * Returns the number of strongly connected components, which is the number of nodes of the condensation.
+     *
+     * @return The number of components.
+     */
+    public int componentCount() {
+        return height.length;
+    }
+
+    /**
+     * Returns the heap size of the index: the component map, the condensation and all labels.
+     *
+     * @return The size in bytes, not counting object headers.
+     */
+    public long sizeBytes() {
+        return (long) Integer.BYTES * (component.length + dagOffsets.length + dagTargets.length + height.length
+                + intervals.length + treeStart.length + treeEnd.length + visited.length + stack.length);
+    }
+
+    /**
+     * Returns the number of condensation edges examined by the last query; {@code 0} when the labels decided it.
+     *
+     * @return The number of edges examined.
+     */
+    public long getEdgesVisited() {
+        return edgesVisited;
+    }
+
+    /**
+     * Returns the number of queries so far that the labels could not decide and that needed a search.
+     *
+     * @return The number of guided searches.
+     */
+    public long getGuidedSearches() {
+        return guidedSearches;
+    }
+}
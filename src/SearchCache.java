@@ -0,0 +1,224 @@
+import java.util.*;
+
+/**
+ * A size-bounded, least-recently-used cache of search results.
+ * <p>
+ * Every entry is keyed by the source, the destination and the kind of query, so reachability answers and
+ * shortest paths for the same pair are cached separately. The cache remembers the graph version its entries
+ * were computed at, and drops all of them as soon as a lookup or insert sees a different version, so a result
+ * is never served after the graph has been modified.
+ * <p>
+ * A cache serves exactly one graph: the first search that uses it binds it to the searched graph, and using it
+ * for any other graph is rejected, since the keys do not say which graph a result came from. All methods are
+ * synchronized, so a cache can be shared by several searches over the same graph.
+ */
+
+public class SearchCache {
+
+    /**
+     * The kind of query a cached result answers.
+     */
+    enum Kind {
+
+        /**
+         * A {@link Boolean} reachability answer.
+         */
+        SEARCH,
+
+        /**
+         * An unmodifiable {@link List} of the nodes on a shortest path.
+         */
+        PATH
+    }
+
+    /**
+     * The key of a cached result.
+     *
+     * @param src  The value of the starting node.
+     * @param dest The value of the target node.
+     * @param kind The kind of query.
+     */
+    private record Key(String src, String dest, Kind kind) {
+    }
+
+    /**
+     * The maximum number of entries held at once.
+     */
+    private final int maxEntries;
+
+    /**
+     * The cached results, in least-recently-used order.
+     */
+    private final LinkedHashMap<Key, Object> entries;
+
+    /**
+     * The graph every entry was computed on, or {@code null} until the cache is first used.
+     */
+    private IntGraph graph;
+
+    /**
+     * The graph version every entry was computed at.
+     */
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxEntries The maximum number of entries held at once; the least recently used entry is evicted beyond it.
+     */
+    public SearchCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > SearchCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Binds the cache to a graph, unless it already serves it.
+     *
+     * @param graph The searched graph.
+     * @throws IllegalArgumentException If the cache already serves another graph.
+     */
+    synchronized void bind(IntGraph graph) {
+        if (this.graph == null) {
+            this.graph = graph;
+        } else if (this.graph != graph) {
+            throw new IllegalArgumentException("The cache already serves another graph");
+        }
+    }
+
+    /**
+     * Looks up a cached result.
+     *
+     * @param graph        The searched graph.
+     * @param src          The value of the starting node.
+     * @param dest         The value of the target node.
+     * @param kind         The kind of query.
+     * @param graphVersion The current version of the searched graph.
+     * @return The cached result, or {@code null} if there is none for this graph version.
+     * @throws IllegalArgumentException If the cache already serves another graph.
+     */
+    synchronized Object get(IntGraph graph, String src, String dest, Kind kind, long graphVersion) {
+        validate(graph, graphVersion);
+        Object result = entries.get(new Key(src, dest, kind));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Caches a result.
+     *
+     * @param graph        The searched graph.
+     * @param src          The value of the starting node.
+     * @param dest         The value of the target node.
+     * @param kind         The kind of query.
+     * @param graphVersion The version of the searched graph the result was computed at.
+     * @param result       The result to cache.
+     * @throws IllegalArgumentException If the cache already serves another graph.
+     */
+    synchronized void put(IntGraph graph, String src, String dest, Kind kind, long graphVersion, Object result) {
+        validate(graph, graphVersion);
+        entries.put(new Key(src, dest, kind), result);
+    }
+
+    /**
+     * Checks that the cache serves a graph, and drops every entry if the graph version has changed since they were
+     * computed.
+     *
+     * @param graph        The searched graph.
+     * @param graphVersion The current version of the searched graph.
+     * @throws IllegalArgumentException If the cache already serves another graph.
+     */
+    private void validate(IntGraph graph, long graphVersion) {
+        bind(graph);
+        if (graphVersion != version) {
+            if (!entries.isEmpty()) {
+                entries.clear();
+                invalidations++;
+            }
+            version = graphVersion;
+        }
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of entries currently cached.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a result.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no result.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the size bound.
+     *
+     * @return The number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of times the cache was emptied because the graph changed.
+     *
+     * @return The number of invalidations.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns a summary of the cache counters.
+     *
+     * @return A string with the size and the hit, miss, eviction and invalidation counts.
+     */
+    @Override
+    public synchronized String toString() {
+        return "SearchCache{size=" + entries.size() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", invalidations=" + invalidations + "}";
+    }
+}
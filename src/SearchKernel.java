@@ -0,0 +1,767 @@
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+
+/**
+ * A reusable bidirectional breadth-first search over the node ids of an {@link IntGraph}.
+ * <p>
+ * All search state lives in primitive arrays that are allocated once and reused by every query,
+ * so after warm-up a query allocates nothing. Visited marks are epoch-stamped: a node is visited
+ * in the current query when its mark equals the current epoch, so nothing needs clearing between
+ * queries. Nodes are marked when they are enqueued, so each node enters each queue at most once.
+ * <p>
+ * A kernel is not thread-safe; use one kernel per thread.
+ * <p>
+ * A search can be bounded by a {@link SearchKernel#deadline} and tied to a {@link SearchKernel#query}: every few
+ * dequeued nodes it checks both and gives up with a {@link CancellationException} once the deadline has passed or
+ * the query is done, for example because it was cancelled.
+ */
+
+public class SearchKernel {
+
+    /**
+     * The graph on which the searches are performed.
+     */
+    final IntGraph graph;
+
+    private final IntGraph.NeighborCursor forwardCursor;
+    private final IntGraph.NeighborCursor reverseCursor;
+
+    /**
+     * The forward and reverse queues. Every node is enqueued at most once per side and query,
+     * so a queue of {@code nodeCount} entries never needs to wrap around.
+     */
+    private int[] forwardQueue = new int[0];
+    private int[] reverseQueue = new int[0];
+
+    /**
+     * The epoch in which each node was last reached by the forward and the reverse side.
+     */
+    private int[] forwardMark = new int[0];
+    private int[] reverseMark = new int[0];
+
+    /**
+     * The epoch of the current query.
+     */
+    private int epoch;
+
+    /**
+     * The next node to dequeue and the next free slot of each queue in the current query.
+     */
+    private int forwardHead;
+    private int forwardTail;
+    private int reverseHead;
+    private int reverseTail;
+
+    /**
+     * The number of edges examined by the current or last query.
+     */
+    private long edgesVisited;
+
+    /**
+     * The BFS depth of each node on the forward and the reverse side, valid while its mark equals the current epoch.
+     * Allocated on the first shortest-path query.
+     */
+    private int[] forwardDistance = new int[0];
+    private int[] reverseDistance = new int[0];
+
+    /**
+     * The node each node was discovered from on the forward and the reverse side, valid while its mark equals
+     * the current epoch. Allocated on the first shortest-path query.
+     */
+    private int[] forwardParent = new int[0];
+    private int[] reverseParent = new int[0];
+
+    /**
+     * The node on which the shortest path found by the last shortest-path query joins its two halves.
+     */
+    private int meetingNode;
+
+    /**
+     * The edges a bottom-up step of each side could still examine in a direction-optimizing search:
+     * the in-edges of nodes the forward side has not reached, and the out-edges of nodes the reverse side has not reached.
+     */
+    private long forwardUnexplored;
+    private long reverseUnexplored;
+
+    /**
+     * Whether each side's last level in a direction-optimizing search was expanded bottom-up.
+     */
+    private boolean forwardBottomUp;
+    private boolean reverseBottomUp;
+
+    /**
+     * The statistics recorded by {@link SearchKernel#search(int, int, BidirectionalSearch.Strategy)},
+     * or {@code null} when they are not recorded.
+     */
+    SearchStats stats;
+
+    /**
+     * The value of {@link SearchKernel#deadline} for searches that run until they finish.
+     */
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * The number of dequeued nodes between two checks of the deadline and the query, minus one.
+     */
+    private static final int POLL_MASK = 63;
+
+    /**
+     * The {@link System#nanoTime()} at which searches give up, or {@link SearchKernel#NO_DEADLINE}.
+     */
+    long deadline = NO_DEADLINE;
+
+    /**
+     * The query the searches run for, or {@code null}. Searches give up once it is done; only checked while
+     * {@link SearchKernel#deadline} is set.
+     */
+    Future<?> query;
+
+    /**
+     * The number of nodes dequeued since the kernel was created, used to space out the checks.
+     */
+    private int polls;
+
+    /**
+     * Constructs a search kernel for the specified graph.
+     *
+     * @param graph The graph on which the searches will be performed.
+     */
+    public SearchKernel(IntGraph graph) {
+        this.graph = graph;
+        this.forwardCursor = graph.forwardCursor();
+        this.reverseCursor = graph.reverseCursor();
+    }
+
+    /**
+     * Performs bidirectional search between two node ids, alternating one node forward and one node backward.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    public boolean search(int src, int dest) {
+        return search(src, dest, BidirectionalSearch.Strategy.ALTERNATING);
+    }
+
+    /**
+     * Performs bidirectional search between two node ids with the given expansion strategy.
+     * <p>
+     * The search stops as soon as one side reaches a node the other side has already reached.
+     * The number of edges examined is available from {@link SearchKernel#getEdgesVisited()} afterwards.
+     *
+     * @param src      The id of the starting node.
+     * @param dest     The id of the target node.
+     * @param strategy The order in which the two sides are expanded.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    public boolean search(int src, int dest, BidirectionalSearch.Strategy strategy) {
+        boolean found = run(src, dest, strategy);
+        if (stats != null) {
+            stats.finish(found, forwardHead, reverseHead, edgesVisited);
+        }
+        return found;
+    }
+
+    /**
+     * Runs the search of {@link SearchKernel#search(int, int, BidirectionalSearch.Strategy)}. Afterwards the
+     * queue heads hold the number of nodes each side has expanded.
+     *
+     * @param src      The id of the starting node.
+     * @param dest     The id of the target node.
+     * @param strategy The order in which the two sides are expanded.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    private boolean run(int src, int dest, BidirectionalSearch.Strategy strategy) {
+        if (!begin(src, dest)) {
+            return src != IntGraph.NO_NODE && src == dest;
+        }
+
+        if (strategy == BidirectionalSearch.Strategy.DIRECTION_OPTIMIZING) {
+            return searchDirectionOptimizing(src, dest);
+        }
+
+        while (forwardHead < forwardTail && reverseHead < reverseTail) {
+            if (strategy == BidirectionalSearch.Strategy.ALTERNATING) {
+                if (expandForward() || expandReverse()) {
+                    return true;  // Intersection found
+                }
+            } else if (expandForwardLevel(strategy)) {
+                if (stats != null) {
+                    stats.level(true, forwardTail - forwardHead);
+                }
+                if (expandLevel(forwardHead, forwardTail, true)) {
+                    return true;  // Intersection found
+                }
+            } else {
+                if (stats != null) {
+                    stats.level(false, reverseTail - reverseHead);
+                }
+                if (expandLevel(reverseHead, reverseTail, false)) {
+                    return true;  // Intersection found
+                }
+            }
+        }
+
+        return false;  // No intersection found
+    }
+
+    /**
+     * Checks whether there is a path of at most a given number of edges between two node ids.
+     * <p>
+     * The two sides expand whole levels, the one with the smaller frontier first, and share the hop budget: once
+     * the depths of the two sides add up to maxHops, the search stops. A miss therefore only explores the nodes
+     * within a few hops of either end instead of everything src reaches, and a hit is found at the same level an
+     * unbounded level-synchronous search would find it.
+     *
+     * @param src     The id of the starting node.
+     * @param dest    The id of the target node.
+     * @param maxHops The largest number of edges the path may have.
+     * @return {@code true} if dest is within maxHops edges of src, {@code false} otherwise.
+     * @throws IllegalArgumentException If maxHops is negative.
+     */
+    public boolean searchWithin(int src, int dest, int maxHops) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("Hop budget must not be negative: " + maxHops);
+        }
+        boolean found = runWithin(src, dest, maxHops);
+        if (stats != null) {
+            stats.finish(found, forwardHead, reverseHead, edgesVisited);
+        }
+        return found;
+    }
+
+    /**
+     * Runs the search of {@link SearchKernel#searchWithin(int, int, int)}.
+     *
+     * @param src     The id of the starting node.
+     * @param dest    The id of the target node.
+     * @param maxHops The largest number of edges the path may have.
+     * @return {@code true} if dest is within maxHops edges of src, {@code false} otherwise.
+     */
+    private boolean runWithin(int src, int dest, int maxHops) {
+        if (!begin(src, dest)) {
+            return src != IntGraph.NO_NODE && src == dest;
+        }
+
+        // A meeting while expanding a level is at most forwardDepth + reverseDepth + 1 edges from both ends
+        int forwardDepth = 0;
+        int reverseDepth = 0;
+        while (forwardDepth + reverseDepth < maxHops && forwardHead < forwardTail && reverseHead < reverseTail) {
+            boolean forward = forwardTail - forwardHead <= reverseTail - reverseHead;
+            if (stats != null) {
+                stats.level(forward, forward ? forwardTail - forwardHead : reverseTail - reverseHead);
+            }
+            if (expandLevel(forward ? forwardHead : reverseHead, forward ? forwardTail : reverseTail, forward)) {
+                return true;  // Intersection found
+            }
+            if (forward) {
+                forwardDepth++;
+            } else {
+                reverseDepth++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resets the counters and queues and, unless the query is trivial, starts a new epoch with src and dest
+     * marked and enqueued on their sides.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return {@code true} if the search must run, {@code false} if either id is {@link IntGraph#NO_NODE} or
+     *         both are the same.
+     */
+    private boolean begin(int src, int dest) {
+        edgesVisited = 0;
+        forwardHead = 0;
+        forwardTail = 0;
+        reverseHead = 0;
+        reverseTail = 0;
+        if (src == IntGraph.NO_NODE || dest == IntGraph.NO_NODE || src == dest) {
+            return false;
+        }
+        epoch = nextEpoch();
+
+        forwardMark[src] = epoch;
+        forwardQueue[forwardTail++] = src;
+        reverseMark[dest] = epoch;
+        reverseQueue[reverseTail++] = dest;
+        return true;
+    }
+
+    /**
+     * Returns the number of edges examined by the last search.
+     *
+     * @return The number of edges examined.
+     */
+    public long getEdgesVisited() {
+        return edgesVisited;
+    }
+
+    /**
+     * Decides which side expands its next level: the one with the smaller frontier, or the one
+     * whose frontier has the smaller sum of degrees in its search direction.
+     *
+     * @param strategy The level-synchronous strategy in use.
+     * @return {@code true} if the forward side should expand next, {@code false} otherwise.
+     */
+    private boolean expandForwardLevel(BidirectionalSearch.Strategy strategy) {
+        if (strategy == BidirectionalSearch.Strategy.SMALLER_FRONTIER) {
+            return forwardTail - forwardHead <= reverseTail - reverseHead;
+        }
+
+        long forwardDegrees = 0;
+        for (int i = forwardHead; i < forwardTail; i++) {
+            forwardDegrees += graph.outDegree(forwardQueue[i]);
+        }
+        long reverseDegrees = 0;
+        for (int i = reverseHead; i < reverseTail; i++) {
+            reverseDegrees += graph.inDegree(reverseQueue[i]);
+        }
+        return forwardDegrees <= reverseDegrees;
+    }
+
+    /**
+     * Expands every node of one side's current level.
+     *
+     * @param head    The first queue index of the level.
+     * @param tail    The queue index just past the level.
+     * @param forward {@code true} to expand the forward side, {@code false} for the reverse side.
+     * @return {@code true} if the two sides met, {@code false} otherwise.
+     */
+    private boolean expandLevel(int head, int tail, boolean forward) {
+        for (int i = head; i < tail; i++) {
+            if (forward ? expandForward() : expandReverse()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dequeues one node on the forward side and enqueues its unvisited out-neighbors.
+     *
+     * @return {@code true} if an out-neighbor was already reached by the reverse side, {@code false} otherwise.
+     */
+    private boolean expandForward() {
+        poll();
+        forwardCursor.reset(forwardQueue[forwardHead++]);
+        for (int neighbor = forwardCursor.next(); neighbor != IntGraph.NO_NODE; neighbor = forwardCursor.next()) {
+            edgesVisited++;
+            if (forwardMark[neighbor] != epoch) {
+                if (reverseMark[neighbor] == epoch) {
+                    return true;
+                }
+                forwardMark[neighbor] = epoch;
+                forwardQueue[forwardTail++] = neighbor;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dequeues one node on the reverse side and enqueues its unvisited in-neighbors.
+     *
+     * @return {@code true} if an in-neighbor was already reached by the forward side, {@code false} otherwise.
+     */
+    private boolean expandReverse() {
+        poll();
+        reverseCursor.reset(reverseQueue[reverseHead++]);
+        for (int neighbor = reverseCursor.next(); neighbor != IntGraph.NO_NODE; neighbor = reverseCursor.next()) {
+            edgesVisited++;
+            if (reverseMark[neighbor] != epoch) {
+                if (forwardMark[neighbor] == epoch) {
+                    return true;
+                }
+                reverseMark[neighbor] = epoch;
+                reverseQueue[reverseTail++] = neighbor;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a level-synchronous search that expands the side with the smaller frontier, choosing top-down or
+     * bottom-up for each level with the heuristics of {@link DirectionOptimizingBfs}.
+     * Both queues must already hold their start node.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return {@code true} if it finds a path from the src to dest, {@code false} otherwise.
+     */
+    private boolean searchDirectionOptimizing(int src, int dest) {
+        ensurePathArrays();
+        forwardDistance[src] = 0;
+        reverseDistance[dest] = 0;
+        forwardUnexplored = graph.edgeCount() - graph.inDegree(src);
+        reverseUnexplored = graph.edgeCount() - graph.outDegree(dest);
+        forwardBottomUp = false;
+        reverseBottomUp = false;
+
+        while (forwardHead < forwardTail && reverseHead < reverseTail) {
+            if (expandDirectionOptimizing(forwardTail - forwardHead <= reverseTail - reverseHead)) {
+                return true;  // Intersection found
+            }
+        }
+
+        return false;  // No intersection found
+    }
+
+    /**
+     * Expands one level of a side in a direction-optimizing search.
+     * <p>
+     * Top-down, every frontier node pushes its edges in the side's search direction. Bottom-up, every node the
+     * side has not reached scans its edges in the opposite direction and joins the next level as soon as one of
+     * them leads to the frontier.
+     *
+     * @param forward {@code true} to expand the forward side, {@code false} for the reverse side.
+     * @return {@code true} if the two sides met, {@code false} otherwise.
+     */
+    private boolean expandDirectionOptimizing(boolean forward) {
+        int[] queue = forward ? forwardQueue : reverseQueue;
+        int[] mark = forward ? forwardMark : reverseMark;
+        int[] otherMark = forward ? reverseMark : forwardMark;
+        int[] distance = forward ? forwardDistance : reverseDistance;
+        int head = forward ? forwardHead : reverseHead;
+        int tail = forward ? forwardTail : reverseTail;
+        long unexplored = forward ? forwardUnexplored : reverseUnexplored;
+        boolean bottomUp = forward ? forwardBottomUp : reverseBottomUp;
+        int level = distance[queue[head]];
+        int nodes = graph.nodeCount();
+        if (stats != null) {
+            stats.level(forward, tail - head);
+        }
+
+        if (!bottomUp) {
+            long frontierEdges = 0;
+            for (int i = head; i < tail; i++) {
+                frontierEdges += forward ? graph.outDegree(queue[i]) : graph.inDegree(queue[i]);
+            }
+            bottomUp = frontierEdges > unexplored / DirectionOptimizingBfs.ALPHA;
+        } else if (tail - head < nodes / DirectionOptimizingBfs.BETA) {
+            bottomUp = false;
+        }
+
+        boolean met = false;
+        if (bottomUp) {
+            IntGraph.NeighborCursor cursor = forward ? reverseCursor : forwardCursor;
+            head = tail;
+            for (int node = 0; node < nodes && !met; node++) {
+                if (mark[node] == epoch) {
+                    continue;
+                }
+                poll();
+                cursor.reset(node);
+                for (int parent = cursor.next(); parent != IntGraph.NO_NODE; parent = cursor.next()) {
+                    edgesVisited++;
+                    if (mark[parent] == epoch && distance[parent] == level) {
+                        mark[node] = epoch;
+                        distance[node] = level + 1;
+                        queue[tail++] = node;
+                        unexplored -= forward ? graph.inDegree(node) : graph.outDegree(node);
+                        met = otherMark[node] == epoch;
+                        break;
+                    }
+                }
+            }
+        } else {
+            IntGraph.NeighborCursor cursor = forward ? forwardCursor : reverseCursor;
+            for (int end = tail; head < end && !met; head++) {
+                poll();
+                cursor.reset(queue[head]);
+                for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+                    edgesVisited++;
+                    if (mark[neighbor] != epoch) {
+                        mark[neighbor] = epoch;
+                        distance[neighbor] = level + 1;
+                        queue[tail++] = neighbor;
+                        unexplored -= forward ? graph.inDegree(neighbor) : graph.outDegree(neighbor);
+                        if (otherMark[neighbor] == epoch) {
+                            met = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (forward) {
+            forwardHead = head;
+            forwardTail = tail;
+            forwardUnexplored = unexplored;
+            forwardBottomUp = bottomUp;
+        } else {
+            reverseHead = head;
+            reverseTail = tail;
+            reverseUnexplored = unexplored;
+            reverseBottomUp = bottomUp;
+        }
+        return met;
+    }
+
+    /**
+     * Returns the length of a shortest path between two node ids.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return The number of edges on a shortest path from src to dest, or {@code -1} if dest is not reachable.
+     */
+    public int distance(int src, int dest) {
+        return meet(src, dest);
+    }
+
+    /**
+     * Finds a shortest path between two node ids.
+     * <p>
+     * The path is stitched together at the meeting node from the forward parent pointers,
+     * which lead back to src, and the reverse parent pointers, which lead on to dest.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return The ids on a shortest path from src to dest, both included, or {@code null} if dest is not reachable.
+     */
+    public int[] findPath(int src, int dest) {
+        int length = meet(src, dest);
+        if (length < 0) {
+            return null;
+        }
+
+        int[] path = new int[length + 1];
+        int meetingDepth = forwardDistance[meetingNode];
+        int node = meetingNode;
+        for (int i = meetingDepth; i >= 0; i--) {
+            path[i] = node;
+            node = forwardParent[node];
+        }
+        node = meetingNode;
+        for (int i = meetingDepth + 1; i <= length; i++) {
+            node = reverseParent[node];
+            path[i] = node;
+        }
+        return path;
+    }
+
+    /**
+     * Runs one breadth-first search from a node and checks which of several targets it reaches.
+     * <p>
+     * This answers a whole group of queries that share a source, or a destination when searching backward,
+     * with a single traversal. The targets are marked on the reverse marks first, and the search stops as soon
+     * as every distinct target has been reached.
+     *
+     * @param start   The id of the node the search starts from.
+     * @param targets The ids of the targets; {@link IntGraph#NO_NODE} is never reached.
+     * @param forward {@code true} to follow out-edges from start, {@code false} to follow in-edges.
+     * @param reached Receives, for every target, whether the search reached it. Must be as long as targets.
+     */
+    public void reachAll(int start, int[] targets, boolean forward, boolean[] reached) {
+        edgesVisited = 0;
+        if (start == IntGraph.NO_NODE) {
+            Arrays.fill(reached, 0, targets.length, false);
+            return;
+        }
+        epoch = nextEpoch();
+
+        int pending = 0;
+        for (int target : targets) {
+            if (target != IntGraph.NO_NODE && reverseMark[target] != epoch) {
+                reverseMark[target] = epoch;
+                pending++;
+            }
+        }
+
+        IntGraph.NeighborCursor cursor = forward ? forwardCursor : reverseCursor;
+        forwardHead = 0;
+        forwardTail = 0;
+        forwardMark[start] = epoch;
+        forwardQueue[forwardTail++] = start;
+        if (reverseMark[start] == epoch) {
+            pending--;
+        }
+
+        while (pending > 0 && forwardHead < forwardTail) {
+            cursor.reset(forwardQueue[forwardHead++]);
+            for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+                edgesVisited++;
+                if (forwardMark[neighbor] != epoch) {
+                    forwardMark[neighbor] = epoch;
+                    forwardQueue[forwardTail++] = neighbor;
+                    if (reverseMark[neighbor] == epoch) {
+                        pending--;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < targets.length; i++) {
+            reached[i] = targets[i] != IntGraph.NO_NODE && forwardMark[targets[i]] == epoch;
+        }
+    }
+
+    /**
+     * Runs a level-synchronous bidirectional search that records depths and parent pointers on both sides,
+     * always expanding the side with the smaller frontier.
+     * <p>
+     * Every node reached by both sides is a candidate meeting node, and its path length is the sum of its
+     * two depths. Once a level produces a candidate, the rest of that level is still expanded and the best
+     * candidate is kept: any shorter path would have to cross a node reached by both sides at smaller total
+     * depth, and all such nodes are seen by the end of the level.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return The length of a shortest path, or {@code -1} if dest is not reachable.
+     */
+    private int meet(int src, int dest) {
+        edgesVisited = 0;
+        if (src == IntGraph.NO_NODE || dest == IntGraph.NO_NODE) {
+            return -1;
+        }
+        epoch = nextEpoch();
+        ensurePathArrays();
+
+        forwardHead = 0;
+        forwardTail = 0;
+        reverseHead = 0;
+        reverseTail = 0;
+
+        forwardMark[src] = epoch;
+        forwardDistance[src] = 0;
+        forwardParent[src] = IntGraph.NO_NODE;
+        forwardQueue[forwardTail++] = src;
+        reverseMark[dest] = epoch;
+        reverseDistance[dest] = 0;
+        reverseParent[dest] = IntGraph.NO_NODE;
+        reverseQueue[reverseTail++] = dest;
+
+        meetingNode = IntGraph.NO_NODE;
+        int best = src == dest ? 0 : Integer.MAX_VALUE;
+        if (best == 0) {
+            meetingNode = src;
+        }
+
+        while (best == Integer.MAX_VALUE && forwardHead < forwardTail && reverseHead < reverseTail) {
+            if (forwardTail - forwardHead <= reverseTail - reverseHead) {
+                for (int end = forwardTail; forwardHead < end; ) {
+                    best = relaxForward(best);
+                }
+            } else {
+                for (int end = reverseTail; reverseHead < end; ) {
+                    best = relaxReverse(best);
+                }
+            }
+        }
+
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Dequeues one node on the forward side, records depth and parent of its newly reached out-neighbors,
+     * and updates the best meeting node.
+     *
+     * @param best The length of the best path found so far.
+     * @return The length of the best path found so far, including this node's out-neighbors.
+     */
+    private int relaxForward(int best) {
+        poll();
+        int node = forwardQueue[forwardHead++];
+        int depth = forwardDistance[node] + 1;
+        forwardCursor.reset(node);
+        for (int neighbor = forwardCursor.next(); neighbor != IntGraph.NO_NODE; neighbor = forwardCursor.next()) {
+            edgesVisited++;
+            if (forwardMark[neighbor] != epoch) {
+                forwardMark[neighbor] = epoch;
+                forwardDistance[neighbor] = depth;
+                forwardParent[neighbor] = node;
+                forwardQueue[forwardTail++] = neighbor;
+                if (reverseMark[neighbor] == epoch && depth + reverseDistance[neighbor] < best) {
+                    best = depth + reverseDistance[neighbor];
+                    meetingNode = neighbor;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Dequeues one node on the reverse side, records depth and parent of its newly reached in-neighbors,
+     * and updates the best meeting node.
+     *
+     * @param best The length of the best path found so far.
+     * @return The length of the best path found so far, including this node's in-neighbors.
+     */
+    private int relaxReverse(int best) {
+        poll();
+        int node = reverseQueue[reverseHead++];
+        int depth = reverseDistance[node] + 1;
+        reverseCursor.reset(node);
+        for (int neighbor = reverseCursor.next(); neighbor != IntGraph.NO_NODE; neighbor = reverseCursor.next()) {
+            edgesVisited++;
+            if (reverseMark[neighbor] != epoch) {
+                reverseMark[neighbor] = epoch;
+                reverseDistance[neighbor] = depth;
+                reverseParent[neighbor] = node;
+                reverseQueue[reverseTail++] = neighbor;
+                if (forwardMark[neighbor] == epoch && depth + forwardDistance[neighbor] < best) {
+                    best = depth + forwardDistance[neighbor];
+                    meetingNode = neighbor;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gives up the current search once its deadline has passed or its query is done. The clock and the query are
+     * only read every {@link SearchKernel#POLL_MASK} + 1 calls, and not at all without a deadline.
+     *
+     * @throws CancellationException If the search must stop.
+     */
+    private void poll() {
+        if (deadline != NO_DEADLINE && (++polls & POLL_MASK) == 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new CancellationException("Search deadline passed");
+            }
+            if (query != null && query.isDone()) {
+                throw new CancellationException("Search query is done");
+            }
+        }
+    }
+
+    /**
+     * Allocates the depth and parent arrays used by shortest-path and direction-optimizing queries,
+     * or grows them to the size of the visited marks.
+     */
+    private void ensurePathArrays() {
+        if (forwardParent.length < forwardMark.length) {
+            forwardDistance = new int[forwardMark.length];
+            reverseDistance = new int[forwardMark.length];
+            forwardParent = new int[forwardMark.length];
+            reverseParent = new int[forwardMark.length];
+        }
+    }
+
+    /**
+     * Starts a new query: grows the arrays if the graph has grown, and advances the epoch.
+     * When the epoch wraps around, the marks are cleared once.
+     *
+     * @return The epoch of the new query.
+     */
+    private int nextEpoch() {
+        int nodes = graph.nodeCount();
+        if (forwardMark.length < nodes) {
+            int capacity = Math.max(nodes, forwardMark.length + (forwardMark.length >> 1));
+            forwardQueue = new int[capacity];
+            reverseQueue = new int[capacity];
+            forwardMark = Arrays.copyOf(forwardMark, capacity);
+            reverseMark = Arrays.copyOf(reverseMark, capacity);
+        }
+
+        if (++epoch == 0) {
+            Arrays.fill(forwardMark, 0);
+            Arrays.fill(reverseMark, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+}
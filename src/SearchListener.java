@@ -0,0 +1,20 @@
+/**
+ * Receives the {@link SearchStats} of every search run by a {@link BidirectionalSearch}, for example to feed
+ * latency and edges-scanned histograms of a metrics registry.
+ * <p>
+ * The listener is called on the searching thread right after each search, so it should only record the figures
+ * and return quickly.
+ *
+ * @see BidirectionalSearch#setListener(SearchListener)
+ */
+
+@FunctionalInterface
+public interface SearchListener {
+
+    /**
+     * Called after a search has finished.
+     *
+     * @param stats The statistics of the search.
+     */
+    void onSearch(SearchStats stats);
+}
@@ -0,0 +1,252 @@
+import java.util.Arrays;
+
+/**
+ * The statistics of one bidirectional search, recorded when {@link BidirectionalSearch#setStatsEnabled(boolean)}
+ * is on or a {@link SearchListener} is set.
+ * <p>
+ * Level-synchronous strategies record the size of every frontier they expand, side by side, and the combined
+ * depth of both sides when they met. {@link BidirectionalSearch.Strategy#ALTERNATING} expands one node at a time
+ * and has no levels, so it records no frontiers and no meeting depth.
+ */
+
+public class SearchStats {
+
+    private final String src;
+    private final String dest;
+    private final BidirectionalSearch.Strategy strategy;
+
+    private boolean found;
+    private boolean cached;
+    private long forwardExpanded;
+    private long reverseExpanded;
+    private long edgesScanned;
+
+    /**
+     * The frontier size of every level expanded on each side, in expansion order.
+     */
+    private int[] forwardFrontiers = new int[8];
+    private int[] reverseFrontiers = new int[8];
+    private int forwardLevels;
+    private int reverseLevels;
+
+    private long wallNanos;
+    private long allocatedBytes;
+
+    /**
+     * Constructs empty statistics for a search.
+     *
+     * @param src      The value of the starting node.
+     * @param dest     The value of the target node.
+     * @param strategy The order in which the two sides are expanded.
+     */
+    SearchStats(String src, String dest, BidirectionalSearch.Strategy strategy) {
+        this.src = src;
+        this.dest = dest;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Records that one side is about to expand a level.
+     *
+     * @param forward      {@code true} for the forward side, {@code false} for the reverse side.
+     * @param frontierSize The number of nodes in the level.
+     */
+    void level(boolean forward, int frontierSize) {
+        if (forward) {
+            if (forwardLevels == forwardFrontiers.length) {
+                forwardFrontiers = Arrays.copyOf(forwardFrontiers, forwardLevels * 2);
+            }
+            forwardFrontiers[forwardLevels++] = frontierSize;
+        } else {
+            if (reverseLevels == reverseFrontiers.length) {
+                reverseFrontiers = Arrays.copyOf(reverseFrontiers, reverseLevels * 2);
+            }
+            reverseFrontiers[reverseLevels++] = frontierSize;
+        }
+    }
+
+    /**
+     * Records the outcome of the search.
+     *
+     * @param found           Whether a path was found.
+     * @param forwardExpanded The number of nodes expanded by the forward side.
+     * @param reverseExpanded The number of nodes expanded by the reverse side.
+     * @param edgesScanned    The number of edges examined.
+     */
+    void finish(boolean found, long forwardExpanded, long reverseExpanded, long edgesScanned) {
+        this.found = found;
+        this.forwardExpanded = forwardExpanded;
+        this.reverseExpanded = reverseExpanded;
+        this.edgesScanned = edgesScanned;
+    }
+
+    /**
+     * Records that the search was answered by a {@link SearchCache} without searching.
+     *
+     * @param found Whether the cached answer is that a path exists.
+     */
+    void finishCached(boolean found) {
+        this.found = found;
+        this.cached = true;
+    }
+
+    /**
+     * Records the cost of the search as seen by the caller.
+     *
+     * @param wallNanos      The elapsed wall-clock time in nanoseconds.
+     * @param allocatedBytes The bytes allocated by the searching thread, or {@code 0} if the JVM does not report them.
+     */
+    void measured(long wallNanos, long allocatedBytes) {
+        this.wallNanos = wallNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, the counter behind
+     * {@link SearchStats#getAllocatedBytes()}.
+     *
+     * @return The allocated bytes, or {@code 0} if the JVM does not report them.
+     */
+    static long currentThreadAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean threadBean) {
+            return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value of the starting node.
+     *
+     * @return The source value.
+     */
+    public String getSrc() {
+        return src;
+    }
+
+    /**
+     * Returns the value of the target node.
+     *
+     * @return The destination value.
+     */
+    public String getDest() {
+        return dest;
+    }
+
+    /**
+     * Returns the strategy the search ran with.
+     *
+     * @return The strategy.
+     */
+    public BidirectionalSearch.Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns whether the search found a path.
+     *
+     * @return {@code true} if dest is reachable from src, {@code false} otherwise.
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * Returns whether the answer came from a {@link SearchCache}, in which case no node or edge was examined.
+     *
+     * @return {@code true} for a cache hit, {@code false} otherwise.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Returns the number of nodes whose neighbors the forward side examined.
+     *
+     * @return The nodes expanded forward.
+     */
+    public long getForwardExpanded() {
+        return forwardExpanded;
+    }
+
+    /**
+     * Returns the number of nodes whose neighbors the reverse side examined.
+     *
+     * @return The nodes expanded backward.
+     */
+    public long getReverseExpanded() {
+        return reverseExpanded;
+    }
+
+    /**
+     * Returns the number of edges examined by both sides.
+     *
+     * @return The edges scanned.
+     */
+    public long getEdgesScanned() {
+        return edgesScanned;
+    }
+
+    /**
+     * Returns the size of every level the forward side expanded.
+     *
+     * @return The frontier sizes, in expansion order; empty for {@link BidirectionalSearch.Strategy#ALTERNATING}.
+     */
+    public int[] getForwardFrontiers() {
+        return Arrays.copyOf(forwardFrontiers, forwardLevels);
+    }
+
+    /**
+     * Returns the size of every level the reverse side expanded.
+     *
+     * @return The frontier sizes, in expansion order; empty for {@link BidirectionalSearch.Strategy#ALTERNATING}.
+     */
+    public int[] getReverseFrontiers() {
+        return Arrays.copyOf(reverseFrontiers, reverseLevels);
+    }
+
+    /**
+     * Returns the combined number of levels both sides had expanded when they met, which is the length of the
+     * path found.
+     *
+     * @return The meeting depth, or {@code -1} if no path was found, the answer was cached or the strategy has no levels.
+     */
+    public int getMeetingDepth() {
+        if (!found || cached || strategy == BidirectionalSearch.Strategy.ALTERNATING) {
+            return -1;
+        }
+        return forwardLevels + reverseLevels;
+    }
+
+    /**
+     * Returns the wall-clock time of the search, including any cache lookup.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Returns the bytes allocated on the heap by the searching thread during the search.
+     *
+     * @return The allocated bytes, or {@code 0} if the JVM does not report them.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns a one-line summary of the statistics.
+     *
+     * @return A string with every recorded figure.
+     */
+    @Override
+    public String toString() {
+        return "SearchStats{" + src + " -> " + dest + ", strategy=" + strategy + ", found=" + found
+                + ", cached=" + cached + ", expanded=" + forwardExpanded + "/" + reverseExpanded
+                + ", edges=" + edgesScanned + ", frontiers=" + Arrays.toString(getForwardFrontiers())
+                + "/" + Arrays.toString(getReverseFrontiers()) + ", meetingDepth=" + getMeetingDepth()
+                + ", wallNanos=" + wallNanos + ", allocatedBytes=" + allocatedBytes + "}";
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Carries the messages of a {@link ShardedSearch} to the {@link GraphShard}s and back.
+ * <p>
+ * Messages are opaque byte arrays encoded by the search and decoded by {@link GraphShard#handle(byte[])}, so an
+ * implementation only has to deliver them, whether to a shard in the same JVM, as {@link InProcessTransport} does,
+ * or to one on another machine.
+ */
+
+public interface ShardTransport {
+
+    /**
+     * Returns the number of shards reachable through this transport.
+     *
+     * @return The number of shards, numbered from {@code 0}.
+     */
+    int shardCount();
+
+    /**
+     * Sends a request to a shard and waits for its response.
+     *
+     * @param shard   The number of the shard.
+     * @param request The encoded request.
+     * @return The encoded response.
+     */
+    byte[] send(int shard, byte[] request);
+}
@@ -0,0 +1,207 @@
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coordinates a bidirectional breadth-first search over a graph split into {@link GraphShard}s.
+ * <p>
+ * The coordinator holds only the shard of every node. Each step expands the side with fewer pending candidates:
+ * the candidates are grouped by owning shard and sent in one batched {@code EXPAND} message per shard, which marks
+ * them, detects whether the other side already reached one, and answers with their neighbors. Those neighbors are
+ * the side's next candidates. When one side runs out of candidates, everything it can reach is marked, so one last
+ * batch of the other side's candidates settles whether the two sides meet.
+ * <p>
+ * The number of messages and bytes of the last query are available afterwards. A coordinator is not thread-safe;
+ * several coordinators may share the same shards.
+ */
+
+public class ShardedSearch {
+
+    /**
+     * The source of query ids, shared by all coordinators so their queries never collide on a shard.
+     */
+    private static final AtomicLong QUERY_IDS = new AtomicLong();
+
+    private final ShardTransport transport;
+
+    /**
+     * The shard of every node id.
+     */
+    private final int[] shardOf;
+
+    /**
+     * The pending candidates of each side, grouped by owning shard.
+     */
+    private final int[][] forwardPending;
+    private final int[] forwardSizes;
+    private final int[][] reversePending;
+    private final int[] reverseSizes;
+
+    /**
+     * The shards that hold state for the current query.
+     */
+    private final boolean[] touched;
+
+    private long messages;
+    private long bytes;
+
+    /**
+     * Constructs a coordinator.
+     *
+     * @param transport The transport to the shards.
+     * @param shardOf   The shard of every node id, as used to split the graph.
+     */
+    public ShardedSearch(ShardTransport transport, int[] shardOf) {
+        int shards = transport.shardCount();
+        this.transport = transport;
+        this.shardOf = shardOf;
+        this.forwardPending = new int[shards][16];
+        this.forwardSizes = new int[shards];
+        this.reversePending = new int[shards][16];
+        this.reverseSizes = new int[shards];
+        this.touched = new boolean[shards];
+    }
+
+    /**
+     * Checks whether there is a path between two node ids.
+     *
+     * @param src  The id of the starting node.
+     * @param dest The id of the target node.
+     * @return {@code true} if it finds a path from src to dest, {@code false} otherwise.
+     */
+    public boolean search(int src, int dest) {
+        messages = 0;
+        bytes = 0;
+        if (src == IntGraph.NO_NODE || dest == IntGraph.NO_NODE) {
+            return false;
+        }
+        if (src == dest) {
+            return true;
+        }
+
+        long query = QUERY_IDS.incrementAndGet();
+        Arrays.fill(forwardSizes, 0);
+        Arrays.fill(reverseSizes, 0);
+        Arrays.fill(touched, false);
+        add(forwardPending, forwardSizes, src);
+        add(reversePending, reverseSizes, dest);
+
+        boolean found = false;
+        while (!found && pending(forwardSizes) > 0 && pending(reverseSizes) > 0) {
+            boolean forward = pending(forwardSizes) <= pending(reverseSizes);
+            found = forward ? expand(query, true, forwardPending, forwardSizes)
+                    : expand(query, false, reversePending, reverseSizes);
+        }
+        if (!found && pending(forwardSizes) > 0) {
+            found = expand(query, true, forwardPending, forwardSizes);
+        } else if (!found && pending(reverseSizes) > 0) {
+            found = expand(query, false, reversePending, reverseSizes);
+        }
+
+        byte[] release = GraphShard.releaseRequest(query);
+        for (int shard = 0; shard < touched.length; shard++) {
+            if (touched[shard]) {
+                send(shard, release);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Sends one side's pending candidates to their shards and replaces them with the returned neighbors.
+     *
+     * @param query   The id of the query.
+     * @param forward {@code true} for the forward side, {@code false} for the reverse side.
+     * @param pending The side's pending candidates by shard.
+     * @param sizes   The number of pending candidates of each shard.
+     * @return {@code true} if the two sides met, {@code false} otherwise.
+     */
+    private boolean expand(long query, boolean forward, int[][] pending, int[] sizes) {
+        byte type = forward ? GraphShard.EXPAND_FORWARD : GraphShard.EXPAND_REVERSE;
+        int shards = sizes.length;
+        int[] batchSizes = sizes.clone();
+        int[][] batches = new int[shards][];
+        for (int shard = 0; shard < shards; shard++) {
+            batches[shard] = pending[shard];
+            pending[shard] = new int[Math.max(16, batchSizes[shard])];
+            sizes[shard] = 0;
+        }
+
+        boolean met = false;
+        for (int shard = 0; shard < shards && !met; shard++) {
+            if (batchSizes[shard] == 0) {
+                continue;
+            }
+            touched[shard] = true;
+            ByteBuffer response = ByteBuffer.wrap(send(shard, GraphShard.expandRequest(type, query, batches[shard], batchSizes[shard])));
+            met = response.get() == 1;
+            int count = response.getInt();
+            for (int i = 0; i < count; i++) {
+                add(pending, sizes, response.getInt());
+            }
+        }
+        return met;
+    }
+
+    /**
+     * Sends a request and counts it together with its response.
+     *
+     * @param shard   The number of the shard.
+     * @param request The encoded request.
+     * @return The encoded response.
+     */
+    private byte[] send(int shard, byte[] request) {
+        byte[] response = transport.send(shard, request);
+        messages += 2;
+        bytes += request.length + response.length;
+        return response;
+    }
+
+    /**
+     * Appends a candidate to the pending list of its shard.
+     *
+     * @param pending The pending candidates by shard.
+     * @param sizes   The number of pending candidates of each shard.
+     * @param id      The id of the candidate.
+     */
+    private void add(int[][] pending, int[] sizes, int id) {
+        int shard = shardOf[id];
+        if (sizes[shard] == pending[shard].length) {
+            pending[shard] = Arrays.copyOf(pending[shard], sizes[shard] * 2);
+        }
+        pending[shard][sizes[shard]++] = id;
+    }
+
+    /**
+     * Returns the total number of pending candidates of a side.
+     *
+     * @param sizes The number of pending candidates of each shard.
+     * @return The total.
+     */
+    private static int pending(int[] sizes) {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of messages exchanged with the shards by the last query, counting every request and
+     * every response.
+     *
+     * @return The number of messages.
+     */
+    public long getMessages() {
+        return messages;
+    }
+
+    /**
+     * Returns the number of bytes exchanged with the shards by the last query, in requests and responses.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,759 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The strongly connected components of an {@link IntGraph}, and their condensation.
+ * <p>
+ * {@link StronglyConnectedComponents#of(IntGraph)} runs an iterative version of Tarjan's algorithm: the depth-first
+ * search keeps its own explicit stack of nodes and edge positions instead of recursing, so it handles paths of any
+ * length without overflowing the thread stack. {@link StronglyConnectedComponents#parallel(IntGraph, ForkJoinPool)}
+ * splits the work for large graphs: it trims trivial components, peels off the giant component with one parallel
+ * forward-backward search, and finds the rest by parallel color propagation.
+ * <p>
+ * Both number the components in a reverse topological order of the condensation: whenever a component can reach
+ * another one, it has the larger number. The result describes the graph at the time it was computed.
+ */
+
+public class StronglyConnectedComponents {
+
+    /**
+     * The number of nodes or frontier entries that one task of the parallel variant processes on its own.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    /**
+     * The graph the components were computed for.
+     */
+    final IntGraph graph;
+
+    /**
+     * The version of {@link StronglyConnectedComponents#graph} when the components were computed, or {@code 0}
+     * for a graph that cannot change.
+     */
+    final long version;
+
+    /**
+     * The component of every node, indexed by node id.
+     */
+    final int[] component;
+
+    /**
+     * The number of components.
+     */
+    final int count;
+
+    /**
+     * Constructs the result of a decomposition.
+     *
+     * @param graph     The decomposed graph.
+     * @param component The component of every node, numbered in reverse topological order.
+     * @param count     The number of components.
+     */
+    private StronglyConnectedComponents(IntGraph graph, int[] component, int count) {
+        this.graph = graph;
+        this.version = graph.version();
+        this.component = component;
+        this.count = count;
+    }
+
+    /**
+     * Finds the strongly connected components of a graph with an iterative Tarjan search.
+     *
+     * @param graph The graph to decompose; must not change while this runs.
+     * @return The components of the graph.
+     */
+    public static StronglyConnectedComponents of(IntGraph graph) {
+        int[][] csr = csr(graph, false);
+        int[] component = new int[graph.nodeCount()];
+        int count = tarjan(csr[0], csr[1], component);
+        return new StronglyConnectedComponents(graph, component, count);
+    }
+
+    /**
+     * Finds the strongly connected components of a graph in parallel on the common {@link ForkJoinPool}.
+     *
+     * @param graph The graph to decompose; must not change while this runs.
+     * @return The components of the graph.
+     * @see StronglyConnectedComponents#parallel(IntGraph, ForkJoinPool)
+     */
+    public static StronglyConnectedComponents parallel(IntGraph graph) {
+        return parallel(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds the strongly connected components of a graph in parallel.
+     * <p>
+     * First, nodes without remaining in-edges or out-edges are trimmed off repeatedly as single-node components.
+     * Then the node with the largest product of remaining degrees is taken as a pivot, and the nodes reached from
+     * it both forward and backward by two parallel breadth-first searches form its component, which in most real
+     * graphs is the giant one. The remaining nodes are split by color propagation: every node starts with its own
+     * id as color, and colors spread forward in parallel, each node keeping the largest one, until nothing
+     * changes. Every node that kept its own color is the root of a component made of the nodes of its color that
+     * reach it, found by backward searches that run in parallel, one per root. This repeats until every node
+     * has a component, and the components are finally renumbered in reverse topological order.
+     *
+     * @param graph The graph to decompose; must not change while this runs.
+     * @param pool  The pool that runs the parallel steps.
+     * @return The components of the graph.
+     */
+    public static StronglyConnectedComponents parallel(IntGraph graph, ForkJoinPool pool) {
+        return new Parallel(csr(graph, true), pool).run(graph);
+    }
+
+    /**
+     * Returns the forward CSR of a graph, and its reverse CSR if requested, without copying a {@link CsrGraph}.
+     *
+     * @param graph   The graph.
+     * @param reverse {@code true} to include the reverse CSR.
+     * @return The forward offsets and targets, followed by the reverse offsets and targets if requested.
+     */
+    private static int[][] csr(IntGraph graph, boolean reverse) {
+        if (graph instanceof CsrGraph csrGraph) {
+            return new int[][]{csrGraph.offsets, csrGraph.targets, csrGraph.reverseOffsets, csrGraph.reverseTargets};
+        }
+
+        // Copy the edges once, so searches can pause and resume a node's neighbors by position
+        int nodes = graph.nodeCount();
+        int[] offsets = new int[nodes + 1];
+        for (int id = 0; id < nodes; id++) {
+            offsets[id + 1] = offsets[id] + graph.outDegree(id);
+        }
+        int[] targets = new int[offsets[nodes]];
+        IntGraph.NeighborCursor cursor = graph.forwardCursor();
+        for (int id = 0; id < nodes; id++) {
+            cursor.reset(id);
+            int i = offsets[id];
+            for (int neighbor = cursor.next(); neighbor != IntGraph.NO_NODE; neighbor = cursor.next()) {
+                targets[i++] = neighbor;
+            }
+        }
+        if (!reverse) {
+            return new int[][]{offsets, targets};
+        }
+        int[] reverseOffsets = new int[nodes + 1];
+        int[] reverseTargets = new int[targets.length];
+        CsrGraph.transpose(offsets, targets, reverseOffsets, reverseTargets);
+        return new int[][]{offsets, targets, reverseOffsets, reverseTargets};
+    }
+
+    /**
+     * Runs Tarjan's algorithm on a CSR without recursion.
+     * <p>
+     * A node that has been discovered but not yet assigned a component is exactly a node on Tarjan's stack,
+     * so no separate on-stack flag is needed.
+     *
+     * @param offsets   The offsets of the CSR.
+     * @param targets   The neighbor ids of the CSR.
+     * @param component Receives the component of every node.
+     * @return The number of components.
+     */
+    static int tarjan(int[] offsets, int[] targets, int[] component) {
+        int nodes = component.length;
+        int[] index = new int[nodes];
+        int[] lowLink = new int[nodes];
+        int[] edge = new int[nodes];
+        int[] stack = new int[nodes];
+        int[] calls = new int[nodes];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+
+        int discovered = 0;
+        int count = 0;
+        int stackSize = 0;
+        for (int root = 0; root < nodes; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int callDepth = 0;
+            index[root] = lowLink[root] = discovered++;
+            edge[root] = offsets[root];
+            stack[stackSize++] = root;
+            calls[callDepth++] = root;
+
+            while (callDepth > 0) {
+                int node = calls[callDepth - 1];
+                if (edge[node] < offsets[node + 1]) {
+                    int neighbor = targets[edge[node]++];
+                    if (index[neighbor] < 0) {
+                        // Descend into the neighbor
+                        index[neighbor] = lowLink[neighbor] = discovered++;
+                        edge[neighbor] = offsets[neighbor];
+                        stack[stackSize++] = neighbor;
+                        calls[callDepth++] = neighbor;
+                    } else if (component[neighbor] < 0) {
+                        lowLink[node] = Math.min(lowLink[node], index[neighbor]);
+                    }
+                    continue;
+                }
+
+                // All neighbors done: return from the node
+                callDepth--;
+                if (lowLink[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        component[member] = count;
+                    } while (member != node);
+                    count++;
+                }
+                if (callDepth > 0) {
+                    int caller = calls[callDepth - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Builds the condensation of a graph: one node per component, and one edge between two components for every
+     * pair linked by at least one edge of the graph.
+     *
+     * @param offsets   The forward offsets of the graph.
+     * @param targets   The forward neighbor ids of the graph.
+     * @param component The component of every node.
+     * @param count     The number of components.
+     * @return The offsets and targets of the condensation's CSR, without duplicate edges or self-loops.
+     */
+    static int[][] condense(int[] offsets, int[] targets, int[] component, int count) {
+        // Group the nodes by component with a counting sort
+        int nodes = component.length;
+        int[] memberOffsets = new int[count + 1];
+        for (int id = 0; id < nodes; id++) {
+            memberOffsets[component[id] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[nodes];
+        int[] next = Arrays.copyOf(memberOffsets, count);
+        for (int id = 0; id < nodes; id++) {
+            members[next[component[id]]++] = id;
+        }
+
+        // Collect each component's edges at once, dropping duplicates
+        int[] dagOffsets = new int[count + 1];
+        int[] dagTargets = new int[Math.max(16, count)];
+        int size = 0;
+        int[] seen = new int[count];
+        Arrays.fill(seen, -1);
+        for (int c = 0; c < count; c++) {
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                int member = members[i];
+                for (int j = offsets[member]; j < offsets[member + 1]; j++) {
+                    int target = component[targets[j]];
+                    if (target != c && seen[target] != c) {
+                        seen[target] = c;
+                        if (size == dagTargets.length) {
+                            dagTargets = Arrays.copyOf(dagTargets, size * 2);
+                        }
+                        dagTargets[size++] = target;
+                    }
+                }
+            }
+            dagOffsets[c + 1] = size;
+        }
+        return new int[][]{dagOffsets, Arrays.copyOf(dagTargets, size)};
+    }
+
+    /**
+     * Returns the condensation of the graph as offsets and targets, with the component numbers as node ids.
+     *
+     * @return The offsets and targets of the condensation's CSR.
+     */
+    int[][] dag() {
+        int[][] csr = csr(graph, false);
+        return condense(csr[0], csr[1], component, count);
+    }
+
+    /**
+     * Returns the condensation of the graph: a DAG with one node per component, whose value is the component
+     * number, and one edge from a component to every other component it has an edge to.
+     *
+     * @return The condensation as an immutable graph.
+     */
+    public CsrGraph condensation() {
+        int[][] dag = dag();
+        String[] values = new String[count];
+        Map<String, Integer> ids = new HashMap<>();
+        for (int c = 0; c < count; c++) {
+            values[c] = Integer.toString(c);
+            ids.put(values[c], c);
+        }
+        return new CsrGraph(dag[0], dag[1], values, ids);
+    }
+
+    /**
+     * Returns the component of a node.
+     *
+     * @param id The id of the node.
+     * @return The number of the node's component, in {@code [0, count())}.
+     */
+    public int componentOf(int id) {
+        return component[id];
+    }
+
+    /**
+     * Returns the component of every node.
+     *
+     * @return A copy of the component numbers, indexed by node id.
+     */
+    public int[] components() {
+        return component.clone();
+    }
+
+    /**
+     * Checks whether two nodes belong to the same component, which means each reaches the other.
+     *
+     * @param first  The id of the first node.
+     * @param second The id of the second node.
+     * @return {@code true} if both ids are valid and in the same component, {@code false} otherwise.
+     */
+    public boolean sameComponent(int first, int second) {
+        return first != IntGraph.NO_NODE && second != IntGraph.NO_NODE && component[first] == component[second];
+    }
+
+    /**
+     * Returns the number of components.
+     *
+     * @return The number of strongly connected components.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Checks whether the components still describe a graph.
+     *
+     * @param graph The graph to check.
+     * @return {@code true} if they were computed for this graph and the graph has not changed since.
+     */
+    boolean isCurrent(IntGraph graph) {
+        return graph == this.graph && graph.version() == version;
+    }
+
+    /**
+     * The state of one parallel decomposition.
+     */
+    private static final class Parallel {
+
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] reverseOffsets;
+        private final int[] reverseTargets;
+        private final ForkJoinPool pool;
+
+        /**
+         * The component of every node in the order found, or {@code -1} while it has none.
+         * Written by parallel tasks only for disjoint nodes, and read after they have been joined.
+         */
+        private final int[] component;
+        private int count;
+
+        /**
+         * Constructs the state for a graph.
+         *
+         * @param csr  The forward and the reverse CSR of the graph.
+         * @param pool The pool that runs the parallel steps.
+         */
+        Parallel(int[][] csr, ForkJoinPool pool) {
+            this.offsets = csr[0];
+            this.targets = csr[1];
+            this.reverseOffsets = csr[2];
+            this.reverseTargets = csr[3];
+            this.pool = pool;
+            this.component = new int[offsets.length - 1];
+            Arrays.fill(component, -1);
+        }
+
+        /**
+         * Runs all phases and renumbers the components in reverse topological order.
+         *
+         * @param graph The decomposed graph.
+         * @return The components of the graph.
+         */
+        StronglyConnectedComponents run(IntGraph graph) {
+            int pivot = trim();
+            if (pivot != IntGraph.NO_NODE) {
+                AtomicLongArray forward = reach(pivot, true);
+                AtomicLongArray backward = reach(pivot, false);
+                for (int node = 0; node < component.length; node++) {
+                    if (ParallelSearchKernel.isClaimed(forward, node) && ParallelSearchKernel.isClaimed(backward, node)) {
+                        component[node] = count;
+                    }
+                }
+                count++;
+            }
+
+            for (int[] remaining = remaining(); remaining.length > 0; remaining = remaining()) {
+                color(remaining);
+            }
+
+            // Renumber so that every component comes after the components it reaches
+            int[][] dag = condense(offsets, targets, component, count);
+            int[] order = reverseTopologicalOrder(dag[0], dag[1], count);
+            for (int node = 0; node < component.length; node++) {
+                component[node] = order[component[node]];
+            }
+            return new StronglyConnectedComponents(graph, component, count);
+        }
+
+        /**
+         * Repeatedly removes nodes without remaining in-edges or out-edges, each as a component of its own.
+         *
+         * @return The remaining node with the largest product of remaining in-degree and out-degree,
+         *         or {@link IntGraph#NO_NODE} if no node remains.
+         */
+        private int trim() {
+            int nodes = component.length;
+            int[] in = new int[nodes];
+            int[] out = new int[nodes];
+            for (int node = 0; node < nodes; node++) {
+                out[node] = offsets[node + 1] - offsets[node];
+                in[node] = reverseOffsets[node + 1] - reverseOffsets[node];
+            }
+
+            int[] queue = new int[nodes];
+            int head = 0;
+            int tail = 0;
+            for (int node = 0; node < nodes; node++) {
+                if (in[node] == 0 || out[node] == 0) {
+                    component[node] = count++;
+                    queue[tail++] = node;
+                }
+            }
+            while (head < tail) {
+                int node = queue[head++];
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    int target = targets[i];
+                    if (component[target] < 0 && --in[target] == 0) {
+                        component[target] = count++;
+                        queue[tail++] = target;
+                    }
+                }
+                for (int i = reverseOffsets[node]; i < reverseOffsets[node + 1]; i++) {
+                    int source = reverseTargets[i];
+                    if (component[source] < 0 && --out[source] == 0) {
+                        component[source] = count++;
+                        queue[tail++] = source;
+                    }
+                }
+            }
+
+            int pivot = IntGraph.NO_NODE;
+            long best = -1;
+            for (int node = 0; node < nodes; node++) {
+                if (component[node] < 0 && (long) in[node] * out[node] > best) {
+                    best = (long) in[node] * out[node];
+                    pivot = node;
+                }
+            }
+            return pivot;
+        }
+
+        /**
+         * Finds the nodes without a component that a node reaches through other such nodes, with a parallel
+         * level-synchronous breadth-first search.
+         *
+         * @param start   The id of the start node.
+         * @param forward {@code true} to follow out-edges, {@code false} to follow in-edges.
+         * @return The reached nodes, start included, as a bitset.
+         */
+        private AtomicLongArray reach(int start, boolean forward) {
+            AtomicLongArray visited = new AtomicLongArray((component.length + 63) >>> 6);
+            ParallelSearchKernel.claim(visited, start);
+            int[] frontier = {start};
+            while (frontier.length > 0) {
+                frontier = pool.invoke(new Expansion(frontier, 0, frontier.length, forward, visited));
+            }
+            return visited;
+        }
+
+        /**
+         * Returns the nodes that have no component yet.
+         *
+         * @return Their ids, in ascending order.
+         */
+        private int[] remaining() {
+            int size = 0;
+            for (int c : component) {
+                if (c < 0) {
+                    size++;
+                }
+            }
+            int[] remaining = new int[size];
+            size = 0;
+            for (int node = 0; node < component.length; node++) {
+                if (component[node] < 0) {
+                    remaining[size++] = node;
+                }
+            }
+            return remaining;
+        }
+
+        /**
+         * Runs one round of color propagation over the remaining nodes and assigns the components of all roots.
+         * Every round assigns at least the component of the node with the largest id.
+         *
+         * @param remaining The nodes without a component.
+         */
+        private void color(int[] remaining) {
+            AtomicIntegerArray colors = new AtomicIntegerArray(component.length);
+            for (int node : remaining) {
+                colors.set(node, node);
+            }
+            AtomicBoolean changed = new AtomicBoolean(true);
+            while (changed.get()) {
+                changed.set(false);
+                pool.invoke(new Propagation(remaining, 0, remaining.length, colors, changed));
+            }
+
+            int roots = 0;
+            for (int node : remaining) {
+                if (colors.get(node) == node) {
+                    roots++;
+                }
+            }
+            int[] rootIds = new int[roots];
+            roots = 0;
+            for (int node : remaining) {
+                if (colors.get(node) == node) {
+                    rootIds[roots++] = node;
+                }
+            }
+            pool.invoke(new Collection(rootIds, 0, rootIds.length, count, colors));
+            count += roots;
+        }
+
+        /**
+         * Computes a reverse topological numbering of a DAG with Kahn's algorithm.
+         *
+         * @param dagOffsets The offsets of the DAG.
+         * @param dagTargets The neighbor ids of the DAG.
+         * @param nodes      The number of nodes of the DAG.
+         * @return The new number of every node: sinks first, and every node after all nodes it reaches.
+         */
+        private static int[] reverseTopologicalOrder(int[] dagOffsets, int[] dagTargets, int nodes) {
+            int[] in = new int[nodes];
+            for (int target : dagTargets) {
+                in[target]++;
+            }
+            int[] queue = new int[nodes];
+            int head = 0;
+            int tail = 0;
+            for (int node = 0; node < nodes; node++) {
+                if (in[node] == 0) {
+                    queue[tail++] = node;
+                }
+            }
+            int[] order = new int[nodes];
+            while (head < tail) {
+                int node = queue[head];
+                order[node] = nodes - 1 - head++;
+                for (int i = dagOffsets[node]; i < dagOffsets[node + 1]; i++) {
+                    if (--in[dagTargets[i]] == 0) {
+                        queue[tail++] = dagTargets[i];
+                    }
+                }
+            }
+            return order;
+        }
+
+        /**
+         * Expands a slice of a BFS frontier over the nodes without a component, splitting large slices in half.
+         */
+        @SuppressWarnings("serial")
+        private final class Expansion extends RecursiveTask<int[]> {
+
+            private final int[] frontier;
+            private final int from;
+            private final int to;
+            private final boolean forward;
+            private final AtomicLongArray visited;
+
+            /**
+             * Constructs a task for a slice of the frontier.
+             *
+             * @param frontier The frontier.
+             * @param from     The first index of the slice.
+             * @param to       The index just past the slice.
+             * @param forward  {@code true} to follow out-edges, {@code false} to follow in-edges.
+             * @param visited  The nodes reached so far.
+             */
+            Expansion(int[] frontier, int from, int to, boolean forward, AtomicLongArray visited) {
+                this.frontier = frontier;
+                this.from = from;
+                this.to = to;
+                this.forward = forward;
+                this.visited = visited;
+            }
+
+            @Override
+            protected int[] compute() {
+                if (to - from > SEQUENTIAL_THRESHOLD) {
+                    int middle = (from + to) >>> 1;
+                    Expansion left = new Expansion(frontier, from, middle, forward, visited);
+                    Expansion right = new Expansion(frontier, middle, to, forward, visited);
+                    left.fork();
+                    int[] rightNext = right.compute();
+                    int[] leftNext = left.join();
+
+                    int[] next = Arrays.copyOf(leftNext, leftNext.length + rightNext.length);
+                    System.arraycopy(rightNext, 0, next, leftNext.length, rightNext.length);
+                    return next;
+                }
+
+                int[] edgeOffsets = forward ? offsets : reverseOffsets;
+                int[] edgeTargets = forward ? targets : reverseTargets;
+                int[] next = new int[16];
+                int size = 0;
+                for (int i = from; i < to; i++) {
+                    int node = frontier[i];
+                    for (int j = edgeOffsets[node]; j < edgeOffsets[node + 1]; j++) {
+                        int neighbor = edgeTargets[j];
+                        if (component[neighbor] < 0 && ParallelSearchKernel.claim(visited, neighbor)) {
+                            if (size == next.length) {
+                                next = Arrays.copyOf(next, size * 2);
+                            }
+                            next[size++] = neighbor;
+                        }
+                    }
+                }
+                return Arrays.copyOf(next, size);
+            }
+        }
+
+        /**
+         * Spreads the colors of a slice of the remaining nodes to their remaining out-neighbors, keeping the
+         * largest color at every node.
+         */
+        @SuppressWarnings("serial")
+        private final class Propagation extends RecursiveAction {
+
+            private final int[] nodes;
+            private final int from;
+            private final int to;
+            private final AtomicIntegerArray colors;
+            private final AtomicBoolean changed;
+
+            /**
+             * Constructs a task for a slice of the remaining nodes.
+             *
+             * @param nodes   The remaining nodes.
+             * @param from    The first index of the slice.
+             * @param to      The index just past the slice.
+             * @param colors  The color of every node.
+             * @param changed Set when any color changes.
+             */
+            Propagation(int[] nodes, int from, int to, AtomicIntegerArray colors, AtomicBoolean changed) {
+                this.nodes = nodes;
+                this.from = from;
+                this.to = to;
+                this.colors = colors;
+                this.changed = changed;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > SEQUENTIAL_THRESHOLD) {
+                    int middle = (from + to) >>> 1;
+                    ForkJoinTask.invokeAll(new Propagation(nodes, from, middle, colors, changed),
+                            new Propagation(nodes, middle, to, colors, changed));
+                    return;
+                }
+
+                boolean any = false;
+                for (int i = from; i < to; i++) {
+                    int node = nodes[i];
+                    int color = colors.get(node);
+                    for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+                        int neighbor = targets[j];
+                        if (component[neighbor] >= 0) {
+                            continue;
+                        }
+                        int current = colors.get(neighbor);
+                        while (current < color && !colors.compareAndSet(neighbor, current, color)) {
+                            current = colors.get(neighbor);
+                        }
+                        if (current < color) {
+                            any = true;
+                        }
+                    }
+                }
+                if (any) {
+                    changed.set(true);
+                }
+            }
+        }
+
+        /**
+         * Collects the components of a slice of the color roots: each is the set of nodes of the root's color
+         * that reach the root, found by a backward search restricted to that color.
+         */
+        @SuppressWarnings("serial")
+        private final class Collection extends RecursiveAction {
+
+            private final int[] roots;
+            private final int from;
+            private final int to;
+            private final int firstComponent;
+            private final AtomicIntegerArray colors;
+
+            /**
+             * Constructs a task for a slice of the roots.
+             *
+             * @param roots          The root of every color.
+             * @param from           The first index of the slice.
+             * @param to             The index just past the slice.
+             * @param firstComponent The component number of the first root.
+             * @param colors         The color of every node.
+             */
+            Collection(int[] roots, int from, int to, int firstComponent, AtomicIntegerArray colors) {
+                this.roots = roots;
+                this.from = from;
+                this.to = to;
+                this.firstComponent = firstComponent;
+                this.colors = colors;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1 && to - from > SEQUENTIAL_THRESHOLD / 64) {
+                    int middle = (from + to) >>> 1;
+                    ForkJoinTask.invokeAll(new Collection(roots, from, middle, firstComponent, colors),
+                            new Collection(roots, middle, to, firstComponent, colors));
+                    return;
+                }
+
+                int[] queue = new int[16];
+                for (int r = from; r < to; r++) {
+                    int root = roots[r];
+                    int number = firstComponent + r;
+                    component[root] = number;
+                    queue[0] = root;
+                    int head = 0;
+                    int tail = 1;
+                    while (head < tail) {
+                        int node = queue[head++];
+                        for (int i = reverseOffsets[node]; i < reverseOffsets[node + 1]; i++) {
+                            int source = reverseTargets[i];
+                            if (component[source] < 0 && colors.get(source) == root) {
+                                component[source] = number;
+                                if (tail == queue.length) {
+                                    queue = Arrays.copyOf(queue, tail * 2);
+                                }
+                                queue[tail++] = source;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
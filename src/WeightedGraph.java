@@ -0,0 +1,133 @@
+import java.util.*;
+
+/**
+ * A bidirectional graph whose edges carry non-negative weights, such as road lengths or travel times.
+ * <p>
+ * Weights are kept beside the adjacency lists, keyed by the ids of both endpoints, so every unweighted
+ * operation of {@link BiDiGraph} works unchanged. An edge added without a weight, including every edge of
+ * an adjacency list passed to the constructor, weighs {@link WeightedGraph#DEFAULT_WEIGHT}.
+ *
+ * @see AltSearch
+ */
+
+public class WeightedGraph extends BiDiGraph {
+
+    /**
+     * The weight of an edge that was added without one.
+     */
+    public static final double DEFAULT_WEIGHT = 1;
+
+    /**
+     * The weight of every edge that does not weigh {@link WeightedGraph#DEFAULT_WEIGHT}, keyed by {@link WeightedGraph#key(int, int)}.
+     */
+    private final Map<Long, Double> weights = new HashMap<>();
+
+    /**
+     * Constructs an empty weighted graph.
+     */
+    public WeightedGraph() {
+        super();
+    }
+
+    /**
+     * Constructs a weighted graph from an unweighted adjacency list; every edge weighs {@link WeightedGraph#DEFAULT_WEIGHT}.
+     *
+     * @param adjList The adjacency list to initialize the graph.
+     */
+    public WeightedGraph(Map<?, ?> adjList) {
+        super(adjList);
+    }
+
+    /**
+     * Adds a weighted directed edge, or changes the weight of the edge if it is already present.
+     * Both endpoints are added to the graph if they are not present yet.
+     *
+     * @param src    The value of the source node.
+     * @param dest   The value of the destination node.
+     * @param weight The weight of the edge.
+     * @throws IllegalArgumentException If the weight is negative, infinite or NaN.
+     */
+    public void addEdge(String src, String dest, double weight) {
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Edge weight must be finite and non-negative: " + weight);
+        }
+        addEdge(src, dest);
+        long key = key(idOf(src), idOf(dest));
+        if (weight == DEFAULT_WEIGHT) {
+            weights.remove(key);
+        } else {
+            weights.put(key, weight);
+        }
+    }
+
+    /**
+     * Returns the weight of an edge.
+     *
+     * @param src  The value of the source node.
+     * @param dest The value of the destination node.
+     * @return The weight of the edge, or {@link Double#NaN} if there is no such edge.
+     */
+    public double getWeight(String src, String dest) {
+        Node srcNode = getNode(src);
+        Node destNode = getNode(dest);
+        if (srcNode == null || destNode == null || !getNeighbors(srcNode).contains(destNode)) {
+            return Double.NaN;
+        }
+        return weightOf(idOf(src), idOf(dest));
+    }
+
+    /**
+     * Returns the weight of an edge between two node ids, without checking that the edge exists.
+     *
+     * @param srcId  The id of the source node.
+     * @param destId The id of the destination node.
+     * @return The weight of the edge.
+     */
+    double weightOf(int srcId, int destId) {
+        Double weight = weights.get(key(srcId, destId));
+        return weight == null ? DEFAULT_WEIGHT : weight;
+    }
+
+    /**
+     * Removes a directed edge together with its weight.
+     *
+     * @param srcNode  The canonical source node.
+     * @param destNode The canonical destination node.
+     * @return {@code true} if the edge was present, {@code false} otherwise.
+     */
+    @Override
+    protected boolean disconnect(Node srcNode, Node destNode) {
+        if (!super.disconnect(srcNode, destNode)) {
+            return false;
+        }
+        weights.remove(key(idOf(srcNode.value()), idOf(destNode.value())));
+        return true;
+    }
+
+    /**
+     * Removes a node, all of its incoming and outgoing edges, and their weights.
+     *
+     * @param value The value of the node to remove.
+     * @return {@code true} if the node was present, {@code false} otherwise.
+     */
+    @Override
+    public boolean removeNode(String value) {
+        int id = idOf(value);
+        if (!super.removeNode(value)) {
+            return false;
+        }
+        weights.keySet().removeIf(key -> (int) (key >>> 32) == id || (int) (long) key == id);
+        return true;
+    }
+
+    /**
+     * Packs the ids of an edge's endpoints into one key.
+     *
+     * @param srcId  The id of the source node.
+     * @param destId The id of the destination node.
+     * @return The key of the edge.
+     */
+    private static long key(int srcId, int destId) {
+        return (long) srcId << 32 | (destId & 0xFFFFFFFFL);
+    }
+}